@@ -9,13 +9,13 @@ import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.collections4.CollectionUtils;
 import org.hswebframework.web.bean.FastBeanCopier;
+import org.jetlinks.collector.codec.PointDataCodec;
 import org.jetlinks.core.GenericHeaderSupport;
 import org.jetlinks.core.message.property.PropertyMessage;
 import org.jetlinks.core.metadata.Jsonable;
 import org.jetlinks.core.utils.SerializeUtils;
 
 import java.io.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -83,6 +83,20 @@ public class BatchPointData extends GenericHeaderSupport<BatchPointData> impleme
         return propertiesMap;
     }
 
+    /**
+     * 释放所有点位数据持有的原始数据缓冲区
+     *
+     * @see PointData#release()
+     */
+    public void release() {
+        List<PointData> points = this.points;
+        if (points != null) {
+            for (PointData point : points) {
+                point.release();
+            }
+        }
+    }
+
     @Nonnull
     @Override
     @SuppressWarnings("all")
@@ -166,44 +180,14 @@ public class BatchPointData extends GenericHeaderSupport<BatchPointData> impleme
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         SerializeUtils.writeKeyValue(getHeaders(), out);
-
-        out.writeUTF(provider);
-        out.writeUTF(channelId);
-        out.writeUTF(collectorId);
-        out.writeLong(timestamp);
-        SerializeUtils.writeNullableUTF(source, out);
-        if (CollectionUtils.isEmpty(points)) {
-            out.writeInt(0);
-        } else {
-            out.write(points.size());
-            for (PointData entry : points) {
-                entry.writeExternal(out);
-            }
-        }
-
+        PointDataCodec.writeBatch(this, out, null);
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         SerializeUtils.readKeyValue(in, this::addHeader);
-
-        provider = in.readUTF();
-        channelId = in.readUTF();
-        collectorId = in.readUTF();
-        timestamp = in.readLong();
-        source = SerializeUtils.readNullableUTF(in);
-
-        int size = in.readInt();
-        if (size == 0) {
-            this.points = new ArrayList<>();
-        } else {
-            this.points = new ArrayList<>(size);
-            for (int i = 0; i < size; i++) {
-                PointData value = new PointData();
-                value.readExternal(in);
-                this.points.add(value);
-            }
-        }
+        PointDataCodec.readBatch(this, in, null);
+        this.propertiesMap = null;
     }
 
     @Override
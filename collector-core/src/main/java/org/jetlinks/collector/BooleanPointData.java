@@ -0,0 +1,70 @@
+package org.jetlinks.collector;
+
+import lombok.NoArgsConstructor;
+
+/**
+ * boolean类型的点位数据,值以基本类型存储.
+ *
+ * @author zhouhao
+ * @see PointData#ofBoolean(String, byte[], boolean, String, long)
+ * @since 1.0.1
+ */
+@NoArgsConstructor
+public class BooleanPointData extends PrimitivePointData {
+
+    private boolean value;
+
+    public BooleanPointData(String pointId,
+                            byte[] nativeData,
+                            boolean value,
+                            String state,
+                            long timestamp) {
+        super(pointId, nativeData, state, timestamp);
+        this.value = value;
+    }
+
+    /**
+     * 获取boolean值,值以基本类型存储时不会产生装箱.
+     * <p>
+     * 不使用getter命名,避免被序列化或者属性复制时作为额外的属性.
+     *
+     * @return 值
+     */
+    public boolean booleanValue() {
+        if (isPrimitive()) {
+            return value;
+        }
+        Object parsed = getParsedData();
+        return parsed instanceof Boolean b ? b : false;
+    }
+
+    /**
+     * 以基本类型设置值
+     *
+     * @param value 值
+     */
+    public void booleanValue(boolean value) {
+        this.value = value;
+        markPrimitive();
+    }
+
+    @Override
+    protected boolean trySetPrimitive(Object value) {
+        //只接受相同的装箱类型,避免读取时类型发生变化
+        if (value instanceof Boolean v) {
+            this.value = v;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected Object boxed() {
+        return Boolean.valueOf(value);
+    }
+
+    @Override
+    protected String primitiveString() {
+        return String.valueOf(value);
+    }
+}
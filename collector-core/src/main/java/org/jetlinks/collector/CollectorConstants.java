@@ -14,6 +14,20 @@ public interface CollectorConstants {
         String complete = "complete";
         String collect = "collect";
         String pending = "pending";
+        // 等待响应的请求数量
+        String inflight = "inflight";
+        // 已订阅的点位数量
+        String subscribed = "subscribed";
+        // 订阅失败的点位数量
+        String subscribeFailed = "subscribe_failed";
+        // 缓冲区已满而丢弃的点位数据数量
+        String dropped = "dropped";
+        // 缓冲区已满而合并的点位数据数量
+        String conflated = "conflated";
+        // 重新订阅的点位数量
+        String resubscribe = "resubscribe";
+        // 长时间未收到数据而失效的订阅数量
+        String stale = "stale";
 
         // 接收流量
         String received = "received";
@@ -21,6 +35,21 @@ public interface CollectorConstants {
         String sent = "sent";
         // 错误
         String error = "error";
+
+        // 定时采集调度延迟(毫秒)
+        String lag = "lag";
+        // 上一次采集未完成而跳过的次数
+        String overrun = "overrun";
+        // 重连次数
+        String reconnect = "reconnect";
+        // 建立连接耗时(毫秒)
+        String connectTime = "connect_time";
+        // 事件循环待执行的任务数量
+        String loopPending = "loop_pending";
+        // 固定在事件循环上的客户端数量
+        String loopPinned = "loop_pinned";
+        // 请求前的通讯间隔(毫秒)
+        String interval = "interval";
     }
 
     interface Headers {
@@ -35,6 +64,8 @@ public interface CollectorConstants {
     enum CollectorFeatures implements Feature {
         subscribable("可订阅点位数据"),
         batchSupport("支持批量采集"),
+        // 重写了批量写入方法,可一次写入多个点位.
+        batchWrite("支持批量写入"),
         // 支持自动编解码,平台无需配置编解码规则.
         autoCodec("自动编解码"),
         // 否则为通道持有连接
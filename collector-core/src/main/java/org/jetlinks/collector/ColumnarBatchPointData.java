@@ -0,0 +1,738 @@
+package org.jetlinks.collector;
+
+import com.alibaba.fastjson.JSONObject;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.Getter;
+import lombok.Setter;
+import org.hswebframework.web.bean.FastBeanCopier;
+import org.jetlinks.collector.codec.PointDataCodec;
+import org.jetlinks.core.GenericHeaderSupport;
+import org.jetlinks.core.message.property.PropertyMessage;
+import org.jetlinks.core.metadata.Jsonable;
+import org.jetlinks.core.utils.SerializeUtils;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * 列式存储的批量点位数据.
+ * <p>
+ * 与{@link BatchPointData}不同,点位ID、时间戳、状态以及值均使用并行数组存储,数值类型的值以基本类型存储,
+ * 并通过开放寻址索引实现按点位ID查找.{@link ColumnarBatchPointData#getProperties()}等方法返回的均为视图,
+ * 不会重新构造Map,适用于单次采集点位较多的场景.
+ * <p>
+ * 相同点位ID重复添加时,将覆盖之前的值,位置保持不变.
+ *
+ * @author zhouhao
+ * @see BatchPointData
+ * @since 1.0.1
+ */
+public class ColumnarBatchPointData extends GenericHeaderSupport<ColumnarBatchPointData>
+    implements PropertyMessage, Externalizable, Jsonable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final byte TYPE_OBJECT = 0;
+    public static final byte TYPE_DOUBLE = 1;
+    public static final byte TYPE_LONG = 2;
+    public static final byte TYPE_INT = 3;
+    public static final byte TYPE_BOOLEAN = 4;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * 采集器提供商
+     *
+     * @see DataCollectorProvider#getId()
+     */
+    @Getter
+    @Setter
+    private String provider;
+
+    /**
+     * 通道ID
+     *
+     * @see DataCollectorProvider.ChannelRuntime#getId()
+     */
+    @Getter
+    @Setter
+    private String channelId;
+
+    /**
+     * 采集器ID
+     *
+     * @see DataCollectorProvider.CollectorRuntime#getId()
+     */
+    @Getter
+    @Setter
+    private String collectorId;
+
+    /**
+     * 时间戳
+     */
+    @Getter
+    @Setter
+    private long timestamp = System.currentTimeMillis();
+
+    /**
+     * 点位源,表示点位数据从何而来.
+     */
+    @Getter
+    @Setter
+    private String source;
+
+    private transient int size;
+    private transient int stateSize;
+    private transient String[] pointIds;
+    private transient long[] timestamps;
+    private transient String[] states;
+    private transient byte[] types;
+    //基本类型的值,double使用Double.doubleToRawLongBits存储
+    private transient long[] values;
+    //非基本类型的值,按需创建
+    private transient Object[] objects;
+    //原始数据,按需创建
+    private transient byte[][] originData;
+    //开放寻址索引,存储行号+1,0表示空.
+    private transient int[] index;
+
+    public ColumnarBatchPointData() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ColumnarBatchPointData(int capacity) {
+        init(capacity);
+    }
+
+    private void init(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.size = 0;
+        this.stateSize = 0;
+        this.pointIds = new String[capacity];
+        this.timestamps = new long[capacity];
+        this.states = new String[capacity];
+        this.types = new byte[capacity];
+        this.values = new long[capacity];
+        this.objects = null;
+        this.originData = null;
+        this.index = new int[tableSizeFor(capacity)];
+    }
+
+    public static ColumnarBatchPointData of(BatchPointData batch) {
+        List<PointData> points = batch.getPoints();
+        ColumnarBatchPointData data = new ColumnarBatchPointData(points == null ? 0 : points.size());
+        data.setHeaders(batch.getHeaders());
+        data.provider = batch.getProvider();
+        data.channelId = batch.getChannelId();
+        data.collectorId = batch.getCollectorId();
+        data.timestamp = batch.getTimestamp();
+        data.source = batch.getSource();
+        if (points != null) {
+            for (PointData point : points) {
+                data.add(point);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * 转换为{@link BatchPointData}
+     *
+     * @return BatchPointData
+     */
+    public BatchPointData toBatch() {
+        BatchPointData batch = new BatchPointData();
+        if (getHeaders() != null) {
+            batch.setHeaders(new HashMap<>(getHeaders()));
+        }
+        batch.setProvider(provider);
+        batch.setChannelId(channelId);
+        batch.setCollectorId(collectorId);
+        batch.setTimestamp(timestamp);
+        batch.setSource(source);
+        batch.setPoints(new ArrayList<>(getPoints()));
+        return batch;
+    }
+
+    /**
+     * 添加点位数据,{@link PrimitivePointData}将以基本类型存储.
+     *
+     * @param data 点位数据
+     * @return this
+     */
+    public ColumnarBatchPointData add(PointData data) {
+        int row;
+        if (data instanceof PrimitivePointData primitive && primitive.isPrimitive()) {
+            if (data instanceof DoublePointData d) {
+                row = row(data.getPointId(), data.getState(), data.getTimestamp(), TYPE_DOUBLE);
+                values[row] = Double.doubleToRawLongBits(d.doubleValue());
+            } else if (data instanceof LongPointData l) {
+                row = row(data.getPointId(), data.getState(), data.getTimestamp(), TYPE_LONG);
+                values[row] = l.longValue();
+            } else if (data instanceof IntPointData i) {
+                row = row(data.getPointId(), data.getState(), data.getTimestamp(), TYPE_INT);
+                values[row] = i.intValue();
+            } else if (data instanceof BooleanPointData b) {
+                row = row(data.getPointId(), data.getState(), data.getTimestamp(), TYPE_BOOLEAN);
+                values[row] = b.booleanValue() ? 1 : 0;
+            } else {
+                row = addObject0(data.getPointId(), data.getParsedData(), data.getState(), data.getTimestamp());
+            }
+        } else {
+            row = addObject0(data.getPointId(), data.getParsedData(), data.getState(), data.getTimestamp());
+        }
+        setOriginData(row, data.getOriginData());
+        return this;
+    }
+
+    public ColumnarBatchPointData addDouble(String pointId, double value, String state, long timestamp) {
+        int row = row(pointId, state, timestamp, TYPE_DOUBLE);
+        values[row] = Double.doubleToRawLongBits(value);
+        return this;
+    }
+
+    public ColumnarBatchPointData addLong(String pointId, long value, String state, long timestamp) {
+        int row = row(pointId, state, timestamp, TYPE_LONG);
+        values[row] = value;
+        return this;
+    }
+
+    public ColumnarBatchPointData addInt(String pointId, int value, String state, long timestamp) {
+        int row = row(pointId, state, timestamp, TYPE_INT);
+        values[row] = value;
+        return this;
+    }
+
+    public ColumnarBatchPointData addBoolean(String pointId, boolean value, String state, long timestamp) {
+        int row = row(pointId, state, timestamp, TYPE_BOOLEAN);
+        values[row] = value ? 1 : 0;
+        return this;
+    }
+
+    public ColumnarBatchPointData addObject(String pointId,
+                                            byte[] nativeData,
+                                            Object value,
+                                            String state,
+                                            long timestamp) {
+        setOriginData(addObject0(pointId, value, state, timestamp), nativeData);
+        return this;
+    }
+
+    private int addObject0(String pointId, Object value, String state, long timestamp) {
+        int row = row(pointId, state, timestamp, TYPE_OBJECT);
+        if (value != null && objects == null) {
+            objects = new Object[pointIds.length];
+        }
+        if (objects != null) {
+            objects[row] = value;
+        }
+        return row;
+    }
+
+    /**
+     * 设置指定行的原始数据
+     *
+     * @param row  行号
+     * @param data 原始数据
+     */
+    public void setOriginData(int row, byte[] data) {
+        checkRow(row);
+        if (data != null && originData == null) {
+            originData = new byte[pointIds.length][];
+        }
+        if (originData != null) {
+            originData[row] = data;
+        }
+    }
+
+    private int row(String pointId, String state, long timestamp, byte type) {
+        Objects.requireNonNull(pointId, "pointId");
+        int row = indexOf(pointId);
+        if (row < 0) {
+            ensureCapacity(size + 1);
+            row = size++;
+            pointIds[row] = pointId;
+            putIndex(pointId, row);
+        } else if (states[row] != null) {
+            stateSize--;
+        }
+        if (state != null) {
+            stateSize++;
+        }
+        states[row] = state;
+        timestamps[row] = timestamp;
+        types[row] = type;
+        values[row] = 0;
+        if (objects != null) {
+            objects[row] = null;
+        }
+        if (originData != null) {
+            originData[row] = null;
+        }
+        return row;
+    }
+
+    private void ensureCapacity(int capacity) {
+        int length = pointIds.length;
+        if (capacity <= length) {
+            return;
+        }
+        int newLength = Math.max(capacity, length + (length >> 1));
+        pointIds = Arrays.copyOf(pointIds, newLength);
+        timestamps = Arrays.copyOf(timestamps, newLength);
+        states = Arrays.copyOf(states, newLength);
+        types = Arrays.copyOf(types, newLength);
+        values = Arrays.copyOf(values, newLength);
+        if (objects != null) {
+            objects = Arrays.copyOf(objects, newLength);
+        }
+        if (originData != null) {
+            originData = Arrays.copyOf(originData, newLength);
+        }
+        if (index.length < tableSizeFor(newLength)) {
+            index = new int[tableSizeFor(newLength)];
+            for (int i = 0; i < size; i++) {
+                putIndex(pointIds[i], i);
+            }
+        }
+    }
+
+    private static int tableSizeFor(int capacity) {
+        //负载因子不超过0.5
+        int n = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 2;
+        return Math.max(n, 4);
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private void putIndex(String pointId, int row) {
+        int mask = index.length - 1;
+        int slot = hash(pointId) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = row + 1;
+    }
+
+    /**
+     * 获取点位所在的行号
+     *
+     * @param pointId 点位ID
+     * @return 行号, 不存在时返回-1
+     */
+    public int indexOf(String pointId) {
+        return indexOf(pointId, pointIds, index);
+    }
+
+    private static int indexOf(String pointId, String[] pointIds, int[] index) {
+        if (pointId == null) {
+            return -1;
+        }
+        int mask = index.length - 1;
+        int slot = hash(pointId) & mask;
+        for (; ; ) {
+            int row = index[slot] - 1;
+            if (row < 0) {
+                return -1;
+            }
+            if (pointId.equals(pointIds[row])) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getPointId(int row) {
+        return pointIds[checkRow(row)];
+    }
+
+    public long getTimestamp(int row) {
+        return timestamps[checkRow(row)];
+    }
+
+    public String getState(int row) {
+        return states[checkRow(row)];
+    }
+
+    /**
+     * 获取值类型
+     *
+     * @param row 行号
+     * @return 值类型
+     * @see ColumnarBatchPointData#TYPE_OBJECT
+     * @see ColumnarBatchPointData#TYPE_DOUBLE
+     */
+    public byte getType(int row) {
+        return types[checkRow(row)];
+    }
+
+    public double getDouble(int row) {
+        return switch (getType(row)) {
+            case TYPE_DOUBLE -> Double.longBitsToDouble(values[row]);
+            case TYPE_LONG, TYPE_INT, TYPE_BOOLEAN -> values[row];
+            default -> getValue(row) instanceof Number n ? n.doubleValue() : 0;
+        };
+    }
+
+    public long getLong(int row) {
+        return switch (getType(row)) {
+            case TYPE_DOUBLE -> (long) Double.longBitsToDouble(values[row]);
+            case TYPE_LONG, TYPE_INT, TYPE_BOOLEAN -> values[row];
+            default -> getValue(row) instanceof Number n ? n.longValue() : 0;
+        };
+    }
+
+    public int getInt(int row) {
+        return (int) getLong(row);
+    }
+
+    public boolean getBoolean(int row) {
+        return switch (getType(row)) {
+            case TYPE_DOUBLE -> Double.longBitsToDouble(values[row]) != 0;
+            case TYPE_LONG, TYPE_INT, TYPE_BOOLEAN -> values[row] != 0;
+            default -> Boolean.TRUE.equals(getValue(row));
+        };
+    }
+
+    /**
+     * 获取值,基本类型的值将被装箱.
+     *
+     * @param row 行号
+     * @return 值
+     */
+    public Object getValue(int row) {
+        return switch (getType(row)) {
+            case TYPE_DOUBLE -> Double.longBitsToDouble(values[row]);
+            case TYPE_LONG -> values[row];
+            case TYPE_INT -> (int) values[row];
+            case TYPE_BOOLEAN -> values[row] != 0;
+            default -> objects == null ? null : objects[row];
+        };
+    }
+
+    public byte[] getOriginData(int row) {
+        checkRow(row);
+        return originData == null ? null : originData[row];
+    }
+
+    /**
+     * 获取指定行的点位数据,每次调用都将创建新的对象.
+     *
+     * @param row 行号
+     * @return 点位数据
+     */
+    public PointData getPoint(int row) {
+        String pointId = getPointId(row);
+        byte[] origin = getOriginData(row);
+        return switch (types[row]) {
+            case TYPE_DOUBLE -> PointData.ofDouble(
+                pointId, origin, Double.longBitsToDouble(values[row]), states[row], timestamps[row]);
+            case TYPE_LONG -> PointData.ofLong(pointId, origin, values[row], states[row], timestamps[row]);
+            case TYPE_INT -> PointData.ofInt(pointId, origin, (int) values[row], states[row], timestamps[row]);
+            case TYPE_BOOLEAN -> PointData.ofBoolean(pointId, origin, values[row] != 0, states[row], timestamps[row]);
+            default -> PointData.of(pointId, origin, getValue(row), states[row], timestamps[row]);
+        };
+    }
+
+    /**
+     * 获取点位数据视图,每次访问元素时都将创建新的{@link PointData}.
+     *
+     * @return 点位数据
+     */
+    public List<PointData> getPoints() {
+        return new AbstractList<>() {
+            @Override
+            public PointData get(int index) {
+                return getPoint(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        return row;
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, Object> getProperties() {
+        //转为SimplePointData,减少序列化时的空间占用
+        return new ColumnView<>() {
+            @Override
+            Object valueAt(int row) {
+                return SimplePointData.of(getOriginData(row), getValue(row));
+            }
+        };
+    }
+
+    public Map<String, Object> toParsedProperties() {
+        return new ColumnView<>() {
+            @Override
+            Object valueAt(int row) {
+                return getValue(row);
+            }
+        };
+    }
+
+    @Nullable
+    @Override
+    public Map<String, Long> getPropertySourceTimes() {
+        return new ColumnView<>() {
+            @Override
+            Long valueAt(int row) {
+                return timestamps[row];
+            }
+        };
+    }
+
+    @Nullable
+    @Override
+    public Map<String, String> getPropertyStates() {
+        return new ColumnView<>() {
+            @Override
+            String valueAt(int row) {
+                return states[row];
+            }
+
+            @Override
+            boolean skip(int row) {
+                return states[row] == null;
+            }
+
+            @Override
+            public int size() {
+                return stateSize;
+            }
+        };
+    }
+
+    @Override
+    public Optional<Long> getPropertySourceTime(@Nonnull String property) {
+        int row = indexOf(property);
+        return row < 0 ? Optional.empty() : Optional.of(timestamps[row]);
+    }
+
+    @Override
+    public Optional<String> getPropertyState(@Nonnull String property) {
+        int row = indexOf(property);
+        return row < 0 ? Optional.empty() : Optional.ofNullable(states[row]);
+    }
+
+    @Override
+    public Optional<Object> getProperty(String property) {
+        int row = indexOf(property);
+        return row < 0 ? Optional.empty() : Optional.of(SimplePointData.of(getOriginData(row), getValue(row)));
+    }
+
+    /**
+     * 使用属性重建列数据,已存在的点位保留时间戳和状态,不在属性中的点位将被移除.
+     * 值为{@link SimplePointData}时同时设置原始数据,数值类型的值以基本类型存储.
+     *
+     * @param properties 属性
+     * @return this
+     */
+    @Override
+    public PropertyMessage properties(Map<String, Object> properties) {
+        String[] pointIds = this.pointIds;
+        long[] timestamps = this.timestamps;
+        String[] states = this.states;
+        int[] index = this.index;
+        int size = this.size;
+        init(properties == null ? 0 : properties.size());
+        if (properties == null) {
+            return this;
+        }
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            int row = indexOf(entry.getKey(), pointIds, index);
+            if (row >= size) {
+                row = -1;
+            }
+            addValue(entry.getKey(),
+                     entry.getValue(),
+                     row < 0 ? null : states[row],
+                     row < 0 ? timestamp : timestamps[row]);
+        }
+        return this;
+    }
+
+    private void addValue(String pointId, Object value, String state, long timestamp) {
+        byte[] origin = null;
+        if (value instanceof SimplePointData simple) {
+            origin = simple.getOriginData();
+            value = simple.getParsedData();
+        }
+        if (value instanceof Double d) {
+            addDouble(pointId, d, state, timestamp);
+        } else if (value instanceof Long l) {
+            addLong(pointId, l, state, timestamp);
+        } else if (value instanceof Integer i) {
+            addInt(pointId, i, state, timestamp);
+        } else if (value instanceof Boolean b) {
+            addBoolean(pointId, b, state, timestamp);
+        } else {
+            addObject0(pointId, value, state, timestamp);
+        }
+        if (origin != null) {
+            setOriginData(indexOf(pointId), origin);
+        }
+    }
+
+    /**
+     * 设置已存在点位的时间戳,不存在的点位将被忽略.
+     *
+     * @param times 点位时间戳
+     * @return this
+     */
+    @Override
+    public PropertyMessage propertySourceTimes(Map<String, Long> times) {
+        if (times != null) {
+            times.forEach((pointId, time) -> {
+                int row = indexOf(pointId);
+                if (row >= 0 && time != null) {
+                    timestamps[row] = time;
+                }
+            });
+        }
+        return this;
+    }
+
+    /**
+     * 设置所有点位的状态,不在参数中的点位状态将被清空,不存在的点位将被忽略.
+     *
+     * @param states 点位状态
+     * @return this
+     */
+    @Override
+    public PropertyMessage propertyStates(Map<String, String> states) {
+        int stateSize = 0;
+        for (int row = 0; row < size; row++) {
+            String state = states == null ? null : states.get(pointIds[row]);
+            this.states[row] = state;
+            if (state != null) {
+                stateSize++;
+            }
+        }
+        this.stateSize = stateSize;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return channelId + ":" + collectorId + "@" + provider + " " + getPoints();
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        SerializeUtils.writeKeyValue(getHeaders(), out);
+        PointDataCodec.writeBatch(this, out, null);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        SerializeUtils.readKeyValue(in, this::addHeader);
+        init(DEFAULT_CAPACITY);
+        PointDataCodec.readBatch(this, in, null);
+    }
+
+    @Override
+    public JSONObject toJson() {
+        JSONObject data = FastBeanCopier.copy(this, JSONObject::new, "points");
+        data.put("parseData", toParsedProperties());
+        if (size > 0) {
+            List<JSONObject> pointsJson = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                pointsJson.add(FastBeanCopier.copy(getPoint(i), new JSONObject()));
+            }
+            data.put("points", pointsJson);
+        }
+        return data;
+    }
+
+    /**
+     * 基于列数据的只读Map视图
+     */
+    private abstract class ColumnView<V> extends AbstractMap<String, V> {
+
+        abstract V valueAt(int row);
+
+        boolean skip(int row) {
+            return false;
+        }
+
+        @Override
+        public V get(Object key) {
+            int row = key instanceof String str ? indexOf(str) : -1;
+            return row < 0 || skip(row) ? null : valueAt(row);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            int row = key instanceof String str ? indexOf(str) : -1;
+            return row >= 0 && !skip(row);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Nonnull
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                @Nonnull
+                public Iterator<Entry<String, V>> iterator() {
+                    return new ColumnIterator();
+                }
+
+                @Override
+                public int size() {
+                    return ColumnView.this.size();
+                }
+            };
+        }
+
+        private class ColumnIterator implements Iterator<Entry<String, V>> {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < size && skip(from)) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Entry<String, V> next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                int row = next;
+                next = advance(row + 1);
+                return new SimpleImmutableEntry<>(pointIds[row], valueAt(row));
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.jetlinks.collector.discovery.DiscoveryPointCommand;
 import org.jetlinks.collector.metadata.MetadataResolver;
 import org.jetlinks.collector.subscribe.PointListener;
 import org.jetlinks.collector.subscribe.PointSubscription;
+import org.jetlinks.collector.write.WriteCoalescer;
 import org.jetlinks.core.Wrapper;
 import org.jetlinks.core.command.Command;
 import org.jetlinks.core.command.CommandSupport;
@@ -16,6 +17,7 @@ import org.jetlinks.core.monitor.Monitor;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 import javax.annotation.Nonnull;
 import java.util.Collection;
@@ -233,6 +235,13 @@ public interface DataCollectorProvider extends CommandSupport {
      */
     interface CollectorRuntime extends Lifecycle, CommandSupport {
 
+        /**
+         * 不支持批量写入时,默认逐个写入的并发数量
+         *
+         * @since 1.0.1
+         */
+        int DEFAULT_WRITE_CONCURRENCY = 8;
+
         /**
          * 执行采集器的命令
          *
@@ -260,13 +269,44 @@ public interface DataCollectorProvider extends CommandSupport {
 
         /**
          * 采集指定的点位数据. 用于主动获取点位数据，如定时获取等.
+         * <p>
+         * 数值类点位建议使用{@link PointData#ofDouble(String, byte[], double, String, long)}等方法创建基本类型的点位数据,
+         * 以减少高频采集时的装箱开销.
          *
          * @return 点位数据
          * @see PointRuntime#read()
+         * @see PrimitivePointData
          * @see AccessMode#read
          */
         Flux<Result<PointData>> collect(List<? extends PointRuntime> points);
 
+        /**
+         * 批量写入点位数据,如: 下发配方等. 返回结果的顺序与参数顺序一致,
+         * 结果应通过{@link Result#withPointId(String)}或结果数据标识对应的点位.
+         * <p>
+         * 支持批量写入的采集器应声明{@link CollectorConstants.CollectorFeatures#batchWrite}特性并重写此方法,
+         * 默认使用有限并发逐个调用{@link PointRuntime#write(PointData)}.
+         *
+         * @param points 点位及写入的数据
+         * @return 每个点位的写入结果
+         * @see WriteCoalescer
+         * @see AccessMode#write
+         * @since 1.0.1
+         */
+        default Flux<Result<PointData>> write(List<? extends Tuple2<? extends PointRuntime, PointData>> points) {
+            return Flux
+                .fromIterable(points)
+                .flatMapSequential(
+                    tp2 -> tp2
+                        .getT1()
+                        .write(tp2.getT2())
+                        .onErrorResume(error -> Mono.just(Result.<PointData>error(error, ErrorStackSampler.scope(this))
+                                                             .withPointId(tp2.getT1().getId())))
+                        .switchIfEmpty(Mono.fromSupplier(() -> Result.<PointData>error(InternalStatusCode.Bad_NothingToDo)
+                                                                    .withPointId(tp2.getT1().getId()))),
+                    DEFAULT_WRITE_CONCURRENCY);
+        }
+
         /**
          * 获取采集器支持的特性
          *
@@ -296,10 +336,11 @@ public interface DataCollectorProvider extends CommandSupport {
         }
 
         /**
-         * 测试,返回健康度.
+         * 测试,返回健康度. 使用点位订阅的采集器可以返回订阅的健康度.
          *
          * @return 测试结果
          * @see Result#getCode()
+         * @see PointSubscription#health()
          */
         default Mono<Result<Health>> test() {
             return Mono.just(Result.success(Health.ok()));
@@ -0,0 +1,70 @@
+package org.jetlinks.collector;
+
+import lombok.NoArgsConstructor;
+
+/**
+ * double类型的点位数据,值以基本类型存储.
+ *
+ * @author zhouhao
+ * @see PointData#ofDouble(String, byte[], double, String, long)
+ * @since 1.0.1
+ */
+@NoArgsConstructor
+public class DoublePointData extends PrimitivePointData {
+
+    private double value;
+
+    public DoublePointData(String pointId,
+                           byte[] nativeData,
+                           double value,
+                           String state,
+                           long timestamp) {
+        super(pointId, nativeData, state, timestamp);
+        this.value = value;
+    }
+
+    /**
+     * 获取double值,值以基本类型存储时不会产生装箱.
+     * <p>
+     * 不使用getter命名,避免被序列化或者属性复制时作为额外的属性.
+     *
+     * @return 值
+     */
+    public double doubleValue() {
+        if (isPrimitive()) {
+            return value;
+        }
+        Object parsed = getParsedData();
+        return parsed instanceof Number n ? n.doubleValue() : 0;
+    }
+
+    /**
+     * 以基本类型设置值
+     *
+     * @param value 值
+     */
+    public void doubleValue(double value) {
+        this.value = value;
+        markPrimitive();
+    }
+
+    @Override
+    protected boolean trySetPrimitive(Object value) {
+        //只接受相同的装箱类型,避免读取时类型发生变化
+        if (value instanceof Double v) {
+            this.value = v;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected Object boxed() {
+        return Double.valueOf(value);
+    }
+
+    @Override
+    protected String primitiveString() {
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,316 @@
+package org.jetlinks.collector;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.netty.channel.ChannelException;
+import jakarta.validation.ValidationException;
+
+import javax.naming.AuthenticationException;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.*;
+import java.nio.channels.ClosedChannelException;
+import java.sql.SQLException;
+import java.text.ParseException;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 异常状态码分类器,根据异常推断对应的错误状态码.
+ * <p>
+ * 分类结果按异常类型缓存,只有需要根据异常消息推断时才会检查消息内容,
+ * 并且相同类型和消息的推断结果也会被缓存.
+ * <p>
+ * 采集器实现可以通过{@link ErrorCodeClassifier#register(Class, StatusCode)}注册自定义异常的状态码,
+ * 自定义映射优先于内置规则,按异常类型的继承关系由近及远匹配.
+ *
+ * @author zhouhao
+ * @see CollectorUtils#inferErrorCode(Throwable)
+ * @since 1.0.1
+ */
+public final class ErrorCodeClassifier {
+
+    /**
+     * 每个异常类型最多缓存的消息推断结果数量
+     */
+    static final int MAX_CACHED_MESSAGES = 1024;
+
+    private static final Map<Class<?>, Long> CUSTOM = new ConcurrentHashMap<>();
+
+    private static volatile ClassValue<Decision> decisions = newCache();
+
+    private ErrorCodeClassifier() {
+    }
+
+    /**
+     * 注册异常类型对应的状态码,对子类同样生效.
+     *
+     * @param type 异常类型
+     * @param code 状态码
+     */
+    public static void register(Class<? extends Throwable> type, StatusCode code) {
+        register(type, code.getCode());
+    }
+
+    /**
+     * 注册异常类型对应的状态码,对子类同样生效.
+     *
+     * @param type 异常类型
+     * @param code 状态码值
+     */
+    public static synchronized void register(Class<? extends Throwable> type, long code) {
+        CUSTOM.put(type, code);
+        //重置缓存
+        decisions = newCache();
+    }
+
+    /**
+     * 注销异常类型对应的状态码
+     *
+     * @param type 异常类型
+     */
+    public static synchronized void unregister(Class<? extends Throwable> type) {
+        if (CUSTOM.remove(type) != null) {
+            decisions = newCache();
+        }
+    }
+
+    /**
+     * 推断异常对应的状态码
+     *
+     * @param error 异常
+     * @return 状态码值
+     */
+    public static long classify(Throwable error) {
+        if (error == null) {
+            return InternalStatusCode.Bad_InternalError.getCode();
+        }
+        return decisions.get(error.getClass()).classify(error.getMessage());
+    }
+
+    private static ClassValue<Decision> newCache() {
+        return new ClassValue<>() {
+            @Override
+            protected Decision computeValue(Class<?> type) {
+                return decide(type);
+            }
+        };
+    }
+
+    private static Decision decide(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            Long code = CUSTOM.get(c);
+            if (code != null) {
+                return new Decision(code, null);
+            }
+        }
+        return builtin(type);
+    }
+
+    private static boolean is(Class<?> type, Class<?> target) {
+        return target.isAssignableFrom(type);
+    }
+
+    private static Decision fixed(InternalStatusCode code) {
+        return new Decision(code.getCode(), null);
+    }
+
+    private static Decision builtin(Class<?> type) {
+        // === 网络连接相关异常 ===
+        if (is(type, ConnectException.class) || is(type, NoRouteToHostException.class)) {
+            return fixed(InternalStatusCode.Bad_ConnectionRefused);
+        }
+        if (is(type, UnknownHostException.class)) {
+            return fixed(InternalStatusCode.Bad_ServerNotConnected);
+        }
+        if (is(type, SocketTimeoutException.class)) {
+            return fixed(InternalStatusCode.Bad_Timeout);
+        }
+        if (is(type, BindException.class)) {
+            return fixed(InternalStatusCode.Bad_ResourceUnavailable);
+        }
+        if (is(type, ClosedChannelException.class)) {
+            return fixed(InternalStatusCode.Bad_ConnectionLost);
+        }
+        if (is(type, PortUnreachableException.class)) {
+            return fixed(InternalStatusCode.Bad_ConnectionError);
+        }
+        if (is(type, ProtocolException.class)) {
+            return fixed(InternalStatusCode.Bad_ProtocolError);
+        }
+
+        // === 超时相关异常 ===
+        if (is(type, TimeoutException.class) || is(type, io.netty.handler.timeout.TimeoutException.class)) {
+            return fixed(InternalStatusCode.Bad_Timeout);
+        }
+        // 通信错误
+        if (is(type, ChannelException.class)) {
+            return fixed(InternalStatusCode.Bad_CommunicationError);
+        }
+
+        // === 通信相关异常 ===
+        if (is(type, UnsupportedEncodingException.class)) {
+            return fixed(InternalStatusCode.Bad_EncodingError);
+        }
+        if (is(type, JsonParseException.class)) {
+            return fixed(InternalStatusCode.Bad_DecodingError);
+        }
+        if (is(type, JsonProcessingException.class)) {
+            return fixed(InternalStatusCode.Bad_EncodingError);
+        }
+        if (is(type, IOException.class)) {
+            return new Decision(InternalStatusCode.Bad_CommunicationError.getCode(), Heuristic.io);
+        }
+
+        // === 数据格式相关异常 ===
+        if (is(type, NumberFormatException.class)
+            || is(type, ParseException.class)
+            || is(type, DateTimeParseException.class)) {
+            return fixed(InternalStatusCode.Bad_DataFormatError);
+        }
+        if (is(type, ClassCastException.class)) {
+            return fixed(InternalStatusCode.Bad_DataTypeIdUnknown);
+        }
+
+        // === 配置和验证相关异常 ===
+        if (is(type, ValidationException.class)) {
+            return fixed(InternalStatusCode.Bad_ConfigurationError);
+        }
+        if (is(type, IllegalArgumentException.class) || is(type, IllegalStateException.class)) {
+            return fixed(InternalStatusCode.Bad_InvalidParameter);
+        }
+
+        // === 安全相关异常 ===
+        if (is(type, SecurityException.class)) {
+            return fixed(InternalStatusCode.Bad_UserAccessDenied);
+        }
+        if (is(type, AuthenticationException.class)) {
+            return fixed(InternalStatusCode.Bad_IdentityTokenInvalid);
+        }
+
+        // === 资源相关异常 ===
+        if (is(type, OutOfMemoryError.class)) {
+            return fixed(InternalStatusCode.Bad_ResourceUnavailable);
+        }
+        if (is(type, RejectedExecutionException.class)) {
+            return fixed(InternalStatusCode.Bad_TooManyOperations);
+        }
+
+        // === 数据库相关异常 ===
+        if (is(type, SQLException.class)) {
+            return fixed(InternalStatusCode.Bad_CommunicationError);
+        }
+
+        // === 中断异常 ===
+        if (is(type, InterruptedException.class)) {
+            return fixed(InternalStatusCode.Bad_Shutdown);
+        }
+
+        // === 不支持的操作 ===
+        if (is(type, UnsupportedOperationException.class)) {
+            return fixed(InternalStatusCode.Bad_ServiceUnsupported);
+        }
+
+        // === 根据异常消息进一步推断 ===
+        return new Decision(InternalStatusCode.Bad_InternalError.getCode(), Heuristic.generic);
+    }
+
+    private enum Heuristic {
+        io {
+            @Override
+            long infer(String message, long defaultCode) {
+                if (message.contains("connection") && message.contains("refused")) {
+                    return InternalStatusCode.Bad_ConnectionRefused.getCode();
+                }
+                if (message.contains("connection") && (message.contains("reset") || message.contains("abort"))) {
+                    return InternalStatusCode.Bad_ConnectionLost.getCode();
+                }
+                if (message.contains("timeout")) {
+                    return InternalStatusCode.Bad_Timeout.getCode();
+                }
+                return defaultCode;
+            }
+        },
+        generic {
+            @Override
+            long infer(String message, long defaultCode) {
+                // 连接相关
+                if (message.contains("connection")) {
+                    if (message.contains("timeout") || message.contains("timed out")) {
+                        return InternalStatusCode.Bad_Timeout.getCode();
+                    }
+                    if (message.contains("refused") || message.contains("rejected")) {
+                        return InternalStatusCode.Bad_ConnectionRefused.getCode();
+                    }
+                    if (message.contains("lost") || message.contains("broken") || message.contains("closed")) {
+                        return InternalStatusCode.Bad_ConnectionLost.getCode();
+                    }
+                    return InternalStatusCode.Bad_ConnectionError.getCode();
+                }
+
+                // 协议相关
+                if (message.contains("protocol") || message.contains("version")) {
+                    return InternalStatusCode.Bad_ProtocolError.getCode();
+                }
+
+                // 认证相关
+                if (message.contains("authentication") || message.contains("unauthorized") || message.contains("access denied")) {
+                    return InternalStatusCode.Bad_UserAccessDenied.getCode();
+                }
+
+                // 编解码相关
+                if (message.contains("encode") || message.contains("encoding")) {
+                    return InternalStatusCode.Bad_EncodingError.getCode();
+                }
+                if (message.contains("decode") || message.contains("decoding") || message.contains("parse")) {
+                    return InternalStatusCode.Bad_DecodingError.getCode();
+                }
+
+                // 配置相关
+                if (message.contains("config") || message.contains("invalid") || message.contains("illegal")) {
+                    return InternalStatusCode.Bad_ConfigurationError.getCode();
+                }
+
+                // 超时相关
+                if (message.contains("timeout") || message.contains("timed out")) {
+                    return InternalStatusCode.Bad_Timeout.getCode();
+                }
+                return defaultCode;
+            }
+        };
+
+        abstract long infer(String message, long defaultCode);
+    }
+
+    private static final class Decision {
+        private final long code;
+        private final Heuristic heuristic;
+        private final Map<String, Long> messages;
+
+        Decision(long code, Heuristic heuristic) {
+            this.code = code;
+            this.heuristic = heuristic;
+            this.messages = heuristic == null ? null : new ConcurrentHashMap<>();
+        }
+
+        long classify(String message) {
+            if (heuristic == null || message == null) {
+                return code;
+            }
+            Long cached = messages.get(message);
+            if (cached != null) {
+                return cached;
+            }
+            long inferred = heuristic.infer(message.toLowerCase(), code);
+            //消息中可能包含变化的内容,避免无限增长
+            if (messages.size() >= MAX_CACHED_MESSAGES) {
+                messages.clear();
+            }
+            messages.put(message, inferred);
+            return inferred;
+        }
+    }
+}
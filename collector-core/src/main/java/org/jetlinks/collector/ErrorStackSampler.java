@@ -0,0 +1,266 @@
+package org.jetlinks.collector;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import org.jetlinks.core.utils.ExceptionUtils;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 错误堆栈采样器,用于控制{@link Result}中错误堆栈的生成方式.
+ * <p>
+ * 设备离线时,每个点位每次采集都会产生错误结果,格式化完整的错误堆栈开销较大.
+ * 默认只在错误堆栈header被读取(如{@link Object#toString()}、序列化)时才格式化,
+ * 还可以按 作用域(通常为采集器实例,见{@link ErrorStackSampler#scope(Object)})+错误类型 限制完整堆栈的生成频率,
+ * 未被采样的错误只记录错误类型、消息以及错误指纹.
+ * <p>
+ * 延迟生成时,header中的错误堆栈为{@link CharSequence},读取时请使用{@link String#valueOf(Object)}而不是强制转换为{@link String}.
+ * <p>
+ * 可通过系统参数配置:
+ * <ul>
+ *     <li>jetlinks.collector.error-stack.mode: 模式,eager,lazy,sampled. 默认lazy,配置错误时使用lazy</li>
+ *     <li>jetlinks.collector.error-stack.permits: 每个周期内允许生成的完整堆栈数量,默认5</li>
+ *     <li>jetlinks.collector.error-stack.period: 采样周期(毫秒),默认60000</li>
+ * </ul>
+ *
+ * @author zhouhao
+ * @see Result#with(Throwable, String)
+ * @see Result#error(Throwable, String)
+ * @since 1.0.1
+ */
+public final class ErrorStackSampler {
+
+    static final String HEADER_ERROR_TYPE = "errorType";
+    static final String HEADER_ERROR_STACK = "errorStack";
+    static final String HEADER_ERROR_FINGERPRINT = "errorFingerprint";
+
+    public enum Mode {
+        /**
+         * 创建结果时立即生成完整堆栈
+         */
+        eager,
+        /**
+         * 读取或序列化时才生成完整堆栈
+         */
+        lazy,
+        /**
+         * 按作用域和错误类型采样,采样的错误在读取时生成完整堆栈,未采样的错误只记录错误消息和错误指纹
+         */
+        sampled
+    }
+
+    private static volatile Mode mode = parseMode(System.getProperty("jetlinks.collector.error-stack.mode"));
+
+    private static volatile int permits = Integer.getInteger("jetlinks.collector.error-stack.permits", 5);
+
+    private static volatile long periodMillis = Long.getLong("jetlinks.collector.error-stack.period", 60_000L);
+
+    private static final ClassValue<String> TYPES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            String name = type.getCanonicalName();
+            return name == null ? type.getName() : name;
+        }
+    };
+
+    private static final ClassValue<Map<String, Window>> WINDOWS = new ClassValue<>() {
+        @Override
+        protected Map<String, Window> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private ErrorStackSampler() {
+    }
+
+    static Mode parseMode(String mode) {
+        if (mode == null || mode.isBlank()) {
+            return Mode.lazy;
+        }
+        try {
+            return Mode.valueOf(mode.trim().toLowerCase());
+        } catch (IllegalArgumentException ignore) {
+            return Mode.lazy;
+        }
+    }
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    public static void setMode(Mode mode) {
+        ErrorStackSampler.mode = mode;
+    }
+
+    /**
+     * 设置采样频率
+     *
+     * @param permits 每个周期内允许生成的完整堆栈数量
+     * @param period  周期
+     */
+    public static void setRate(int permits, Duration period) {
+        ErrorStackSampler.permits = permits;
+        ErrorStackSampler.periodMillis = period.toMillis();
+    }
+
+    /**
+     * 获取对象实例的采样作用域,如采集器实例,使每个采集器独立采样.
+     *
+     * @param owner 对象
+     * @return 作用域
+     */
+    public static String scope(Object owner) {
+        return owner.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(owner));
+    }
+
+    /**
+     * 获取错误类型名称,结果将被缓存.
+     *
+     * @param error 错误
+     * @return 错误类型名称
+     */
+    static String typeName(Throwable error) {
+        return TYPES.get(error.getClass());
+    }
+
+    /**
+     * 将错误信息写入结果header
+     *
+     * @param result 结果
+     * @param error  错误
+     * @param scope  作用域
+     */
+    static void render(Result<?> result, Throwable error, String scope) {
+        Mode mode = ErrorStackSampler.mode;
+        if (mode == Mode.eager) {
+            result.addHeader(HEADER_ERROR_STACK, ExceptionUtils.getStackTrace(error));
+            return;
+        }
+        if (mode == Mode.lazy || tryAcquire(error, scope)) {
+            result.addHeader(HEADER_ERROR_STACK, new LazyStack(error));
+            return;
+        }
+        Window window = window(error, scope);
+        result.addHeader(HEADER_ERROR_STACK, error.toString());
+        result.addHeader(HEADER_ERROR_FINGERPRINT, window.fingerprint(error));
+    }
+
+    /**
+     * 将延迟生成的错误堆栈转换为字符串,用于序列化.
+     *
+     * @param headers headers
+     */
+    static void materialize(Map<String, Object> headers) {
+        if (headers != null && headers.get(HEADER_ERROR_STACK) instanceof LazyStack stack) {
+            headers.put(HEADER_ERROR_STACK, stack.toString());
+        }
+    }
+
+    private static Window window(Throwable error, String scope) {
+        Map<String, Window> windows = WINDOWS.get(error.getClass());
+        String key = scope == null ? "" : scope;
+        Window window = windows.get(key);
+        if (window == null) {
+            //防止作用域过多(如采集器频繁重建)导致内存泄漏
+            if (windows.size() >= 1024) {
+                windows.clear();
+            }
+            window = windows.computeIfAbsent(key, ignore -> new Window(typeName(error)));
+        }
+        return window;
+    }
+
+    private static boolean tryAcquire(Throwable error, String scope) {
+        return window(error, scope).tryAcquire(System.currentTimeMillis(), permits, periodMillis);
+    }
+
+    private static class Window {
+        private final String type;
+        private final Map<Integer, String> fingerprints = new ConcurrentHashMap<>();
+        private long start;
+        private int count;
+
+        Window(String type) {
+            this.type = type;
+        }
+
+        synchronized boolean tryAcquire(long now, int permits, long period) {
+            if (now - start >= period) {
+                start = now;
+                count = 0;
+            }
+            return count++ < permits;
+        }
+
+        /**
+         * 根据错误类型和第一个堆栈生成错误指纹,相同指纹共享同一个字符串实例.
+         */
+        String fingerprint(Throwable error) {
+            StackTraceElement[] stack = error.getStackTrace();
+            int hash = stack.length == 0 ? 0 : stack[0].hashCode();
+            String fingerprint = fingerprints.get(hash);
+            if (fingerprint == null) {
+                //防止异常堆栈过多导致内存泄漏
+                if (fingerprints.size() >= 256) {
+                    fingerprints.clear();
+                }
+                fingerprint = fingerprints.computeIfAbsent(
+                    hash, h -> type + "#" + Integer.toHexString(h));
+            }
+            return fingerprint;
+        }
+    }
+
+    /**
+     * 延迟生成的错误堆栈,首次读取时生成并缓存.
+     */
+    static final class LazyStack implements CharSequence, Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private transient volatile Throwable error;
+        private volatile String stack;
+
+        LazyStack(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        @JsonValue
+        public String toString() {
+            String stack = this.stack;
+            if (stack == null) {
+                synchronized (this) {
+                    if ((stack = this.stack) == null) {
+                        this.stack = stack = ExceptionUtils.getStackTrace(error);
+                        this.error = null;
+                    }
+                }
+            }
+            return stack;
+        }
+
+        @Override
+        public int length() {
+            return toString().length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return toString().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Serial
+        private Object writeReplace() {
+            return toString();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.jetlinks.collector;
+
+import lombok.NoArgsConstructor;
+
+/**
+ * int类型的点位数据,值以基本类型存储.
+ *
+ * @author zhouhao
+ * @see PointData#ofInt(String, byte[], int, String, long)
+ * @since 1.0.1
+ */
+@NoArgsConstructor
+public class IntPointData extends PrimitivePointData {
+
+    private int value;
+
+    public IntPointData(String pointId,
+                        byte[] nativeData,
+                        int value,
+                        String state,
+                        long timestamp) {
+        super(pointId, nativeData, state, timestamp);
+        this.value = value;
+    }
+
+    /**
+     * 获取int值,值以基本类型存储时不会产生装箱.
+     * <p>
+     * 不使用getter命名,避免被序列化或者属性复制时作为额外的属性.
+     *
+     * @return 值
+     */
+    public int intValue() {
+        if (isPrimitive()) {
+            return value;
+        }
+        Object parsed = getParsedData();
+        return parsed instanceof Number n ? n.intValue() : 0;
+    }
+
+    /**
+     * 以基本类型设置值
+     *
+     * @param value 值
+     */
+    public void intValue(int value) {
+        this.value = value;
+        markPrimitive();
+    }
+
+    @Override
+    protected boolean trySetPrimitive(Object value) {
+        //只接受相同的装箱类型,避免读取时类型发生变化
+        if (value instanceof Integer v) {
+            this.value = v;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected Object boxed() {
+        return Integer.valueOf(value);
+    }
+
+    @Override
+    protected String primitiveString() {
+        return String.valueOf(value);
+    }
+}
@@ -666,12 +666,7 @@ public enum InternalStatusCode implements StatusCode {
      * @return 对应的枚举，如果未找到返回null
      */
     public static InternalStatusCode fromCode(long code) {
-        for (InternalStatusCode statusCode : VALUES) {
-            if (statusCode.code == code) {
-                return statusCode;
-            }
-        }
-        return null;
+        return StatusCodes.lookup(code) instanceof InternalStatusCode statusCode ? statusCode : null;
     }
 
     /**
@@ -0,0 +1,70 @@
+package org.jetlinks.collector;
+
+import lombok.NoArgsConstructor;
+
+/**
+ * long类型的点位数据,值以基本类型存储.
+ *
+ * @author zhouhao
+ * @see PointData#ofLong(String, byte[], long, String, long)
+ * @since 1.0.1
+ */
+@NoArgsConstructor
+public class LongPointData extends PrimitivePointData {
+
+    private long value;
+
+    public LongPointData(String pointId,
+                         byte[] nativeData,
+                         long value,
+                         String state,
+                         long timestamp) {
+        super(pointId, nativeData, state, timestamp);
+        this.value = value;
+    }
+
+    /**
+     * 获取long值,值以基本类型存储时不会产生装箱.
+     * <p>
+     * 不使用getter命名,避免被序列化或者属性复制时作为额外的属性.
+     *
+     * @return 值
+     */
+    public long longValue() {
+        if (isPrimitive()) {
+            return value;
+        }
+        Object parsed = getParsedData();
+        return parsed instanceof Number n ? n.longValue() : 0;
+    }
+
+    /**
+     * 以基本类型设置值
+     *
+     * @param value 值
+     */
+    public void longValue(long value) {
+        this.value = value;
+        markPrimitive();
+    }
+
+    @Override
+    protected boolean trySetPrimitive(Object value) {
+        //只接受相同的装箱类型,避免读取时类型发生变化
+        if (value instanceof Long v) {
+            this.value = v;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected Object boxed() {
+        return Long.valueOf(value);
+    }
+
+    @Override
+    protected String primitiveString() {
+        return String.valueOf(value);
+    }
+}
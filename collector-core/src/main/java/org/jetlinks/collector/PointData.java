@@ -1,12 +1,17 @@
 package org.jetlinks.collector;
 
-import lombok.AllArgsConstructor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.ReferenceCountUtil;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.apache.commons.codec.binary.Hex;
+import org.jetlinks.collector.codec.PointDataCodec;
 import org.jetlinks.core.things.ThingProperty;
-import org.jetlinks.core.utils.SerializeUtils;
 
 import java.io.Externalizable;
 import java.io.IOException;
@@ -23,7 +28,6 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 public class PointData implements Externalizable {
 
@@ -37,9 +41,20 @@ public class PointData implements Externalizable {
 
     /**
      * 点位原始数据
+     *
+     * @see PointData#setOriginBuffer(ByteBuf)
      */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
     private byte[] originData;
 
+    /**
+     * 点位原始数据缓冲区,通常为响应报文的切片.在需要时才复制为{@link PointData#getOriginData()}.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient ByteBuf originBuffer;
+
     /**
      * 解析后的数据
      */
@@ -60,6 +75,20 @@ public class PointData implements Externalizable {
      */
     private Map<String, Object> others;
 
+    public PointData(String pointId,
+                     byte[] originData,
+                     Object parsedData,
+                     String state,
+                     long timestamp,
+                     Map<String, Object> others) {
+        this.pointId = pointId;
+        this.originData = originData;
+        this.parsedData = parsedData;
+        this.state = state;
+        this.timestamp = timestamp;
+        this.others = others;
+    }
+
     public static PointData of(String pointId,
                                byte[] nativeData,
                                Object parseData,
@@ -68,6 +97,58 @@ public class PointData implements Externalizable {
         return new PointData(pointId, nativeData, parseData, state, timestamp, null);
     }
 
+    /**
+     * 创建double类型的点位数据,值以基本类型存储,在调用{@link PointData#getParsedData()}前不会装箱.
+     *
+     * @see DoublePointData
+     */
+    public static DoublePointData ofDouble(String pointId,
+                                           byte[] nativeData,
+                                           double value,
+                                           String state,
+                                           long timestamp) {
+        return new DoublePointData(pointId, nativeData, value, state, timestamp);
+    }
+
+    /**
+     * 创建long类型的点位数据,值以基本类型存储,在调用{@link PointData#getParsedData()}前不会装箱.
+     *
+     * @see LongPointData
+     */
+    public static LongPointData ofLong(String pointId,
+                                       byte[] nativeData,
+                                       long value,
+                                       String state,
+                                       long timestamp) {
+        return new LongPointData(pointId, nativeData, value, state, timestamp);
+    }
+
+    /**
+     * 创建int类型的点位数据,值以基本类型存储,在调用{@link PointData#getParsedData()}前不会装箱.
+     *
+     * @see IntPointData
+     */
+    public static IntPointData ofInt(String pointId,
+                                     byte[] nativeData,
+                                     int value,
+                                     String state,
+                                     long timestamp) {
+        return new IntPointData(pointId, nativeData, value, state, timestamp);
+    }
+
+    /**
+     * 创建boolean类型的点位数据,值以基本类型存储,在调用{@link PointData#getParsedData()}前不会装箱.
+     *
+     * @see BooleanPointData
+     */
+    public static BooleanPointData ofBoolean(String pointId,
+                                             byte[] nativeData,
+                                             boolean value,
+                                             String state,
+                                             long timestamp) {
+        return new BooleanPointData(pointId, nativeData, value, state, timestamp);
+    }
+
 
     public static PointData of(ThingProperty property) {
         PointData data = new PointData();
@@ -84,18 +165,146 @@ public class PointData implements Externalizable {
         return data;
     }
 
+    /**
+     * 获取原始数据,如果原始数据由{@link PointData#setOriginBuffer(ByteBuf)}设置,将在首次调用时复制.
+     * <p>
+     * 缓冲区在{@link PointData#release()}时释放,释放前未调用过此方法时将返回<code>null</code>,
+     * 需要在释放后使用原始数据时应在释放前调用此方法.
+     *
+     * @return 原始数据
+     */
+    public byte[] getOriginData() {
+        byte[] originData = this.originData;
+        if (originData == null) {
+            ByteBuf buffer = this.originBuffer;
+            if (buffer != null) {
+                this.originData = originData = copyOrNull(buffer);
+            }
+        }
+        return originData;
+    }
+
+    /**
+     * 复制缓冲区中的数据,复制期间持有引用,防止被其他线程释放.
+     *
+     * @param buffer 缓冲区
+     * @return 数据, 缓冲区已被释放时返回null
+     */
+    private static byte[] copyOrNull(ByteBuf buffer) {
+        if (!tryRetain(buffer)) {
+            return null;
+        }
+        try {
+            return ByteBufUtil.getBytes(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * 以16进制输出缓冲区中的数据,复制期间持有引用,防止被其他线程释放.
+     *
+     * @param buffer 缓冲区
+     * @return 16进制字符串, 缓冲区已被释放时返回null
+     */
+    private static String hexDumpOrNull(ByteBuf buffer) {
+        if (!tryRetain(buffer)) {
+            return null;
+        }
+        try {
+            return ByteBufUtil.hexDump(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static boolean tryRetain(ByteBuf buffer) {
+        if (buffer.refCnt() <= 0) {
+            return false;
+        }
+        try {
+            buffer.retain();
+            return true;
+        } catch (IllegalReferenceCountException e) {
+            //检查后被其他线程释放
+            return false;
+        }
+    }
+
+    public void setOriginData(byte[] originData) {
+        release();
+        this.originData = originData;
+    }
+
+    /**
+     * 获取原始数据缓冲区,不会复制数据.返回的缓冲区归当前点位数据所有,调用方不应释放.
+     * 如需在{@link PointData#release()}之后继续使用或者在其他线程中使用,请调用{@link ByteBuf#retain()}.
+     *
+     * @return 原始数据缓冲区
+     */
+    public ByteBuf getOriginBuffer() {
+        ByteBuf buffer = this.originBuffer;
+        if (buffer != null && buffer.refCnt() > 0) {
+            return buffer;
+        }
+        return originData == null ? null : Unpooled.wrappedBuffer(originData);
+    }
+
+    /**
+     * 使用缓冲区设置原始数据,如响应报文的{@link ByteBuf#retainedSlice(int, int)},避免复制.
+     * <p>
+     * 调用后缓冲区的所有权转移给当前点位数据,在{@link PointData#release()}时释放.
+     *
+     * @param buffer 原始数据缓冲区
+     * @return this
+     * @see Result#release()
+     * @see BatchPointData#release()
+     */
+    public PointData setOriginBuffer(ByteBuf buffer) {
+        release();
+        this.originData = null;
+        this.originBuffer = buffer;
+        return this;
+    }
+
+    /**
+     * 释放原始数据缓冲区.如果原始数据已经被复制,复制后的数据仍然可用,否则原始数据将不可用.
+     */
+    public void release() {
+        ByteBuf buffer = this.originBuffer;
+        if (buffer != null) {
+            this.originBuffer = null;
+            ReferenceCountUtil.safeRelease(buffer);
+        }
+    }
+
     @Override
     public String toString() {
+        Object parsedData = getParsedData();
         String val = parsedData == null
-            ? Hex.encodeHexString(originData)
+            ? String.valueOf(originHex())
             : String.valueOf(parsedData);
         return state == null ? val : (val + ":" + state);
     }
 
+    private String originHex() {
+        byte[] originData = this.originData;
+        ByteBuf buffer = this.originBuffer;
+        if (originData == null && buffer != null) {
+            return hexDumpOrNull(buffer);
+        }
+        return originData == null ? null : Hex.encodeHexString(originData);
+    }
+
+    /**
+     * 转换为{@link SimplePointData},原始数据缓冲区将被复制,不与当前点位数据共享.
+     *
+     * @return SimplePointData
+     */
     public SimplePointData toSimple() {
         SimplePointData data = new SimplePointData();
-        data.setParsedData(parsedData);
-        data.setOriginData(originData);
+        data.setParsedData(getParsedData());
+        data.setOriginData(getOriginData());
         return data;
     }
 
@@ -111,25 +320,11 @@ public class PointData implements Externalizable {
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
-        SerializeUtils.writeNullableUTF(pointId, out);
-        SerializeUtils.writeNullableUTF(state, out);
-        SerializeUtils.writeObject(originData, out);
-
-        SerializeUtils.writeObject(parsedData, out);
-        out.writeLong(timestamp);
-
-        SerializeUtils.writeKeyValue(others, out);
+        PointDataCodec.writePoint(this, out);
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        pointId = SerializeUtils.readNullableUTF(in);
-        state = SerializeUtils.readNullableUTF(in);
-        originData = SerializeUtils.readObjectAs(in);
-
-        parsedData = SerializeUtils.readObject(in);
-        timestamp = in.readLong();
-
-        SerializeUtils.readKeyValue(in, this::withOther);
+        PointDataCodec.readPoint(this, in);
     }
 }
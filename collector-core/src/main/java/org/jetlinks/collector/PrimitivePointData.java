@@ -0,0 +1,90 @@
+package org.jetlinks.collector;
+
+/**
+ * 基本数据类型的点位数据.
+ * <p>
+ * 值以基本类型存储,仅在调用{@link PointData#getParsedData()}等需要{@link Object}的场景下才进行装箱,
+ * 用于减少高频采集时产生的临时对象.
+ *
+ * @author zhouhao
+ * @see PointData#ofDouble(String, byte[], double, String, long)
+ * @see PointData#ofLong(String, byte[], long, String, long)
+ * @see PointData#ofInt(String, byte[], int, String, long)
+ * @see PointData#ofBoolean(String, byte[], boolean, String, long)
+ * @since 1.0.1
+ */
+public abstract class PrimitivePointData extends PointData {
+
+    /**
+     * 为false时表示值已被{@link PrimitivePointData#setParsedData(Object)}设置为非基本类型的值
+     */
+    private boolean primitive;
+
+    protected PrimitivePointData() {
+    }
+
+    protected PrimitivePointData(String pointId,
+                                 byte[] nativeData,
+                                 String state,
+                                 long timestamp) {
+        setPointId(pointId);
+        setOriginData(nativeData);
+        setState(state);
+        setTimestamp(timestamp);
+        this.primitive = true;
+    }
+
+    /**
+     * @return 当前值是否以基本类型存储
+     */
+    public final boolean isPrimitive() {
+        return primitive;
+    }
+
+    protected final void markPrimitive() {
+        primitive = true;
+        super.setParsedData(null);
+    }
+
+    /**
+     * 尝试将值转换为基本类型存储,值的类型与基本类型的装箱类型不一致时返回false,以保留原始类型
+     *
+     * @param value 值
+     * @return 是否转换成功
+     */
+    protected abstract boolean trySetPrimitive(Object value);
+
+    /**
+     * @return 装箱后的值
+     */
+    protected abstract Object boxed();
+
+    /**
+     * @return 基本类型值的字符串形式
+     */
+    protected abstract String primitiveString();
+
+    @Override
+    public Object getParsedData() {
+        return primitive ? boxed() : super.getParsedData();
+    }
+
+    @Override
+    public void setParsedData(Object parsedData) {
+        if (trySetPrimitive(parsedData)) {
+            markPrimitive();
+        } else {
+            primitive = false;
+            super.setParsedData(parsedData);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (!primitive) {
+            return super.toString();
+        }
+        String state = getState();
+        return state == null ? primitiveString() : (primitiveString() + ":" + state);
+    }
+}
@@ -1,9 +1,10 @@
 package org.jetlinks.collector;
 
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
 import lombok.Getter;
 import lombok.Setter;
 import org.jetlinks.core.GenericHeaderSupport;
-import org.jetlinks.core.utils.ExceptionUtils;
 import org.jetlinks.core.utils.SerializeUtils;
 
 import java.io.Externalizable;
@@ -94,10 +95,21 @@ public class Result<T> extends GenericHeaderSupport<Result<T>> implements Extern
     }
 
     public static <T> Result<T> error(long code, Throwable error) {
+        return error(code, error, null);
+    }
+
+    /**
+     * 使用指定的错误码创建错误结果,并按作用域采样生成错误堆栈.
+     *
+     * @param code  错误码
+     * @param error 错误
+     * @param scope 错误堆栈采样的作用域,见{@link ErrorStackSampler#scope(Object)}
+     * @return 错误结果
+     */
+    public static <T> Result<T> error(long code, Throwable error, String scope) {
         Result<T> result = new Result<>();
         result.setSuccess(false);
-        result.addHeader("errorType", error.getClass().getCanonicalName());
-        result.addHeader("errorStack", ExceptionUtils.getStackTrace(error));
+        result.captureError(error, scope);
         result.setCode(code);
         return result;
     }
@@ -113,10 +125,33 @@ public class Result<T> extends GenericHeaderSupport<Result<T>> implements Extern
         return new Result<T>().with(error);
     }
 
+    /**
+     * 创建错误结果,并按作用域采样生成错误堆栈.
+     *
+     * @param error 错误
+     * @param scope 错误堆栈采样的作用域,见{@link ErrorStackSampler#scope(Object)}
+     * @return 错误结果
+     * @see ErrorStackSampler
+     */
+    public static <T> Result<T> error(Throwable error, String scope) {
+        return new Result<T>().with(error, scope);
+    }
+
     public Result<T> with(Throwable error){
+        return with(error, null);
+    }
+
+    /**
+     * 设置错误信息,相同作用域和错误类型的错误将按频率生成完整堆栈.
+     *
+     * @param error 错误
+     * @param scope 错误堆栈采样的作用域,见{@link ErrorStackSampler#scope(Object)}
+     * @return 当前Result实例
+     * @see ErrorStackSampler
+     */
+    public Result<T> with(Throwable error, String scope) {
         this.setSuccess(false);
-        this.addHeader("errorType", error.getClass().getCanonicalName());
-        this.addHeader("errorStack", ExceptionUtils.getStackTrace(error));
+        this.captureError(error, scope);
 
         // 根据异常类型推断错误码
         long errorCode = CollectorUtils.inferErrorCode(error);
@@ -124,6 +159,25 @@ public class Result<T> extends GenericHeaderSupport<Result<T>> implements Extern
         return this;
     }
 
+    private void captureError(Throwable error, String scope) {
+        addHeader(ErrorStackSampler.HEADER_ERROR_TYPE, ErrorStackSampler.typeName(error));
+        ErrorStackSampler.render(this, error, scope);
+    }
+
+    /**
+     * 释放数据持有的缓冲区,如{@link PointData#setOriginBuffer(io.netty.buffer.ByteBuf)}设置的原始数据.
+     * <p>
+     * 点位数据被消费(如已序列化、已转换为{@link BatchPointData})后且不再使用原始数据缓冲区时调用.
+     */
+    public void release() {
+        T data = this.data;
+        if (data instanceof PointData point) {
+            point.release();
+        } else if (data instanceof ReferenceCounted) {
+            ReferenceCountUtil.safeRelease(data);
+        }
+    }
+
     public <NEW> Result<NEW> copy(NEW data) {
         Result<NEW> result = new Result<>();
         result.setSuccess(this.isSuccess());
@@ -137,6 +191,7 @@ public class Result<T> extends GenericHeaderSupport<Result<T>> implements Extern
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        ErrorStackSampler.materialize(getHeaders());
         SerializeUtils.writeKeyValue(getHeaders(), out);
 
         SerializeUtils.writeObject(data, out);
@@ -1,6 +1,6 @@
 package org.jetlinks.collector;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -12,13 +12,13 @@ import java.io.*;
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor(staticName = "of")
 public class SimplePointData implements Externalizable {
     @Serial
     private static final long serialVersionUID = 1L;
     /**
      * 原始数据,与{@link  PointData#getOriginData()}不能同时为null
      */
+    @Getter(AccessLevel.NONE)
     private byte[] originData;
 
     /**
@@ -26,6 +26,17 @@ public class SimplePointData implements Externalizable {
      */
     private Object parsedData;
 
+    public static SimplePointData of(byte[] originData, Object parsedData) {
+        SimplePointData data = new SimplePointData();
+        data.originData = originData;
+        data.parsedData = parsedData;
+        return data;
+    }
+
+    public byte[] getOriginData() {
+        return originData;
+    }
+
     public String getHexString() {
         return originData == null ? null : Hex.encodeHexString(originData);
     }
@@ -42,6 +53,7 @@ public class SimplePointData implements Externalizable {
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        byte[] originData = getOriginData();
         int size = originData == null ? 0 : originData.length;
         out.writeInt(size);
         if (originData != null) {
@@ -1,30 +1,140 @@
 package org.jetlinks.collector;
 
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 状态码注册表,支持通过状态码值以常数时间查找状态码.
+ * <p>
+ * 内置{@link InternalStatusCode},采集器实现可通过{@link StatusCodes#register(StatusCode)}注册自定义状态码.
+ *
+ * @author zhouhao
+ * @since 1.0
+ */
 public class StatusCodes {
 
-    private final static Map<Long, StatusCode> ALL_CODES = new ConcurrentHashMap<>();
+    /**
+     * 开放寻址表,注册时复制后整体替换,查找时无锁.
+     */
+    private static volatile Table table = new Table(256);
 
     static {
         for (InternalStatusCode value : InternalStatusCode.values()) {
-            ALL_CODES.put(value.getCode(), value);
+            register0(value);
         }
     }
 
+    /**
+     * 注册自定义状态码,已存在相同状态码值的自定义状态码将被替换.
+     *
+     * @param code 状态码
+     * @throws IllegalArgumentException 状态码值与内置状态码冲突时
+     * @since 1.0.1
+     */
+    public static synchronized void register(StatusCode code) {
+        //在锁内检查,避免与并发注册的状态码冲突时被覆盖
+        StatusCode exists = table.get(code.getCode());
+        if (exists instanceof InternalStatusCode && exists != code) {
+            throw new IllegalArgumentException("status code 0x" + Long.toHexString(code.getCode())
+                                                   + " conflicts with " + exists.getName());
+        }
+        register0(code);
+    }
+
+    private static synchronized void register0(StatusCode code) {
+        Table table = StatusCodes.table;
+        if (table.size + 1 > table.keys.length >> 1) {
+            table = table.resize(table.keys.length << 1);
+        } else {
+            table = table.copy();
+        }
+        table.put(code.getCode(), code);
+        StatusCodes.table = table;
+    }
+
+    /**
+     * 根据状态码值查找状态码
+     *
+     * @param code 状态码值
+     * @return 状态码, 未注册时返回null
+     * @since 1.0.1
+     */
+    public static StatusCode lookup(long code) {
+        return table.get(code);
+    }
 
     public static Optional<StatusCode> findCode(long code) {
-        return Optional.of(ALL_CODES.get(code));
+        return Optional.ofNullable(table.get(code));
     }
 
     public static StatusCode of(long code) {
-        StatusCode statusCode = ALL_CODES.get(code);
+        StatusCode statusCode = table.get(code);
         if (statusCode != null) {
             return statusCode;
         }
         return new UndefinedStatusCode(code);
     }
 
+    static class Table {
+        private final long[] keys;
+        private final StatusCode[] values;
+        private final int mask;
+        private int size;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new StatusCode[capacity];
+            this.mask = capacity - 1;
+        }
+
+        static int hash(long code) {
+            //状态码的低16位通常为0,需要混合高位
+            long h = code * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        StatusCode get(long code) {
+            int idx = hash(code) & mask;
+            StatusCode value;
+            while ((value = values[idx]) != null) {
+                if (keys[idx] == code) {
+                    return value;
+                }
+                idx = (idx + 1) & mask;
+            }
+            return null;
+        }
+
+        void put(long code, StatusCode value) {
+            int idx = hash(code) & mask;
+            while (values[idx] != null) {
+                if (keys[idx] == code) {
+                    values[idx] = value;
+                    return;
+                }
+                idx = (idx + 1) & mask;
+            }
+            keys[idx] = code;
+            values[idx] = value;
+            size++;
+        }
+
+        Table copy() {
+            Table table = new Table(keys.length);
+            System.arraycopy(keys, 0, table.keys, 0, keys.length);
+            System.arraycopy(values, 0, table.values, 0, values.length);
+            table.size = size;
+            return table;
+        }
+
+        Table resize(int capacity) {
+            Table table = new Table(capacity);
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    table.put(keys[i], values[i]);
+                }
+            }
+            return table;
+        }
+    }
+
 }
@@ -0,0 +1,65 @@
+package org.jetlinks.collector.address;
+
+import jakarta.annotation.Nonnull;
+import org.jetlinks.collector.ScopedPointAddress;
+
+import java.util.Objects;
+
+/**
+ * 基于偏移量的点位地址,如: modbus的 从机+功能码 为作用域,寄存器地址为偏移量.
+ * <p>
+ * 相同作用域内的点位可通过{@link org.jetlinks.collector.plan.ReadPlanner}合并为连续的块读取.
+ *
+ * @author zhouhao
+ * @see org.jetlinks.collector.plan.ReadPlanner
+ * @since 1.0.1
+ */
+public class OffsetPointAddress extends ScopedPointAddress {
+
+    private final String scope;
+
+    private final long offset;
+
+    protected OffsetPointAddress(String scope, long offset) {
+        this.scope = scope;
+        this.offset = offset;
+    }
+
+    public static OffsetPointAddress of(String scope, long offset) {
+        return new OffsetPointAddress(scope, offset);
+    }
+
+    @Override
+    public String getScope() {
+        return scope;
+    }
+
+    /**
+     * @return 地址偏移量, 单位由具体协议决定, 如modbus寄存器
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof OffsetPointAddress address)) {
+            return false;
+        }
+        return offset == address.offset && Objects.equals(scope, address.scope);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(scope, offset);
+    }
+
+    @Override
+    @Nonnull
+    public String toString() {
+        return scope == null ? String.valueOf(offset) : scope + ":" + offset;
+    }
+}
@@ -0,0 +1,221 @@
+package org.jetlinks.collector.cache;
+
+import org.jetlinks.collector.AccessMode;
+import org.jetlinks.collector.DataCollectorProvider;
+import org.jetlinks.collector.InternalStatusCode;
+import org.jetlinks.collector.PointData;
+import org.jetlinks.collector.Result;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 点位读取合并与缓存,通常每个采集器一个实例.
+ * <p>
+ * 同一个点位并发的读取请求将共享一次设备读取,开启缓存时,在{@link ReadCacheProperties#getReadMaxAge()}内
+ * 的读取请求直接返回最近一次采集到的值.
+ * <p>
+ * 合并或缓存的点位数据将被多个调用者共享,调用者不应修改或释放点位数据.
+ *
+ * <pre>{@code
+ * class MyPointRuntime implements PointRuntime {
+ *
+ *     public Mono<Result<PointData>> read() {
+ *         return collector.readCache.read(getId(), accessModes, this::read0);
+ *     }
+ *
+ *     public Mono<Result<PointData>> write(PointData data) {
+ *         return collector.readCache.write(getId(), () -> write0(data));
+ *     }
+ * }
+ * }</pre>
+ *
+ * @author zhouhao
+ * @see ReadCacheProperties
+ * @since 1.0.1
+ */
+public class PointReadCache {
+
+    private final ReadCacheProperties properties;
+
+    private final Map<String, Mono<Result<PointData>>> inflight = new ConcurrentHashMap<>();
+
+    private final Map<String, Cached> values = new ConcurrentHashMap<>();
+
+    //点位缓存失效的次数,读取开始后缓存失效时不再缓存读取结果.
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder collapsed = new LongAdder();
+
+    public PointReadCache(ReadCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 读取点位
+     *
+     * @param point 点位
+     * @return 读取结果
+     */
+    public Mono<Result<PointData>> read(DataCollectorProvider.PointRuntime point) {
+        return read(point.getId(), null, point::read);
+    }
+
+    /**
+     * 读取点位,点位不支持读取时直接返回{@link InternalStatusCode#Bad_NotReadable}.
+     *
+     * @param pointId     点位ID
+     * @param accessModes 点位访问模式,为null时不检查
+     * @param reader      实际读取点位的逻辑
+     * @return 读取结果
+     */
+    public Mono<Result<PointData>> read(String pointId,
+                                        AccessMode[] accessModes,
+                                        Supplier<Mono<Result<PointData>>> reader) {
+        if (accessModes != null && !readable(accessModes)) {
+            return Mono.fromSupplier(() -> Result.<PointData>error(InternalStatusCode.Bad_NotReadable)
+                                                 .withPointId(pointId));
+        }
+        return Mono.defer(() -> {
+            Cached cached = getFresh(pointId);
+            if (cached != null) {
+                hits.increment();
+                return Mono.just(copy(cached.result));
+            }
+            long generation = generation(pointId);
+            if (!properties.isReadCollapse()) {
+                return reader.get().doOnNext(result -> store(pointId, generation, result));
+            }
+            Mono<Result<PointData>> exists = inflight.get(pointId);
+            if (exists != null) {
+                collapsed.increment();
+                return exists.map(PointReadCache::copy);
+            }
+            @SuppressWarnings("unchecked")
+            Mono<Result<PointData>>[] holder = new Mono[1];
+            Mono<Result<PointData>> shared = reader
+                .get()
+                .doOnNext(result -> store(pointId, generation, result))
+                .doFinally(ignore -> inflight.remove(pointId, holder[0]))
+                .cache();
+            holder[0] = shared;
+            exists = inflight.putIfAbsent(pointId, shared);
+            if (exists != null) {
+                collapsed.increment();
+                return exists.map(PointReadCache::copy);
+            }
+            return shared.map(PointReadCache::copy);
+        });
+    }
+
+    /**
+     * 写入点位,写入后缓存失效.
+     *
+     * @param pointId 点位ID
+     * @param writer  实际写入点位的逻辑
+     * @return 写入结果
+     */
+    public Mono<Result<PointData>> write(String pointId, Supplier<Mono<Result<PointData>>> writer) {
+        return Mono
+            .defer(writer)
+            .doFinally(ignore -> invalidate(pointId));
+    }
+
+    /**
+     * 更新最近一次采集到的值,如定时采集或订阅收到的数据.
+     *
+     * @param data 点位数据
+     */
+    public void update(PointData data) {
+        if (properties.getReadMaxAge() > 0 && data.getPointId() != null) {
+            values.put(data.getPointId(), new Cached(Result.success(data), System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * 使点位缓存失效
+     *
+     * @param pointId 点位ID
+     */
+    public void invalidate(String pointId) {
+        //进行中的读取结果不再缓存
+        generations.merge(pointId, 1L, Long::sum);
+        values.remove(pointId);
+        //之后的读取不再共享进行中的读取
+        inflight.remove(pointId);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        for (String pointId : values.keySet()) {
+            generations.merge(pointId, 1L, Long::sum);
+        }
+        values.clear();
+    }
+
+    /**
+     * @return 命中缓存的次数
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 被合并的读取次数
+     */
+    public long getCollapsed() {
+        return collapsed.sum();
+    }
+
+    private Cached getFresh(String pointId) {
+        long maxAge = properties.getReadMaxAge();
+        if (maxAge <= 0) {
+            return null;
+        }
+        Cached cached = values.get(pointId);
+        if (cached == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - cached.time > maxAge) {
+            values.remove(pointId, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    private long generation(String pointId) {
+        return generations.getOrDefault(pointId, 0L);
+    }
+
+    private void store(String pointId, long generation, Result<PointData> result) {
+        if (properties.getReadMaxAge() > 0 && result.isSuccess() && result.getData() != null) {
+            Cached cached = new Cached(result, System.currentTimeMillis());
+            //读取期间缓存已失效(如: 写入),丢弃读取到的旧值
+            values.compute(pointId, (id, old) -> generation(id) == generation ? cached : old);
+        }
+    }
+
+    private static Result<PointData> copy(Result<PointData> result) {
+        return result.copy(result.getData());
+    }
+
+    private static boolean readable(AccessMode[] accessModes) {
+        for (AccessMode accessMode : accessModes) {
+            if (accessMode == AccessMode.read) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Cached(Result<PointData> result, long time) {
+
+    }
+}
@@ -0,0 +1,37 @@
+package org.jetlinks.collector.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.jetlinks.collector.CollectorProperties;
+
+/**
+ * 点位读取合并与缓存配置,可在采集器配置中设置.
+ *
+ * @author zhouhao
+ * @see PointReadCache
+ * @since 1.0.1
+ */
+@Getter
+@Setter
+public class ReadCacheProperties {
+
+    /**
+     * 是否合并同一个点位并发的读取请求
+     */
+    private boolean readCollapse = true;
+
+    /**
+     * 读取结果的最大缓存时间(毫秒),小于等于0时不缓存.
+     */
+    private long readMaxAge;
+
+    /**
+     * 从采集器配置中读取配置
+     *
+     * @param properties 采集器配置
+     * @return 读取配置
+     */
+    public static ReadCacheProperties of(CollectorProperties properties) {
+        return properties.copyTo(new ReadCacheProperties());
+    }
+}
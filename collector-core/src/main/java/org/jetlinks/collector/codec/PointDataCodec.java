@@ -0,0 +1,732 @@
+package org.jetlinks.collector.codec;
+
+import jakarta.annotation.Nullable;
+import org.jetlinks.collector.*;
+import org.jetlinks.core.utils.SerializeUtils;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 点位数据紧凑编解码.
+ * <p>
+ * 批量数据格式:
+ * <pre>{@code
+ * version(1) flags(1) provider channelId collectorId timestamp(varlong) [source] [dictionary epoch(8)]
+ * stateCount(varint) states...
+ * pointCount(varint) points...
+ * }</pre>
+ * 点位格式:
+ * <pre>{@code
+ * id type(1) timestamp(zigzag varlong,相对于批量时间戳) state(varint,状态字典索引+1,0表示null) value [origin] [others]
+ * }</pre>
+ * 点位ID在没有共享字典时使用前缀压缩(与上一个点位ID相同的前缀长度+剩余部分),
+ * 在使用{@link PointIdDictionary}时使用字典索引.
+ * 数值类型使用专用编码,其他类型使用{@link SerializeUtils#writeObject(Object, ObjectOutput)}.
+ *
+ * @author zhouhao
+ * @see BatchPointData#writeExternal(ObjectOutput)
+ * @see ColumnarBatchPointData#writeExternal(ObjectOutput)
+ * @see PointData#writeExternal(ObjectOutput)
+ * @since 1.0.1
+ */
+public final class PointDataCodec {
+
+    /**
+     * 批量数据格式版本
+     */
+    public static final byte BATCH_VERSION_1 = (byte) 0x81;
+
+    /**
+     * 单个点位数据格式版本
+     */
+    public static final byte POINT_VERSION_1 = (byte) 0x91;
+
+    //批量标记
+    static final int FLAG_SOURCE = 0x01;
+    static final int FLAG_DICTIONARY = 0x02;
+
+    //值类型,低4位
+    static final int TYPE_NULL = 0;
+    static final int TYPE_TRUE = 1;
+    static final int TYPE_FALSE = 2;
+    static final int TYPE_DOUBLE = 3;
+    static final int TYPE_LONG = 4;
+    static final int TYPE_INT = 5;
+    static final int TYPE_STRING = 6;
+    static final int TYPE_OBJECT = 7;
+    static final int TYPE_MASK = 0x0F;
+
+    //点位标记,高4位
+    static final int POINT_ORIGIN = 0x10;
+    static final int POINT_OTHERS = 0x20;
+
+    private PointDataCodec() {
+    }
+
+    /**
+     * 编码批量点位数据,不包含header.
+     *
+     * @param batch      批量数据
+     * @param out        输出
+     * @param dictionary 共享字典,为null时不使用
+     */
+    public static void writeBatch(BatchPointData batch,
+                                  ObjectOutput out,
+                                  @Nullable PointIdDictionary dictionary) throws IOException {
+        List<PointData> points = batch.getPoints();
+        int size = points == null ? 0 : points.size();
+        writeBatchHeader(out,
+                         batch.getProvider(),
+                         batch.getChannelId(),
+                         batch.getCollectorId(),
+                         batch.getTimestamp(),
+                         batch.getSource(),
+                         dictionary);
+        //状态字典
+        StateTable states = new StateTable();
+        for (int i = 0; i < size; i++) {
+            states.add(points.get(i).getState());
+        }
+        states.write(out);
+
+        writeVarInt(out, size);
+        String prevId = "";
+        for (int i = 0; i < size; i++) {
+            PointData point = points.get(i);
+            String pointId = point.getPointId();
+            writePointId(out, pointId, prevId, dictionary);
+            writeRow(out, point, batch.getTimestamp(), states.indexOf(point.getState()));
+            prevId = pointId;
+        }
+    }
+
+    /**
+     * 编码列式批量点位数据,不包含header.
+     *
+     * @param batch      批量数据
+     * @param out        输出
+     * @param dictionary 共享字典,为null时不使用
+     */
+    public static void writeBatch(ColumnarBatchPointData batch,
+                                  ObjectOutput out,
+                                  @Nullable PointIdDictionary dictionary) throws IOException {
+        int size = batch.size();
+        long baseTime = batch.getTimestamp();
+        writeBatchHeader(out,
+                         batch.getProvider(),
+                         batch.getChannelId(),
+                         batch.getCollectorId(),
+                         baseTime,
+                         batch.getSource(),
+                         dictionary);
+
+        StateTable states = new StateTable();
+        for (int i = 0; i < size; i++) {
+            states.add(batch.getState(i));
+        }
+        states.write(out);
+
+        writeVarInt(out, size);
+        String prevId = "";
+        for (int row = 0; row < size; row++) {
+            String pointId = batch.getPointId(row);
+            writePointId(out, pointId, prevId, dictionary);
+            prevId = pointId;
+
+            byte[] origin = batch.getOriginData(row);
+            int flags = origin == null ? 0 : POINT_ORIGIN;
+            switch (batch.getType(row)) {
+                case ColumnarBatchPointData.TYPE_DOUBLE -> {
+                    writeRowHeader(out, TYPE_DOUBLE | flags, batch.getTimestamp(row) - baseTime,
+                                   states.indexOf(batch.getState(row)));
+                    out.writeDouble(batch.getDouble(row));
+                }
+                case ColumnarBatchPointData.TYPE_LONG -> {
+                    writeRowHeader(out, TYPE_LONG | flags, batch.getTimestamp(row) - baseTime,
+                                   states.indexOf(batch.getState(row)));
+                    writeVarLong(out, zigzag(batch.getLong(row)));
+                }
+                case ColumnarBatchPointData.TYPE_INT -> {
+                    writeRowHeader(out, TYPE_INT | flags, batch.getTimestamp(row) - baseTime,
+                                   states.indexOf(batch.getState(row)));
+                    writeVarLong(out, zigzag(batch.getInt(row)));
+                }
+                case ColumnarBatchPointData.TYPE_BOOLEAN ->
+                    writeRowHeader(out, (batch.getBoolean(row) ? TYPE_TRUE : TYPE_FALSE) | flags,
+                                   batch.getTimestamp(row) - baseTime,
+                                   states.indexOf(batch.getState(row)));
+                default -> {
+                    Object value = batch.getValue(row);
+                    writeRowHeader(out, typeOf(value) | flags, batch.getTimestamp(row) - baseTime,
+                                   states.indexOf(batch.getState(row)));
+                    writeObjectValue(out, value);
+                }
+            }
+            if (origin != null) {
+                writeBytes(out, origin);
+            }
+        }
+    }
+
+    /**
+     * 解码批量点位数据到{@link BatchPointData}
+     *
+     * @param batch      批量数据
+     * @param in         输入
+     * @param dictionary 共享字典,编码时使用了共享字典时必须传入
+     */
+    public static void readBatch(BatchPointData batch,
+                                 ObjectInput in,
+                                 @Nullable PointIdDictionary dictionary) throws IOException, ClassNotFoundException {
+        BatchHeader header = readBatchHeader(in, dictionary);
+        batch.setProvider(header.provider);
+        batch.setChannelId(header.channelId);
+        batch.setCollectorId(header.collectorId);
+        batch.setTimestamp(header.timestamp);
+        batch.setSource(header.source);
+
+        String[] states = readStates(in);
+        int size = readVarInt(in);
+        List<PointData> points = new ArrayList<>(size);
+        String prevId = "";
+        for (int i = 0; i < size; i++) {
+            String pointId = readPointId(in, prevId, header.dictionary);
+            points.add(readRow(in, pointId, header.timestamp, states));
+            prevId = pointId;
+        }
+        batch.setPoints(points);
+    }
+
+    /**
+     * 解码批量点位数据到{@link ColumnarBatchPointData}
+     *
+     * @param batch      批量数据
+     * @param in         输入
+     * @param dictionary 共享字典,编码时使用了共享字典时必须传入
+     */
+    public static void readBatch(ColumnarBatchPointData batch,
+                                 ObjectInput in,
+                                 @Nullable PointIdDictionary dictionary) throws IOException, ClassNotFoundException {
+        BatchHeader header = readBatchHeader(in, dictionary);
+        batch.setProvider(header.provider);
+        batch.setChannelId(header.channelId);
+        batch.setCollectorId(header.collectorId);
+        batch.setTimestamp(header.timestamp);
+        batch.setSource(header.source);
+
+        String[] states = readStates(in);
+        int size = readVarInt(in);
+        String prevId = "";
+        for (int i = 0; i < size; i++) {
+            String pointId = readPointId(in, prevId, header.dictionary);
+            prevId = pointId;
+            int type = in.readUnsignedByte();
+            long timestamp = header.timestamp + unzigzag(readVarLong(in));
+            String state = readState(in, states);
+            switch (type & TYPE_MASK) {
+                case TYPE_DOUBLE -> batch.addDouble(pointId, in.readDouble(), state, timestamp);
+                case TYPE_LONG -> batch.addLong(pointId, unzigzag(readVarLong(in)), state, timestamp);
+                case TYPE_INT -> batch.addInt(pointId, (int) unzigzag(readVarLong(in)), state, timestamp);
+                case TYPE_TRUE -> batch.addBoolean(pointId, true, state, timestamp);
+                case TYPE_FALSE -> batch.addBoolean(pointId, false, state, timestamp);
+                default -> batch.addObject(pointId, null, readObjectValue(in, type & TYPE_MASK), state, timestamp);
+            }
+            if ((type & POINT_ORIGIN) != 0) {
+                batch.setOriginData(batch.indexOf(pointId), readBytes(in));
+            }
+            if ((type & POINT_OTHERS) != 0) {
+                //列式存储不支持自定义数据,读取后丢弃
+                SerializeUtils.readKeyValue(in, (k, v) -> {
+                });
+            }
+        }
+    }
+
+    /**
+     * 编码单个点位数据
+     *
+     * @param point 点位数据
+     * @param out   输出
+     */
+    public static void writePoint(PointData point, ObjectOutput out) throws IOException {
+        out.writeByte(POINT_VERSION_1);
+        writeString(out, point.getPointId());
+        writeString(out, point.getState());
+        writeRow(out, point, 0, -1);
+    }
+
+    /**
+     * 解码单个点位数据
+     *
+     * @param point 点位数据
+     * @param in    输入
+     */
+    public static void readPoint(PointData point, ObjectInput in) throws IOException, ClassNotFoundException {
+        byte version = in.readByte();
+        //旧版本格式以writeNullableUTF写入的点位ID开头,第一个字节为0或1
+        if (version == 0 || version == 1) {
+            readLegacyPoint(point, in, version == 1);
+            return;
+        }
+        checkVersion(version, POINT_VERSION_1);
+        point.setPointId(readString(in));
+        point.setState(readString(in));
+        int type = in.readUnsignedByte();
+        point.setTimestamp(unzigzag(readVarLong(in)));
+        //单个点位不使用状态字典
+        readVarInt(in);
+        readValue(in, type, point);
+    }
+
+    /**
+     * 读取1.0.1之前的单个点位数据格式
+     */
+    private static void readLegacyPoint(PointData point,
+                                        ObjectInput in,
+                                        boolean nullPointId) throws IOException, ClassNotFoundException {
+        point.setPointId(nullPointId ? null : in.readUTF());
+        point.setState(SerializeUtils.readNullableUTF(in));
+        point.setOriginData(SerializeUtils.readObjectAs(in));
+        point.setParsedData(SerializeUtils.readObject(in));
+        point.setTimestamp(in.readLong());
+        SerializeUtils.readKeyValue(in, point::withOther);
+    }
+
+    private static void writeBatchHeader(ObjectOutput out,
+                                         String provider,
+                                         String channelId,
+                                         String collectorId,
+                                         long timestamp,
+                                         String source,
+                                         PointIdDictionary dictionary) throws IOException {
+        int flags = 0;
+        if (source != null) {
+            flags |= FLAG_SOURCE;
+        }
+        if (dictionary != null) {
+            flags |= FLAG_DICTIONARY;
+        }
+        out.writeByte(BATCH_VERSION_1);
+        out.writeByte(flags);
+        writeString(out, provider);
+        writeString(out, channelId);
+        writeString(out, collectorId);
+        writeVarLong(out, timestamp);
+        if (source != null) {
+            writeString(out, source);
+        }
+        if (dictionary != null) {
+            out.writeLong(dictionary.getEpoch());
+        }
+    }
+
+    private static BatchHeader readBatchHeader(ObjectInput in, PointIdDictionary dictionary) throws IOException {
+        checkVersion(in.readByte(), BATCH_VERSION_1);
+        BatchHeader header = new BatchHeader();
+        int flags = in.readUnsignedByte();
+        header.provider = readString(in);
+        header.channelId = readString(in);
+        header.collectorId = readString(in);
+        header.timestamp = readVarLong(in);
+        if ((flags & FLAG_SOURCE) != 0) {
+            header.source = readString(in);
+        }
+        if ((flags & FLAG_DICTIONARY) != 0) {
+            long epoch = in.readLong();
+            if (dictionary == null) {
+                throw new StreamCorruptedException("point id dictionary required");
+            }
+            dictionary.reset(epoch);
+            header.dictionary = dictionary;
+        }
+        return header;
+    }
+
+    private static void checkVersion(byte version, byte expect) throws IOException {
+        if (version != expect) {
+            throw new StreamCorruptedException("unsupported point data format version: " + (version & 0xFF));
+        }
+    }
+
+    /*
+     * 点位ID编码:
+     *  无字典: 与上一个ID的公共前缀长度(varint) + 剩余部分
+     *  有字典: code(varint), code为奇数表示引用索引(code>>1);
+     *         code为大于0的偶数表示定义索引((code>>1)-1)并跟随ID;
+     *         code为0表示不使用字典,跟随ID.
+     */
+    private static void writePointId(ObjectOutput out,
+                                     String pointId,
+                                     String prevId,
+                                     PointIdDictionary dictionary) throws IOException {
+        if (pointId == null) {
+            //null不使用前缀压缩和字典
+            writeVarInt(out, 0);
+            writeString(out, null);
+            return;
+        }
+        if (dictionary == null) {
+            int prefix = commonPrefix(prevId, pointId);
+            writeVarInt(out, prefix);
+            writeString(out, pointId.substring(prefix));
+            return;
+        }
+        int idx = dictionary.indexOf(pointId);
+        if (idx >= 0 && idx < dictionary.acknowledged()) {
+            writeVarInt(out, (idx << 1) | 1);
+            return;
+        }
+        idx = dictionary.define(pointId);
+        writeVarInt(out, idx < 0 ? 0 : (idx + 1) << 1);
+        writeString(out, pointId);
+    }
+
+    private static String readPointId(ObjectInput in,
+                                      String prevId,
+                                      PointIdDictionary dictionary) throws IOException {
+        if (dictionary == null) {
+            int prefix = readVarInt(in);
+            String suffix = readString(in);
+            if (prefix == 0) {
+                return suffix;
+            }
+            if (prevId == null || prefix > prevId.length()) {
+                throw new StreamCorruptedException("illegal point id prefix length: " + prefix);
+            }
+            return prevId.substring(0, prefix).concat(suffix);
+        }
+        int code = readVarInt(in);
+        if ((code & 1) == 1) {
+            String id = dictionary.get(code >>> 1);
+            if (id == null) {
+                throw new StreamCorruptedException("unknown point id index: " + (code >>> 1));
+            }
+            return id;
+        }
+        String id = readString(in);
+        if (code != 0) {
+            if (id == null) {
+                throw new StreamCorruptedException("illegal null point id definition");
+            }
+            dictionary.put((code >>> 1) - 1, id);
+        }
+        return id;
+    }
+
+    private static int commonPrefix(String a, String b) {
+        if (a == null) {
+            return 0;
+        }
+        int len = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < len && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        //避免拆分代理对
+        if (i > 0 && Character.isHighSurrogate(b.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static void writeRowHeader(ObjectOutput out, int type, long timeDelta, int stateIndex) throws IOException {
+        out.writeByte(type);
+        writeVarLong(out, zigzag(timeDelta));
+        writeVarInt(out, stateIndex + 1);
+    }
+
+    private static void writeRow(ObjectOutput out, PointData point, long baseTime, int stateIndex) throws IOException {
+        byte[] origin = point.getOriginData();
+        Map<String, Object> others = point.getOthers();
+        int flags = 0;
+        if (origin != null) {
+            flags |= POINT_ORIGIN;
+        }
+        if (others != null && !others.isEmpty()) {
+            flags |= POINT_OTHERS;
+        }
+        long timeDelta = point.getTimestamp() - baseTime;
+        if (point instanceof PrimitivePointData primitive && primitive.isPrimitive()) {
+            if (point instanceof DoublePointData d) {
+                writeRowHeader(out, TYPE_DOUBLE | flags, timeDelta, stateIndex);
+                out.writeDouble(d.doubleValue());
+            } else if (point instanceof LongPointData l) {
+                writeRowHeader(out, TYPE_LONG | flags, timeDelta, stateIndex);
+                writeVarLong(out, zigzag(l.longValue()));
+            } else if (point instanceof IntPointData i) {
+                writeRowHeader(out, TYPE_INT | flags, timeDelta, stateIndex);
+                writeVarLong(out, zigzag(i.intValue()));
+            } else if (point instanceof BooleanPointData b) {
+                writeRowHeader(out, (b.booleanValue() ? TYPE_TRUE : TYPE_FALSE) | flags, timeDelta, stateIndex);
+            } else {
+                Object value = point.getParsedData();
+                writeRowHeader(out, typeOf(value) | flags, timeDelta, stateIndex);
+                writeObjectValue(out, value);
+            }
+        } else {
+            Object value = point.getParsedData();
+            writeRowHeader(out, typeOf(value) | flags, timeDelta, stateIndex);
+            writeObjectValue(out, value);
+        }
+        if (origin != null) {
+            writeBytes(out, origin);
+        }
+        if ((flags & POINT_OTHERS) != 0) {
+            SerializeUtils.writeKeyValue(others, out);
+        }
+    }
+
+    private static PointData readRow(ObjectInput in,
+                                     String pointId,
+                                     long baseTime,
+                                     String[] states) throws IOException, ClassNotFoundException {
+        int type = in.readUnsignedByte();
+        long timestamp = baseTime + unzigzag(readVarLong(in));
+        String state = readState(in, states);
+        PointData point = switch (type & TYPE_MASK) {
+            case TYPE_DOUBLE -> new DoublePointData(pointId, null, in.readDouble(), state, timestamp);
+            case TYPE_LONG -> new LongPointData(pointId, null, unzigzag(readVarLong(in)), state, timestamp);
+            case TYPE_INT -> new IntPointData(pointId, null, (int) unzigzag(readVarLong(in)), state, timestamp);
+            case TYPE_TRUE -> new BooleanPointData(pointId, null, true, state, timestamp);
+            case TYPE_FALSE -> new BooleanPointData(pointId, null, false, state, timestamp);
+            default -> PointData.of(pointId, null, readObjectValue(in, type & TYPE_MASK), state, timestamp);
+        };
+        readExtra(in, type, point);
+        return point;
+    }
+
+    private static void readValue(ObjectInput in, int type, PointData point) throws IOException, ClassNotFoundException {
+        Object value = switch (type & TYPE_MASK) {
+            case TYPE_DOUBLE -> in.readDouble();
+            case TYPE_LONG -> unzigzag(readVarLong(in));
+            case TYPE_INT -> (int) unzigzag(readVarLong(in));
+            case TYPE_TRUE -> Boolean.TRUE;
+            case TYPE_FALSE -> Boolean.FALSE;
+            default -> readObjectValue(in, type & TYPE_MASK);
+        };
+        point.setParsedData(value);
+        readExtra(in, type, point);
+    }
+
+    private static void readExtra(ObjectInput in, int type, PointData point) throws IOException {
+        if ((type & POINT_ORIGIN) != 0) {
+            point.setOriginData(readBytes(in));
+        }
+        if ((type & POINT_OTHERS) != 0) {
+            SerializeUtils.readKeyValue(in, point::withOther);
+        }
+    }
+
+    private static int typeOf(Object value) {
+        if (value == null) {
+            return TYPE_NULL;
+        }
+        if (value instanceof Boolean b) {
+            return b ? TYPE_TRUE : TYPE_FALSE;
+        }
+        if (value instanceof Double) {
+            return TYPE_DOUBLE;
+        }
+        if (value instanceof Long) {
+            return TYPE_LONG;
+        }
+        if (value instanceof Integer) {
+            return TYPE_INT;
+        }
+        if (value instanceof String) {
+            return TYPE_STRING;
+        }
+        return TYPE_OBJECT;
+    }
+
+    private static void writeObjectValue(ObjectOutput out, Object value) throws IOException {
+        switch (typeOf(value)) {
+            case TYPE_DOUBLE -> out.writeDouble((Double) value);
+            case TYPE_LONG -> writeVarLong(out, zigzag((Long) value));
+            case TYPE_INT -> writeVarLong(out, zigzag((Integer) value));
+            case TYPE_STRING -> writeString(out, (String) value);
+            case TYPE_OBJECT -> SerializeUtils.writeObject(value, out);
+            default -> {
+                //null和boolean已在类型中表示
+            }
+        }
+    }
+
+    private static Object readObjectValue(ObjectInput in, int type) throws IOException {
+        return switch (type) {
+            case TYPE_NULL -> null;
+            case TYPE_TRUE -> Boolean.TRUE;
+            case TYPE_FALSE -> Boolean.FALSE;
+            case TYPE_DOUBLE -> in.readDouble();
+            case TYPE_LONG -> unzigzag(readVarLong(in));
+            case TYPE_INT -> (int) unzigzag(readVarLong(in));
+            case TYPE_STRING -> readString(in);
+            case TYPE_OBJECT -> SerializeUtils.readObject(in);
+            default -> throw new StreamCorruptedException("unknown point value type: " + type);
+        };
+    }
+
+    private static String[] readStates(ObjectInput in) throws IOException {
+        int size = readVarInt(in);
+        String[] states = new String[size];
+        for (int i = 0; i < size; i++) {
+            states[i] = readString(in);
+        }
+        return states;
+    }
+
+    private static String readState(ObjectInput in, String[] states) throws IOException {
+        int idx = readVarInt(in) - 1;
+        if (idx < 0) {
+            return null;
+        }
+        if (idx >= states.length) {
+            throw new StreamCorruptedException("unknown state index: " + idx);
+        }
+        return states[idx];
+    }
+
+    private static void writeBytes(ObjectOutput out, byte[] bytes) throws IOException {
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(ObjectInput in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /*
+     * 字符串编码: 长度+1(varint),0表示null. 内容为UTF-8.
+     */
+    static void writeString(ObjectOutput out, String str) throws IOException {
+        if (str == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    static String readString(ObjectInput in) throws IOException {
+        int len = readVarInt(in) - 1;
+        if (len < 0) {
+            return null;
+        }
+        if (len == 0) {
+            return "";
+        }
+        byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarInt(ObjectOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(ObjectInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("malformed varint");
+    }
+
+    static void writeVarLong(ObjectOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(ObjectInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("malformed varlong");
+    }
+
+    private static class BatchHeader {
+        String provider;
+        String channelId;
+        String collectorId;
+        long timestamp;
+        String source;
+        PointIdDictionary dictionary;
+    }
+
+    /**
+     * 批量内的状态字典,通常一个批次内只有少量不同的状态.
+     */
+    private static class StateTable {
+        private static final int LINEAR_SCAN_LIMIT = 8;
+
+        private final List<String> states = new ArrayList<>(4);
+        //状态较多时使用索引
+        private Map<String, Integer> index;
+
+        void add(String state) {
+            if (state == null || indexOf(state) >= 0) {
+                return;
+            }
+            if (index != null) {
+                index.put(state, states.size());
+            } else if (states.size() >= LINEAR_SCAN_LIMIT) {
+                index = new HashMap<>();
+                for (int i = 0; i < states.size(); i++) {
+                    index.put(states.get(i), i);
+                }
+                index.put(state, states.size());
+            }
+            states.add(state);
+        }
+
+        int indexOf(String state) {
+            if (state == null) {
+                return -1;
+            }
+            if (index != null) {
+                Integer idx = index.get(state);
+                return idx == null ? -1 : idx;
+            }
+            return states.indexOf(state);
+        }
+
+        void write(ObjectOutput out) throws IOException {
+            writeVarInt(out, states.size());
+            for (String state : states) {
+                writeString(out, state);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.jetlinks.collector.codec;
+
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 点位ID共享字典,用于在同一个采集器的多次批量数据传输中使用整数索引代替点位ID字符串.
+ * <p>
+ * 字典只追加不修改,索引一旦分配不会改变.发送方通过{@link PointIdDictionary#acknowledge(int)}
+ * 记录接收方已确认持有的字典条目数量,只有已确认的条目才会以索引的形式发送,未确认的条目将以
+ * 定义的形式(索引+字符串)发送,接收方解码时自动追加到本地字典.
+ * <p>
+ * 每个字典都有一个纪元标识{@link PointIdDictionary#getEpoch()},接收方发现纪元变化时(如发送方重启)将清空本地字典.
+ *
+ * @author zhouhao
+ * @see PointDataCodec
+ * @since 1.0.1
+ */
+public class PointIdDictionary {
+
+    static final int DEFAULT_MAX_SIZE = 65536;
+
+    //接收方允许的最大索引间隔,防止异常数据导致分配过大的数组
+    static final int MAX_INDEX_GAP = 4096;
+
+    private final int maxSize;
+
+    private final Map<String, Integer> index = new ConcurrentHashMap<>();
+
+    private volatile long epoch;
+
+    private volatile String[] ids = new String[64];
+
+    private volatile int size;
+
+    private volatile int acknowledged;
+
+    private PointIdDictionary(long epoch, int maxSize) {
+        this.epoch = epoch;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 创建发送方字典
+     *
+     * @return 字典
+     */
+    public static PointIdDictionary create() {
+        return create(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * 创建发送方字典
+     *
+     * @param maxSize 最大条目数量,超过后的点位ID将直接以字符串发送
+     * @return 字典
+     */
+    public static PointIdDictionary create(int maxSize) {
+        long epoch;
+        do {
+            epoch = ThreadLocalRandom.current().nextLong();
+        } while (epoch == 0);
+        return new PointIdDictionary(epoch, maxSize);
+    }
+
+    /**
+     * 创建接收方字典,纪元将在首次解码时确定.
+     *
+     * @return 字典
+     */
+    public static PointIdDictionary receiver() {
+        return new PointIdDictionary(0, Integer.MAX_VALUE);
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return 当前字典条目数量, 接收方可将此值告知发送方进行确认
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 接收方已确认持有的条目数量
+     */
+    public int acknowledged() {
+        return acknowledged;
+    }
+
+    /**
+     * 确认接收方已持有前{@code size}个条目
+     *
+     * @param size 条目数量
+     */
+    public synchronized void acknowledge(int size) {
+        this.acknowledged = Math.max(acknowledged, Math.min(size, this.size));
+    }
+
+    /**
+     * 获取点位ID的索引
+     *
+     * @param pointId 点位ID
+     * @return 索引, 不存在时返回-1
+     */
+    public int indexOf(String pointId) {
+        Integer idx = index.get(pointId);
+        return idx == null ? -1 : idx;
+    }
+
+    /**
+     * 获取索引对应的点位ID
+     *
+     * @param idx 索引
+     * @return 点位ID, 不存在时返回null
+     */
+    public String get(int idx) {
+        String[] ids = this.ids;
+        return idx >= 0 && idx < size && idx < ids.length ? ids[idx] : null;
+    }
+
+    /**
+     * 定义点位ID,已存在时返回已有的索引.
+     *
+     * @param pointId 点位ID
+     * @return 索引, 字典已满时返回-1
+     */
+    public synchronized int define(String pointId) {
+        int idx = indexOf(pointId);
+        if (idx >= 0) {
+            return idx;
+        }
+        if (size >= maxSize) {
+            return -1;
+        }
+        idx = size;
+        put0(idx, pointId);
+        return idx;
+    }
+
+    synchronized void put(int idx, String pointId) throws StreamCorruptedException {
+        if (idx < 0 || idx >= maxSize || idx - size > MAX_INDEX_GAP) {
+            throw new StreamCorruptedException("illegal point id index: " + idx + ", dictionary size: " + size);
+        }
+        if (idx < size) {
+            ids[idx] = pointId;
+            index.put(pointId, idx);
+            return;
+        }
+        //接收方可能丢失了部分定义,中间的条目保持为空
+        put0(idx, pointId);
+    }
+
+    private void put0(int idx, String pointId) {
+        String[] ids = this.ids;
+        if (idx >= ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(idx + 1, ids.length << 1));
+        }
+        ids[idx] = pointId;
+        this.ids = ids;
+        index.put(pointId, idx);
+        this.size = Math.max(size, idx + 1);
+    }
+
+    /**
+     * 接收方在纪元变化时重置字典
+     *
+     * @param epoch 新的纪元
+     */
+    synchronized void reset(long epoch) {
+        if (this.epoch == epoch) {
+            return;
+        }
+        this.epoch = epoch;
+        this.index.clear();
+        this.ids = new String[64];
+        this.size = 0;
+        this.acknowledged = 0;
+    }
+}
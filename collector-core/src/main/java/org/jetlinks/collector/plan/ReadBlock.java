@@ -0,0 +1,113 @@
+package org.jetlinks.collector.plan;
+
+import io.netty.buffer.ByteBuf;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * 读取块,表示一次连续地址的读取请求以及块中包含的点位.
+ *
+ * @param <P> 点位类型
+ * @author zhouhao
+ * @see ReadPlanner
+ * @since 1.0.1
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class ReadBlock<P> {
+
+    /**
+     * 作用域
+     *
+     * @see org.jetlinks.collector.ScopedPointAddress#getScope()
+     */
+    private final String scope;
+
+    /**
+     * 起始地址
+     */
+    private final long start;
+
+    /**
+     * 读取的地址数量
+     */
+    private final int length;
+
+    /**
+     * 每个地址单位的字节数
+     */
+    private final int unitBytes;
+
+    /**
+     * 块中的点位,按地址排序
+     */
+    private final List<Member<P>> members;
+
+    /**
+     * @return 块的字节长度
+     */
+    public int getByteLength() {
+        return length * unitBytes;
+    }
+
+    /**
+     * 从块的响应数据中切分出指定点位的数据,不复制数据.
+     * <p>
+     * 返回的缓冲区已增加引用计数,由调用者负责释放.
+     *
+     * @param response 块的响应数据,从块的起始地址开始
+     * @param member   点位
+     * @return 点位数据
+     * @throws IndexOutOfBoundsException 响应数据长度不足时
+     */
+    public ByteBuf slice(ByteBuf response, Member<P> member) {
+        return response.retainedSlice(
+            response.readerIndex() + member.offset * unitBytes,
+            member.byteLength);
+    }
+
+    /**
+     * 切分块中所有点位的数据,不复制数据.
+     * <p>
+     * 传递给{@code consumer}的缓冲区已增加引用计数,由{@code consumer}负责释放.
+     *
+     * @param response 块的响应数据,从块的起始地址开始
+     * @param consumer 点位数据消费者
+     * @see org.jetlinks.collector.PointData#setOriginBuffer(ByteBuf)
+     */
+    public void slice(ByteBuf response, BiConsumer<P, ByteBuf> consumer) {
+        for (Member<P> member : members) {
+            consumer.accept(member.point, slice(response, member));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return scope + "[" + start + "," + (start + length) + ")x" + members.size();
+    }
+
+    /**
+     * 块中的点位
+     *
+     * @param <P> 点位类型
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class Member<P> {
+        private final P point;
+
+        /**
+         * 相对块起始地址的偏移量
+         */
+        private final int offset;
+
+        /**
+         * 点位数据字节长度
+         */
+        private final int byteLength;
+    }
+}
@@ -0,0 +1,32 @@
+package org.jetlinks.collector.plan;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 读取计划
+ *
+ * @param <P> 点位类型
+ * @author zhouhao
+ * @see ReadPlanner#plan(java.util.Collection, java.util.function.Function)
+ * @since 1.0.1
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class ReadPlan<P> {
+
+    /**
+     * 合并后的读取块
+     */
+    private final List<ReadBlock<P>> blocks;
+
+    /**
+     * 无法合并的点位,如地址不是{@link org.jetlinks.collector.address.OffsetPointAddress}、长度不确定或者长度超过最大跨度.
+     * 需要单独读取.
+     */
+    private final List<P> unplanned;
+
+}
@@ -0,0 +1,132 @@
+package org.jetlinks.collector.plan;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.jetlinks.collector.PointMetadata;
+import org.jetlinks.collector.address.OffsetPointAddress;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 读取计划器,将相同作用域内地址相近的点位合并为连续的块读取,减少请求次数.
+ * <p>
+ * 点位地址需要为{@link OffsetPointAddress},并且{@link PointMetadata#getByteLength()}确定.
+ * 在满足最大跨度{@link ReadPlanner#maxSpan}和最大间隙{@link ReadPlanner#maxGap}的前提下,
+ * 按地址排序后依次贪心合并,块的数量不一定最少.
+ * 单个点位的长度超过最大跨度时无法放入任何块,将作为{@link ReadPlan#getUnplanned()}由调用方单独读取.
+ *
+ * <pre>{@code
+ * // modbus: 每个寄存器2字节,单次最多读取125个寄存器,间隔不超过10个寄存器时合并读取.
+ * ReadPlanner planner = new ReadPlanner(125, 10, 2);
+ *
+ * ReadPlan<PointRuntime> plan = planner.plan(points, this::getMetadata);
+ *
+ * for (ReadBlock<PointRuntime> block : plan.getBlocks()) {
+ *     readRegisters(block.getScope(), block.getStart(), block.getLength())
+ *         .doOnNext(response -> block.slice(response, (point, buf) -> ...));
+ * }
+ * }</pre>
+ *
+ * @author zhouhao
+ * @see ReadBlock
+ * @see org.jetlinks.collector.CollectorConstants.CollectorFeatures#batchSupport
+ * @since 1.0.1
+ */
+@Getter
+@Setter
+public class ReadPlanner {
+
+    /**
+     * 单个块最大的地址数量
+     */
+    private int maxSpan = 256;
+
+    /**
+     * 合并时允许的点位之间最大的地址间隙,间隙中的数据将被读取后丢弃.
+     */
+    private int maxGap = 16;
+
+    /**
+     * 每个地址单位的字节数,如modbus寄存器为2.
+     */
+    private int unitBytes = 1;
+
+    public ReadPlanner() {
+    }
+
+    public ReadPlanner(int maxSpan, int maxGap, int unitBytes) {
+        this.maxSpan = maxSpan;
+        this.maxGap = maxGap;
+        this.unitBytes = unitBytes;
+    }
+
+    /**
+     * 生成读取计划
+     *
+     * @param points   点位
+     * @param metadata 获取点位元数据,返回null或长度超过最大跨度时点位将不参与合并
+     * @param <P>      点位类型
+     * @return 读取计划
+     */
+    public <P> ReadPlan<P> plan(Collection<? extends P> points,
+                                Function<? super P, PointMetadata> metadata) {
+        List<P> unplanned = new ArrayList<>(0);
+        Map<String, List<Item<P>>> scopes = new LinkedHashMap<>();
+        for (P point : points) {
+            PointMetadata meta = metadata.apply(point);
+            if (meta == null
+                || meta.getByteLength() <= 0
+                || !(meta.getAddress() instanceof OffsetPointAddress address)) {
+                unplanned.add(point);
+                continue;
+            }
+            int units = (meta.getByteLength() + unitBytes - 1) / unitBytes;
+            if (units > maxSpan) {
+                unplanned.add(point);
+                continue;
+            }
+            scopes.computeIfAbsent(address.getScope(), ignore -> new ArrayList<>())
+                  .add(new Item<>(point, address.getOffset(), units, meta.getByteLength()));
+        }
+
+        List<ReadBlock<P>> blocks = new ArrayList<>();
+        for (Map.Entry<String, List<Item<P>>> entry : scopes.entrySet()) {
+            plan(entry.getKey(), entry.getValue(), blocks);
+        }
+        return new ReadPlan<>(blocks, unplanned);
+    }
+
+    private <P> void plan(String scope, List<Item<P>> items, List<ReadBlock<P>> blocks) {
+        items.sort(Comparator.comparingLong(item -> item.offset));
+        int from = 0;
+        long start = items.get(0).offset;
+        long end = items.get(0).end();
+        for (int i = 1, size = items.size(); i < size; i++) {
+            Item<P> item = items.get(i);
+            long newEnd = Math.max(end, item.end());
+            if (item.offset - end > maxGap || newEnd - start > maxSpan) {
+                blocks.add(block(scope, start, end, items.subList(from, i)));
+                from = i;
+                start = item.offset;
+                newEnd = item.end();
+            }
+            end = newEnd;
+        }
+        blocks.add(block(scope, start, end, items.subList(from, items.size())));
+    }
+
+    private <P> ReadBlock<P> block(String scope, long start, long end, List<Item<P>> items) {
+        List<ReadBlock.Member<P>> members = new ArrayList<>(items.size());
+        for (Item<P> item : items) {
+            members.add(new ReadBlock.Member<>(item.point, (int) (item.offset - start), item.byteLength));
+        }
+        return new ReadBlock<>(scope, start, (int) (end - start), unitBytes, Collections.unmodifiableList(members));
+    }
+
+    private record Item<P>(P point, long offset, int units, int byteLength) {
+        long end() {
+            return offset + units;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.jetlinks.collector.schedule;
+
+import org.jetlinks.collector.DataCollectorProvider;
+import org.jetlinks.collector.PointData;
+import org.jetlinks.collector.Result;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 定时采集结果处理器
+ *
+ * @author zhouhao
+ * @see PollingScheduler
+ * @since 1.0.1
+ */
+public interface PollingHandler {
+
+    /**
+     * 处理一次采集的结果,返回的Mono完成前,相同采集器和周期的点位不会再次采集.
+     *
+     * @param collectorId 采集器ID
+     * @param collector   采集器
+     * @param results     采集结果,订阅时才会执行采集
+     * @return void
+     * @see DataCollectorProvider.CollectorRuntime#collect(java.util.List)
+     */
+    Mono<Void> handle(String collectorId,
+                      DataCollectorProvider.CollectorRuntime collector,
+                      Flux<Result<PointData>> results);
+
+}
@@ -0,0 +1,416 @@
+package org.jetlinks.collector.schedule;
+
+import org.jetlinks.collector.CollectorConstants;
+import org.jetlinks.collector.DataCollectorProvider;
+import org.jetlinks.core.monitor.Monitor;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于分层时间轮的定时采集调度器.
+ * <p>
+ * 相同采集器、相同采集周期的点位组成一个采集组,时间轮只调度采集组,因此可支持大量点位.
+ * 同一刻度到期的同一个采集器的所有点位将合并为一次{@link DataCollectorProvider.CollectorRuntime#collect(List)}调用,
+ * 点位按{@link DataCollectorProvider.PointRuntime#getOrder()}排序.
+ * <p>
+ * 采集组的初始相位根据采集器ID散列,避免所有采集器在同一时刻采集.采集周期成倍数关系时相位保持对齐,以便合并采集.
+ * <p>
+ * 上一次采集未完成时,本次采集将被跳过并记录为超限({@link CollectorConstants.Metrics#overrun}),
+ * 调度线程的延迟记录为{@link CollectorConstants.Metrics#lag}.
+ *
+ * <pre>{@code
+ * PollingScheduler scheduler = new PollingScheduler(
+ *     (collectorId, collector, results) -> results.doOnNext(sink).then(),
+ *     monitor);
+ *
+ * Disposable disposable = scheduler.schedule(collectorId, collector, points, Duration.ofSeconds(1));
+ * }</pre>
+ *
+ * @author zhouhao
+ * @see PollingHandler
+ * @since 1.0.1
+ */
+public class PollingScheduler implements Disposable {
+
+    static final Duration DEFAULT_TICK = Duration.ofMillis(10);
+
+    private static final DataCollectorProvider.PointRuntime[] EMPTY = new DataCollectorProvider.PointRuntime[0];
+
+    private static final Comparator<DataCollectorProvider.PointRuntime> ORDER =
+        Comparator.comparingInt(DataCollectorProvider.PointRuntime::getOrder);
+
+    private final PollingHandler handler;
+
+    private final Monitor monitor;
+
+    private final Scheduler scheduler;
+
+    private final long tickNanos;
+
+    /**
+     * 指标上报间隔的刻度数量
+     */
+    private final long reportTicks;
+
+    private final Map<GroupKey, PollGroup> groups = new ConcurrentHashMap<>();
+
+    private final Queue<PollGroup> newGroups = new ConcurrentLinkedQueue<>();
+
+    private final TimingWheel<PollGroup> wheel = new TimingWheel<>();
+
+    private final LongAdder overruns = new LongAdder();
+
+    private volatile Thread worker;
+
+    private volatile boolean disposed;
+
+    private volatile long lagNanos;
+
+    public PollingScheduler(PollingHandler handler, Monitor monitor) {
+        this(handler, monitor, DEFAULT_TICK, Schedulers.parallel());
+    }
+
+    /**
+     * @param handler   采集结果处理器
+     * @param monitor   监控器
+     * @param tick      时间轮刻度,采集周期将按刻度取整
+     * @param scheduler 执行采集的调度器
+     */
+    public PollingScheduler(PollingHandler handler,
+                            Monitor monitor,
+                            Duration tick,
+                            Scheduler scheduler) {
+        this.handler = handler;
+        this.monitor = monitor;
+        this.scheduler = scheduler;
+        this.tickNanos = Math.max(1, tick.toNanos());
+        this.reportTicks = Math.max(1, TimeUnit.SECONDS.toNanos(1) / tickNanos);
+    }
+
+    /**
+     * 定时采集点位
+     *
+     * @param collectorId 采集器ID,用于计算采集相位
+     * @param collector   采集器
+     * @param point       点位
+     * @param interval    采集周期
+     * @return 取消采集
+     */
+    public Disposable schedule(String collectorId,
+                               DataCollectorProvider.CollectorRuntime collector,
+                               DataCollectorProvider.PointRuntime point,
+                               Duration interval) {
+        return schedule(collectorId, collector, Collections.singletonList(point), interval);
+    }
+
+    /**
+     * 定时采集多个点位
+     *
+     * @param collectorId 采集器ID,用于计算采集相位
+     * @param collector   采集器
+     * @param points      点位
+     * @param interval    采集周期
+     * @return 取消采集
+     */
+    public Disposable schedule(String collectorId,
+                               DataCollectorProvider.CollectorRuntime collector,
+                               Collection<? extends DataCollectorProvider.PointRuntime> points,
+                               Duration interval) {
+        if (disposed) {
+            throw new IllegalStateException("polling scheduler disposed");
+        }
+        long ticks = Math.max(1, interval.toNanos() / tickNanos);
+        Registration registration = new Registration(points.toArray(EMPTY));
+        GroupKey key = new GroupKey(collector, ticks);
+        for (; ; ) {
+            PollGroup group = groups.computeIfAbsent(key, k -> {
+                PollGroup g = new PollGroup(k, collectorId);
+                newGroups.add(g);
+                return g;
+            });
+            if (group.add(registration)) {
+                break;
+            }
+        }
+        start();
+        return registration;
+    }
+
+    /**
+     * @return 当前调度的采集组数量
+     */
+    public int getGroups() {
+        return groups.size();
+    }
+
+    /**
+     * @return 最近一个上报周期内调度线程的最大延迟
+     */
+    public Duration getLag() {
+        return Duration.ofNanos(lagNanos);
+    }
+
+    /**
+     * @return 累计超限(上一次采集未完成而跳过)次数
+     */
+    public long getOverruns() {
+        return overruns.sum();
+    }
+
+    private void start() {
+        if (worker != null) {
+            return;
+        }
+        synchronized (this) {
+            if (worker == null && !disposed) {
+                Thread thread = new Thread(this::run, "collector-polling-scheduler");
+                thread.setDaemon(true);
+                worker = thread;
+                thread.start();
+            }
+        }
+    }
+
+    private void run() {
+        List<PollGroup> due = new ArrayList<>();
+        Map<DataCollectorProvider.CollectorRuntime, List<PollGroup>> batches = new IdentityHashMap<>();
+        long start = System.nanoTime();
+        long maxLag = 0, lastOverruns = 0;
+        while (!disposed) {
+            long target = start + (wheel.tick() + 1) * tickNanos;
+            long wait = target - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            maxLag = Math.max(maxLag, -wait);
+            try {
+                tick(due, batches);
+            } catch (Throwable error) {
+                monitor.logger().warn("polling scheduler tick error", error);
+            } finally {
+                due.clear();
+                batches.clear();
+            }
+            if (wheel.tick() % reportTicks == 0) {
+                long overruns = this.overruns.sum();
+                report(maxLag, overruns - lastOverruns);
+                this.lagNanos = maxLag;
+                lastOverruns = overruns;
+                maxLag = 0;
+            }
+        }
+    }
+
+    private void report(long lag, long overruns) {
+        try {
+            monitor.metrics().value(CollectorConstants.Metrics.lag, lag / 1_000_000D);
+            if (overruns > 0) {
+                monitor.metrics().count(CollectorConstants.Metrics.overrun, (int) overruns);
+            }
+        } catch (Throwable ignore) {
+        }
+    }
+
+    private void tick(List<PollGroup> due,
+                      Map<DataCollectorProvider.CollectorRuntime, List<PollGroup>> batches) {
+        PollGroup group;
+        while ((group = newGroups.poll()) != null) {
+            group.deadline = firstDeadline(group, wheel.tick());
+            wheel.schedule(group, due);
+        }
+        wheel.advance(due);
+        if (due.isEmpty()) {
+            return;
+        }
+        long now = wheel.tick();
+        for (PollGroup g : due) {
+            DataCollectorProvider.PointRuntime[] points = g.snapshot();
+            if (points.length == 0 && g.tryRemove()) {
+                continue;
+            }
+            if (g.running) {
+                overruns.increment();
+            } else if (points.length > 0) {
+                g.running = true;
+                batches.computeIfAbsent(g.key.collector, ignore -> new ArrayList<>(2)).add(g);
+            }
+            g.deadline += g.key.interval;
+            if (g.deadline <= now) {
+                long skipped = (now - g.deadline) / g.key.interval + 1;
+                g.deadline += skipped * g.key.interval;
+                overruns.add(skipped);
+            }
+            wheel.schedule(g, due);
+        }
+        for (Map.Entry<DataCollectorProvider.CollectorRuntime, List<PollGroup>> entry : batches.entrySet()) {
+            dispatch(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private long firstDeadline(PollGroup group, long now) {
+        long interval = group.key.interval;
+        long phase = Math.floorMod(spread(group.collectorId), interval);
+        return now + 1 + Math.floorMod(phase - (now + 1), interval);
+    }
+
+    private static long spread(String collectorId) {
+        long h = collectorId == null ? 0 : collectorId.hashCode();
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private void dispatch(DataCollectorProvider.CollectorRuntime collector, List<PollGroup> groups) {
+        PollGroup first = groups.get(0);
+        List<DataCollectorProvider.PointRuntime> points;
+        if (groups.size() == 1) {
+            points = Collections.unmodifiableList(Arrays.asList(first.snapshot()));
+        } else {
+            points = merge(groups);
+        }
+        monitor.metrics().count(CollectorConstants.Metrics.collect, points.size());
+        //处理器同步抛出异常时也需要重置运行状态
+        Mono.defer(() -> handler.handle(first.collectorId, collector, Flux.defer(() -> collector.collect(points))))
+            .subscribeOn(scheduler)
+            .doFinally(ignore -> {
+                for (PollGroup group : groups) {
+                    group.running = false;
+                }
+            })
+            .subscribe(
+                null,
+                error -> monitor
+                    .logger()
+                    .warn("polling collector [{}] error", first.collectorId, error));
+    }
+
+    private static List<DataCollectorProvider.PointRuntime> merge(List<PollGroup> groups) {
+        Set<DataCollectorProvider.PointRuntime> merged = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<DataCollectorProvider.PointRuntime> points = new ArrayList<>();
+        for (PollGroup group : groups) {
+            for (DataCollectorProvider.PointRuntime point : group.snapshot()) {
+                if (merged.add(point)) {
+                    points.add(point);
+                }
+            }
+        }
+        points.sort(ORDER);
+        return Collections.unmodifiableList(points);
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        Thread worker = this.worker;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+        }
+        groups.clear();
+        newGroups.clear();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    record GroupKey(DataCollectorProvider.CollectorRuntime collector, long interval) {
+
+    }
+
+    /**
+     * 采集组,相同采集器和相同采集周期的点位.
+     */
+    class PollGroup extends TimingWheel.Task {
+        private final GroupKey key;
+        private final String collectorId;
+        private final List<Registration> registrations = new ArrayList<>();
+        private DataCollectorProvider.PointRuntime[] snapshot = EMPTY;
+        private boolean dirty;
+        private boolean removed;
+        private volatile boolean running;
+
+        PollGroup(GroupKey key, String collectorId) {
+            this.key = key;
+            this.collectorId = collectorId;
+        }
+
+        synchronized boolean add(Registration registration) {
+            if (removed) {
+                return false;
+            }
+            registration.group = this;
+            registrations.add(registration);
+            dirty = true;
+            return true;
+        }
+
+        synchronized void changed() {
+            dirty = true;
+        }
+
+        /**
+         * 获取排序后的点位,点位变更后重新构造.
+         */
+        synchronized DataCollectorProvider.PointRuntime[] snapshot() {
+            if (dirty) {
+                dirty = false;
+                registrations.removeIf(Registration::isDisposed);
+                List<DataCollectorProvider.PointRuntime> points = new ArrayList<>();
+                for (Registration registration : registrations) {
+                    Collections.addAll(points, registration.points);
+                }
+                points.sort(ORDER);
+                snapshot = points.toArray(EMPTY);
+            }
+            return snapshot;
+        }
+
+        synchronized boolean tryRemove() {
+            if (registrations.isEmpty()) {
+                removed = true;
+                groups.remove(key, this);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    static class Registration implements Disposable {
+        private final DataCollectorProvider.PointRuntime[] points;
+        private volatile PollGroup group;
+        private volatile boolean disposed;
+
+        Registration(DataCollectorProvider.PointRuntime[] points) {
+            this.points = points;
+        }
+
+        @Override
+        public void dispose() {
+            if (disposed) {
+                return;
+            }
+            disposed = true;
+            PollGroup group = this.group;
+            if (group != null) {
+                group.changed();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.jetlinks.collector.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层时间轮,每层64个槽位,共4层,按刻度(tick)调度任务.
+ * <p>
+ * 非线程安全,只能由调度线程访问.
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+final class TimingWheel<T extends TimingWheel.Task> {
+
+    static final int BITS = 6;
+    static final int SLOTS = 1 << BITS;
+    static final int MASK = SLOTS - 1;
+    static final int LEVELS = 4;
+    static final long RANGE = 1L << (BITS * LEVELS);
+
+    private final List<List<T>> slots;
+
+    private long tick;
+
+    TimingWheel() {
+        slots = new ArrayList<>(SLOTS * LEVELS);
+        for (int i = 0; i < SLOTS * LEVELS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * @return 当前刻度
+     */
+    long tick() {
+        return tick;
+    }
+
+    /**
+     * 添加任务,任务的{@link Task#deadline}已到期时直接添加到{@code due}中.
+     *
+     * @param task 任务
+     * @param due  到期任务
+     */
+    void schedule(T task, List<T> due) {
+        long delta = task.deadline - tick;
+        if (delta <= 0) {
+            due.add(task);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (BITS * (level + 1))) {
+                slot(level, task.deadline).add(task);
+                return;
+            }
+        }
+        //超出时间轮范围,放到最高层,降级时重新计算.
+        slot(LEVELS - 1, tick + RANGE - 1).add(task);
+    }
+
+    /**
+     * 推进一个刻度,并将到期的任务添加到{@code due}中
+     *
+     * @param due 到期任务
+     */
+    void advance(List<T> due) {
+        long t = ++tick;
+        //从高层到低层降级
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((t & ((1L << (BITS * level)) - 1)) == 0) {
+                List<T> bucket = slot(level, t);
+                if (!bucket.isEmpty()) {
+                    List<T> tasks = new ArrayList<>(bucket);
+                    bucket.clear();
+                    for (T task : tasks) {
+                        schedule(task, due);
+                    }
+                }
+            }
+        }
+        List<T> bucket = slot(0, t);
+        if (!bucket.isEmpty()) {
+            due.addAll(bucket);
+            bucket.clear();
+        }
+    }
+
+    private List<T> slot(int level, long deadline) {
+        return slots.get(level * SLOTS + (int) ((deadline >>> (BITS * level)) & MASK));
+    }
+
+    abstract static class Task {
+        /**
+         * 到期刻度
+         */
+        long deadline;
+    }
+}
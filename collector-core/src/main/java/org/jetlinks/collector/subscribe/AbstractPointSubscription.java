@@ -2,18 +2,24 @@ package org.jetlinks.collector.subscribe;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.jetlinks.collector.CollectorConstants;
 import org.jetlinks.collector.DataCollectorProvider;
 import org.jetlinks.core.monitor.Monitor;
+import org.jetlinks.core.monitor.metrics.Metrics;
 import reactor.core.Disposable;
 import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractPointSubscription<P extends DataCollectorProvider.PointRuntime,
     S extends AbstractPointSubscription.SubscribingPoint<P>>
@@ -22,6 +28,16 @@ public abstract class AbstractPointSubscription<P extends DataCollectorProvider.
     protected final PointListener listener;
     private final Disposable.Swap disposable = Disposables.swap();
 
+    /**
+     * 当前的分块大小,根据订阅耗时自适应调整.
+     */
+    private final AtomicInteger chunkSize = new AtomicInteger();
+
+    /**
+     * 等待订阅完成的点位数量
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
     public AbstractPointSubscription(PointListener listener) {
         this.listener = listener;
         this.disposable.update(this::doDispose);
@@ -41,12 +57,96 @@ public abstract class AbstractPointSubscription<P extends DataCollectorProvider.
         return 50;
     }
 
+    /**
+     * 自适应调整分块大小时的最大分块大小
+     *
+     * @return 最大分块大小
+     * @see AbstractPointSubscription#getBufferSize()
+     */
+    protected int getMaxBufferSize() {
+        return Math.max(getBufferSize(), 1000);
+    }
+
+    /**
+     * 并行订阅的分块数量
+     *
+     * @return 并行数量
+     */
+    protected int getConcurrency() {
+        return 4;
+    }
+
+    /**
+     * 单个分块订阅或取消订阅的超时时间,超时后分块内的点位视为订阅失败.
+     *
+     * @return 超时时间
+     */
+    protected Duration getTimeout() {
+        return Duration.ofSeconds(30);
+    }
+
+    /**
+     * 单个分块期望的订阅耗时,耗时低于一半时增大分块,高于此值时减小分块.
+     *
+     * @return 期望耗时
+     */
+    protected Duration getTargetLatency() {
+        return Duration.ofSeconds(1);
+    }
+
+    private int nextChunkSize() {
+        int size = chunkSize.get();
+        if (size <= 0) {
+            size = Math.max(1, getBufferSize());
+            chunkSize.compareAndSet(0, size);
+        }
+        return size;
+    }
+
+    /**
+     * 根据分块的耗时调整分块大小
+     */
+    private void adaptChunkSize(int size, long elapsedNanos) {
+        long target = getTargetLatency().toNanos();
+        if (elapsedNanos < target / 2) {
+            // 只有满块时才增大,避免少量点位的订阅影响分块大小
+            if (size >= chunkSize.get()) {
+                chunkSize.accumulateAndGet(size, (current, s) -> Math.min(getMaxBufferSize(), Math.max(current, s * 2)));
+            }
+        } else if (elapsedNanos > target) {
+            chunkSize.accumulateAndGet(size, (current, s) -> Math.max(1, Math.min(current, s / 2)));
+        }
+    }
+
+    /**
+     * 按当前的分块大小流式分块,不需要先收集全部点位.
+     */
+    private Flux<List<S>> chunk(Flux<S> points) {
+        return Flux.defer(() -> {
+            int[] count = {0};
+            return points.bufferUntil(ignore -> {
+                if (++count[0] >= nextChunkSize()) {
+                    count[0] = 0;
+                    return true;
+                }
+                return false;
+            });
+        });
+    }
+
+    private void reportMetrics() {
+        Metrics metrics = monitor().metrics();
+        metrics.value(CollectorConstants.Metrics.pending, pending.get());
+        metrics.value(CollectorConstants.Metrics.subscribed, size());
+    }
+
     private Mono<Void> unsubscribe0(List<S> subscribing) {
         monitor()
             .logger()
             .debug("unsubscribe points : {}", subscribing);
         return this
             .unsubscribe(subscribing)
+            .timeout(getTimeout())
             .onErrorResume(err -> {
                 monitor()
                     .logger()
@@ -57,6 +157,7 @@ public abstract class AbstractPointSubscription<P extends DataCollectorProvider.
                 for (S s : subscribing) {
                     remove(s.point.getId(), s);
                 }
+                reportMetrics();
             });
     }
 
@@ -67,28 +168,68 @@ public abstract class AbstractPointSubscription<P extends DataCollectorProvider.
         monitor()
             .logger()
             .debug("subscribe points : {}", subscribing);
+        long startTime = System.nanoTime();
         return this
             .subscribe(subscribing)
+            .timeout(getTimeout())
+            .doOnSuccess(ignore -> adaptChunkSize(subscribing.size(), System.nanoTime() - startTime))
             .onErrorResume(err -> {
                 monitor()
                     .logger()
                     .warn("subscribe points failed", err);
+                monitor()
+                    .metrics()
+                    .count(CollectorConstants.Metrics.subscribeFailed, subscribing.size());
                 for (S s : subscribing) {
                     listener.onSubscribeFailed(s.point.getId(), err);
                     remove(s.point.getId(), s);
                 }
+                if (err instanceof TimeoutException) {
+                    adaptChunkSize(subscribing.size(), System.nanoTime() - startTime);
+                    return unsubscribeTimeout(subscribing);
+                }
+                return Mono.empty();
+            })
+            .doFinally(ignore -> {
+                pending.addAndGet(-subscribing.size());
+                reportMetrics();
+            });
+    }
+
+    /**
+     * 订阅超时的点位在设备端可能已经订阅成功,尽力取消订阅,避免设备端残留订阅.
+     */
+    private Mono<Void> unsubscribeTimeout(List<S> subscribing) {
+        List<S> timeout = new ArrayList<>(subscribing.size());
+        for (S s : subscribing) {
+            //已经被重新订阅
+            if (!containsKey(s.point.getId())) {
+                timeout.add(s);
+            }
+        }
+        if (timeout.isEmpty()) {
+            return Mono.empty();
+        }
+        return this
+            .unsubscribe(timeout)
+            .timeout(getTimeout())
+            .onErrorResume(err -> {
+                monitor()
+                    .logger()
+                    .debug("unsubscribe timeout points failed", err);
                 return Mono.empty();
             });
     }
 
     protected final Mono<Void> subscribeAsync(Collection<String> points) {
-        return Flux
-            .fromIterable(points)
-            .filter(s -> !containsKey(s))
-            .flatMap(this::getPointRuntime)
-            .map(this::createSubscribing)
-            .buffer(getBufferSize())
-            .concatMap(this::subscribe0)
+        return this
+            .chunk(Flux
+                       .fromIterable(points)
+                       .filter(s -> !containsKey(s))
+                       .flatMapSequential(this::getPointRuntime)
+                       .map(this::createSubscribing)
+                       .doOnNext(ignore -> pending.incrementAndGet()))
+            .flatMap(this::subscribe0, getConcurrency())
             .then();
     }
 
@@ -111,11 +252,11 @@ public abstract class AbstractPointSubscription<P extends DataCollectorProvider.
 
 
     protected Mono<Void> unsubscribeAsync(Collection<String> pointId) {
-        return Flux
-            .fromIterable(pointId)
-            .mapNotNull(this::remove)
-            .buffer(getBufferSize())
-            .concatMap(this::unsubscribe0)
+        return this
+            .chunk(Flux
+                       .fromIterable(pointId)
+                       .mapNotNull(this::remove))
+            .flatMap(this::unsubscribe0, getConcurrency())
             .then();
     }
 
@@ -132,12 +273,68 @@ public abstract class AbstractPointSubscription<P extends DataCollectorProvider.
                 });
     }
 
+    /**
+     * 判断点位运行时是否发生变化,发生变化的点位将在重新加载时重新订阅.
+     *
+     * @param subscribing 当前的订阅
+     * @param runtime     最新的点位运行时
+     * @return 是否发生变化
+     */
+    protected boolean isChanged(S subscribing, P runtime) {
+        return subscribing.point != runtime;
+    }
+
+    /**
+     * 重新加载订阅,只重新订阅点位运行时发生变化的点位,点位已不存在时取消订阅,
+     * 未发生变化的订阅将原样保留.
+     *
+     * @return void
+     * @see PointListener#onSubscriptionTransferred(Collection)
+     */
+    protected Mono<Void> reloadAsync() {
+        return Flux
+            .fromIterable(new ArrayList<>(values()))
+            .flatMap(s -> this
+                         .getPointRuntime(s.point.getId())
+                         .map(runtime -> Tuples.of(s, isChanged(s, runtime)))
+                         .defaultIfEmpty(Tuples.of(s, true)),
+                     getConcurrency())
+            .collectList()
+            .flatMap(diff -> {
+                List<String> transferred = new ArrayList<>();
+                List<S> stale = new ArrayList<>();
+                for (Tuple2<S, Boolean> tp2 : diff) {
+                    S s = tp2.getT1();
+                    if (tp2.getT2()) {
+                        //可能已经被其他操作取消订阅
+                        if (remove(s.point.getId(), s)) {
+                            stale.add(s);
+                        }
+                    } else {
+                        transferred.add(s.point.getId());
+                    }
+                }
+                if (!transferred.isEmpty()) {
+                    listener.onSubscriptionTransferred(transferred);
+                }
+                if (stale.isEmpty()) {
+                    return Mono.empty();
+                }
+                List<String> changed = new ArrayList<>(stale.size());
+                for (S s : stale) {
+                    changed.add(s.point.getId());
+                }
+                return this
+                    .chunk(Flux.fromIterable(stale))
+                    .flatMap(this::unsubscribe0, getConcurrency())
+                    .then(Mono.defer(() -> subscribeAsync(changed)));
+            });
+    }
+
     @Override
     public final void reload() {
-        Set<String> id = new HashSet<>(keySet());
         @SuppressWarnings("all")
-        Disposable ignore = unsubscribeAsync(id)
-            .then(subscribeAsync(id))
+        Disposable ignore = reloadAsync()
             .subscribe(
                 null,
                 error -> {
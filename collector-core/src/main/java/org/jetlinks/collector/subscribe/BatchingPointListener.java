@@ -0,0 +1,255 @@
+package org.jetlinks.collector.subscribe;
+
+import org.jetlinks.collector.CollectorConstants;
+import org.jetlinks.collector.PointData;
+import org.jetlinks.collector.Result;
+import org.jetlinks.core.monitor.Monitor;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 批量分发点位数据的监听器,将点位数据缓冲到无锁环形缓冲区中,
+ * 数量达到{@code batchSize}或者每隔{@code window}时间通过{@link PointListener#onDataReceived(List)}批量分发.
+ * <p>
+ * 缓冲区已满时(监听器处理速度低于设备上报速度),开启合并模式则只保留每个点位最新的值,否则丢弃数据.
+ * 合并模式下,存在合并的数据时后续数据也将进入合并区,直到合并区被分发,以保证同一个点位不会先分发新值再分发旧值.
+ * 合并和丢弃的数量通过{@link CollectorConstants.Metrics#conflated}和{@link CollectorConstants.Metrics#dropped}记录.
+ *
+ * <pre>{@code
+ * PointSubscription subscription = collector.createSubscription(
+ *     new BatchingPointListener(listener, monitor, 500, Duration.ofMillis(100), 8192, true));
+ * }</pre>
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+public class BatchingPointListener implements PointListener, Disposable {
+
+    private final PointListener delegate;
+
+    private final Monitor monitor;
+
+    private final int batchSize;
+
+    private final boolean conflate;
+
+    private final MpscRingBuffer<PointData> buffer;
+
+    /**
+     * 缓冲区已满时,每个点位最新的值
+     */
+    private final Map<String, PointData> overflow = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final Scheduler scheduler;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder conflated = new LongAdder();
+
+    private final Disposable timer;
+
+    private long reportedDropped, reportedConflated;
+
+    private volatile boolean disposed;
+
+    public BatchingPointListener(PointListener delegate,
+                                 Monitor monitor,
+                                 int batchSize,
+                                 Duration window,
+                                 int capacity,
+                                 boolean conflate) {
+        this(delegate, monitor, batchSize, window, capacity, conflate, Schedulers.parallel());
+    }
+
+    /**
+     * @param delegate  实际的监听器
+     * @param monitor   监控器
+     * @param batchSize 批量分发的数量,大于缓冲区容量时只按时间间隔分发
+     * @param window    分发的时间间隔
+     * @param capacity  缓冲区容量
+     * @param conflate  缓冲区已满时是否合并点位数据,为false时丢弃数据
+     * @param scheduler 定时分发的调度器
+     */
+    public BatchingPointListener(PointListener delegate,
+                                 Monitor monitor,
+                                 int batchSize,
+                                 Duration window,
+                                 int capacity,
+                                 boolean conflate,
+                                 Scheduler scheduler) {
+        this.delegate = delegate;
+        this.monitor = monitor;
+        this.batchSize = batchSize;
+        this.conflate = conflate;
+        this.buffer = new MpscRingBuffer<>(capacity);
+        this.scheduler = scheduler;
+        long nanos = window.toNanos();
+        this.timer = scheduler.schedulePeriodically(this::flush, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onDataReceived(PointData data) {
+        if (disposed) {
+            delegate.onDataReceived(data);
+            return;
+        }
+        if (conflate) {
+            //存在合并的数据时,后续数据也进入合并区,避免缓冲区中的新值先于合并区中的旧值分发
+            if ((!overflow.isEmpty() || !buffer.offer(data))
+                && overflow.put(data.getPointId(), data) != null) {
+                conflated.increment();
+            }
+        } else if (!buffer.offer(data)) {
+            dropped.increment();
+        }
+        if (buffer.size() >= batchSize || (conflate && overflow.size() >= batchSize)) {
+            drain();
+        }
+    }
+
+    //在调度器中分发,避免在生产者线程中执行监听器逻辑
+    private void drain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(() -> {
+                    draining.set(false);
+                    flush();
+                });
+            } catch (Throwable error) {
+                draining.set(false);
+                monitor.logger().warn("schedule point data drain error", error);
+            }
+        }
+    }
+
+    @Override
+    public void onDataReceived(List<PointData> data) {
+        for (PointData datum : data) {
+            onDataReceived(datum);
+        }
+    }
+
+    @Override
+    public void onDataError(String pointId, Result<?> result) {
+        delegate.onDataError(pointId, result);
+    }
+
+    @Override
+    public void onSubscribeFailed(String pointId, Throwable error) {
+        delegate.onSubscribeFailed(pointId, error);
+    }
+
+    @Override
+    public void onSubscriptionTransferred(Collection<String> pointIds) {
+        delegate.onSubscriptionTransferred(pointIds);
+    }
+
+    /**
+     * 立即分发缓冲区中的数据
+     */
+    public void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            PointData data;
+            List<PointData> batch = null;
+            //最多处理一个缓冲区容量的数据,避免生产者持续写入时无法退出
+            int remaining = buffer.capacity();
+            while (remaining-- > 0 && (data = buffer.poll()) != null) {
+                if (batch == null) {
+                    batch = new ArrayList<>(Math.min(batchSize, buffer.size() + 1));
+                }
+                batch.add(data);
+                if (batch.size() >= batchSize) {
+                    deliver(batch);
+                    batch = null;
+                }
+            }
+            //缓冲区中剩余的数据早于合并区的数据,缓冲区清空后才分发合并区
+            if (!overflow.isEmpty() && buffer.size() == 0) {
+                for (String pointId : new ArrayList<>(overflow.keySet())) {
+                    PointData latest = overflow.remove(pointId);
+                    if (latest == null) {
+                        continue;
+                    }
+                    if (batch == null) {
+                        batch = new ArrayList<>();
+                    }
+                    batch.add(latest);
+                    if (batch.size() >= batchSize) {
+                        deliver(batch);
+                        batch = null;
+                    }
+                }
+            }
+            if (batch != null) {
+                deliver(batch);
+            }
+            report();
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    private void deliver(List<PointData> batch) {
+        try {
+            delegate.onDataReceived(batch);
+        } catch (Throwable error) {
+            monitor.logger().warn("deliver point data error", error);
+        }
+    }
+
+    private void report() {
+        long dropped = this.dropped.sum(), conflated = this.conflated.sum();
+        if (dropped != reportedDropped) {
+            monitor.metrics().count(CollectorConstants.Metrics.dropped, (int) (dropped - reportedDropped));
+            reportedDropped = dropped;
+        }
+        if (conflated != reportedConflated) {
+            monitor.metrics().count(CollectorConstants.Metrics.conflated, (int) (conflated - reportedConflated));
+            reportedConflated = conflated;
+        }
+    }
+
+    /**
+     * @return 缓冲区已满而丢弃的数据数量
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return 缓冲区已满而被合并的数据数量
+     */
+    public long getConflated() {
+        return conflated.sum();
+    }
+
+    @Override
+    public void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        timer.dispose();
+        flush();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+}
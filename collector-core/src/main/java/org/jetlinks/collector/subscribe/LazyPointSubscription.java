@@ -3,7 +3,9 @@ package org.jetlinks.collector.subscribe;
 import reactor.core.Disposable;
 import reactor.core.Disposables;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -13,6 +15,11 @@ public class LazyPointSubscription implements PointSubscription {
     private final Disposable.Swap holder = Disposables.swap();
 
     public void reload(PointSubscription target) {
+        //相同的订阅只重新加载发生变化的点位
+        if (holder.get() == target) {
+            target.reload();
+            return;
+        }
         if (holder.update(target)) {
             target.subscribe(points);
         }
@@ -39,10 +46,15 @@ public class LazyPointSubscription implements PointSubscription {
 
     @Override
     public void unsubscribe(Collection<String> pointId) {
-        this.points.removeAll(pointId);
+        List<String> removed = new ArrayList<>(pointId.size());
+        for (String point : pointId) {
+            if (this.points.remove(point)) {
+                removed.add(point);
+            }
+        }
         Disposable sub = holder.get();
-        if (sub instanceof PointSubscription _sub) {
-            _sub.unsubscribe(points);
+        if (!removed.isEmpty() && sub instanceof PointSubscription _sub) {
+            _sub.unsubscribe(removed);
         }
     }
 
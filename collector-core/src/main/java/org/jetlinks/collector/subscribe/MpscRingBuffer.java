@@ -0,0 +1,75 @@
+package org.jetlinks.collector.subscribe;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁多生产者单消费者环形缓冲区.
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+final class MpscRingBuffer<T> {
+
+    private static final AtomicLongFieldUpdater<MpscRingBuffer> HEAD =
+        AtomicLongFieldUpdater.newUpdater(MpscRingBuffer.class, "head");
+
+    private final AtomicReferenceArray<T> buffer;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long head;
+
+    MpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 添加元素,可由多个线程调用.
+     *
+     * @param element 元素
+     * @return 缓冲区已满时返回false
+     */
+    boolean offer(T element) {
+        for (; ; ) {
+            long t = tail.get();
+            if (t - head > mask) {
+                return false;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                buffer.lazySet((int) (t & mask), element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 获取元素,只能由一个线程调用.
+     *
+     * @return 元素, 没有元素或者元素还未写入完成时返回null
+     */
+    T poll() {
+        long h = head;
+        int idx = (int) (h & mask);
+        T element = buffer.get(idx);
+        if (element == null) {
+            return null;
+        }
+        buffer.lazySet(idx, null);
+        HEAD.lazySet(this, h + 1);
+        return element;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
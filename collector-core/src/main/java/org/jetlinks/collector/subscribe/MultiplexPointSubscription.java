@@ -0,0 +1,323 @@
+package org.jetlinks.collector.subscribe;
+
+import org.jetlinks.collector.Health;
+import org.jetlinks.collector.PointData;
+import org.jetlinks.collector.Result;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 多路复用点位订阅,多个监听器订阅相同的点位时只向设备订阅一次.
+ * <p>
+ * 每个点位记录订阅的监听器,点位数据将原样分发给所有监听器,不进行复制.
+ * 点位数据的原始数据缓冲区({@link org.jetlinks.collector.PointData#getOriginBuffer()})由所有监听器共享,
+ * 监听器不应释放点位数据,需要异步使用原始数据时应调用{@link org.jetlinks.collector.PointData#getOriginData()}复制,
+ * 或者自行{@link io.netty.buffer.ByteBuf#retain()}.
+ * 只有当最后一个监听器取消订阅时才会向设备取消订阅.
+ * <p>
+ * 订阅失败时只通知监听器,不移除引用,由监听器取消订阅时释放.设备端订阅的重试由{@code factory}创建的订阅负责,
+ * 如{@link ResubscribingPointSubscription}.
+ *
+ * <pre>{@code
+ * MultiplexPointSubscription multiplex = new MultiplexPointSubscription(collector::createSubscription);
+ *
+ * PointSubscription platform = multiplex.createSubscription(platformListener);
+ * PointSubscription sink = multiplex.createSubscription(sinkListener);
+ * }</pre>
+ *
+ * @author zhouhao
+ * @see org.jetlinks.collector.DataCollectorProvider.CollectorRuntime#createSubscription(PointListener)
+ * @since 1.0.1
+ */
+public class MultiplexPointSubscription implements Disposable {
+
+    private static final PointListener[] EMPTY = new PointListener[0];
+
+    private final Map<String, PointListener[]> listeners = new ConcurrentHashMap<>();
+
+    private final PointSubscription target;
+
+    /**
+     * 引用计数变化与向设备订阅/取消订阅需要串行执行,
+     * 防止最后一个监听器取消订阅与新的监听器订阅交错,导致设备端被取消订阅.
+     * {@link PointSubscription#subscribe(Collection)}等操作为异步执行,持有锁的时间很短.
+     */
+    private final Object lock = new Object();
+
+    public MultiplexPointSubscription(Function<PointListener, PointSubscription> factory) {
+        this.target = factory.apply(new Dispatcher());
+    }
+
+    /**
+     * 创建订阅,返回的订阅取消时只取消当前监听器订阅的点位.
+     *
+     * @param listener 监听器
+     * @return 订阅
+     */
+    public PointSubscription createSubscription(PointListener listener) {
+        return new Handle(listener);
+    }
+
+    /**
+     * @param pointId 点位ID
+     * @return 订阅此点位的监听器数量
+     */
+    public int getReferences(String pointId) {
+        PointListener[] arr = listeners.get(pointId);
+        return arr == null ? 0 : arr.length;
+    }
+
+    private List<String> retain(PointListener listener, Collection<String> pointIds) {
+        List<String> first = new ArrayList<>();
+        for (String pointId : pointIds) {
+            boolean[] isFirst = {false};
+            listeners.compute(pointId, (id, arr) -> {
+                if (arr == null) {
+                    isFirst[0] = true;
+                    return new PointListener[]{listener};
+                }
+                for (PointListener exists : arr) {
+                    if (exists == listener) {
+                        return arr;
+                    }
+                }
+                PointListener[] newArr = Arrays.copyOf(arr, arr.length + 1);
+                newArr[arr.length] = listener;
+                return newArr;
+            });
+            if (isFirst[0]) {
+                first.add(pointId);
+            }
+        }
+        return first;
+    }
+
+    private List<String> release(PointListener listener, Collection<String> pointIds) {
+        List<String> last = new ArrayList<>();
+        for (String pointId : pointIds) {
+            boolean[] isLast = {false};
+            listeners.computeIfPresent(pointId, (id, arr) -> {
+                PointListener[] newArr = remove(arr, listener);
+                if (newArr == arr) {
+                    return arr;
+                }
+                if (newArr.length == 0) {
+                    isLast[0] = true;
+                    return null;
+                }
+                return newArr;
+            });
+            if (isLast[0]) {
+                last.add(pointId);
+            }
+        }
+        return last;
+    }
+
+    private static PointListener[] remove(PointListener[] arr, PointListener listener) {
+        for (int i = 0; i < arr.length; i++) {
+            if (arr[i] == listener) {
+                if (arr.length == 1) {
+                    return EMPTY;
+                }
+                PointListener[] newArr = new PointListener[arr.length - 1];
+                System.arraycopy(arr, 0, newArr, 0, i);
+                System.arraycopy(arr, i + 1, newArr, i, arr.length - i - 1);
+                return newArr;
+            }
+        }
+        return arr;
+    }
+
+    private boolean contains(String pointId, PointListener listener) {
+        PointListener[] arr = listeners.get(pointId);
+        if (arr != null) {
+            for (PointListener exists : arr) {
+                if (exists == listener) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 重新加载所有点位的订阅
+     *
+     * @see PointSubscription#reload()
+     */
+    public void reload() {
+        target.reload();
+    }
+
+    @Override
+    public void dispose() {
+        listeners.clear();
+        target.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return target.isDisposed();
+    }
+
+    /**
+     * 将设备订阅的事件分发给所有监听器
+     */
+    private class Dispatcher implements PointListener {
+
+        @Override
+        public void onDataReceived(PointData data) {
+            PointListener[] arr = listeners.get(data.getPointId());
+            if (arr != null) {
+                for (PointListener listener : arr) {
+                    listener.onDataReceived(data);
+                }
+            }
+        }
+
+        @Override
+        public void onDataReceived(List<PointData> data) {
+            //所有点位都只有同一个监听器时,直接分发原始列表
+            PointListener single = null;
+            boolean passThrough = true;
+            for (PointData datum : data) {
+                PointListener[] arr = listeners.get(datum.getPointId());
+                if (arr == null || arr.length != 1 || (single != null && single != arr[0])) {
+                    passThrough = false;
+                    break;
+                }
+                single = arr[0];
+            }
+            if (passThrough) {
+                if (single != null) {
+                    single.onDataReceived(data);
+                }
+                return;
+            }
+            Map<PointListener, List<PointData>> group = new IdentityHashMap<>();
+            for (PointData datum : data) {
+                PointListener[] arr = listeners.get(datum.getPointId());
+                if (arr != null) {
+                    for (PointListener listener : arr) {
+                        group.computeIfAbsent(listener, ignore -> new ArrayList<>()).add(datum);
+                    }
+                }
+            }
+            group.forEach(PointListener::onDataReceived);
+        }
+
+        @Override
+        public void onDataError(String pointId, Result<?> result) {
+            PointListener[] arr = listeners.get(pointId);
+            if (arr != null) {
+                for (PointListener listener : arr) {
+                    listener.onDataError(pointId, result);
+                }
+            }
+        }
+
+        @Override
+        public void onSubscribeFailed(String pointId, Throwable error) {
+            //保留引用,设备端重试成功后继续分发,监听器取消订阅时释放
+            PointListener[] arr = listeners.get(pointId);
+            if (arr != null) {
+                for (PointListener listener : arr) {
+                    listener.onSubscribeFailed(pointId, error);
+                }
+            }
+        }
+
+        @Override
+        public void onSubscriptionTransferred(Collection<String> pointIds) {
+            Map<PointListener, List<String>> group = new IdentityHashMap<>();
+            for (String pointId : pointIds) {
+                PointListener[] arr = listeners.get(pointId);
+                if (arr != null) {
+                    for (PointListener listener : arr) {
+                        group.computeIfAbsent(listener, ignore -> new ArrayList<>()).add(pointId);
+                    }
+                }
+            }
+            group.forEach(PointListener::onSubscriptionTransferred);
+        }
+    }
+
+    /**
+     * 单个监听器的订阅
+     */
+    private class Handle implements PointSubscription {
+        private final PointListener listener;
+        private final Set<String> points = ConcurrentHashMap.newKeySet();
+        private volatile boolean disposed;
+
+        Handle(PointListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public boolean subscribed(String pointId) {
+            return contains(pointId, listener) && target.subscribed(pointId);
+        }
+
+        @Override
+        public void subscribe(Collection<String> pointId) {
+            if (disposed) {
+                return;
+            }
+            points.addAll(pointId);
+            synchronized (lock) {
+                List<String> first = retain(listener, pointId);
+                if (!first.isEmpty()) {
+                    target.subscribe(first);
+                }
+            }
+        }
+
+        @Override
+        public void unsubscribe(Collection<String> pointId) {
+            points.removeAll(pointId);
+            synchronized (lock) {
+                List<String> last = release(listener, pointId);
+                if (!last.isEmpty()) {
+                    target.unsubscribe(last);
+                }
+            }
+        }
+
+        /**
+         * 设备端订阅由所有监听器共享,重新加载将委托给{@link MultiplexPointSubscription#reload()},
+         * 按差异重新加载,不会中断其他监听器的数据.
+         */
+        @Override
+        public void reload() {
+            if (disposed) {
+                return;
+            }
+            target.reload();
+        }
+
+        @Override
+        public Mono<Result<Health>> health() {
+            return target.health();
+        }
+
+        @Override
+        public void dispose() {
+            if (disposed) {
+                return;
+            }
+            disposed = true;
+            unsubscribe(new ArrayList<>(points));
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
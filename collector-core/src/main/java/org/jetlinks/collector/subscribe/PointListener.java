@@ -64,4 +64,17 @@ public interface PointListener {
      * @see PointSubscription#subscribe(Collection)
      */
     void onSubscribeFailed(String pointId, Throwable error);
+
+    /**
+     * 订阅重新加载时,点位运行时未发生变化的订阅将原样保留,不会重新订阅,并通过此方法通知.
+     * <p>
+     * 语义同{@link InternalStatusCode#Good_SubscriptionTransferred}.
+     *
+     * @param pointIds 保留订阅的点位ID
+     * @see PointSubscription#reload()
+     * @since 1.0.1
+     */
+    default void onSubscriptionTransferred(Collection<String> pointIds) {
+
+    }
 }
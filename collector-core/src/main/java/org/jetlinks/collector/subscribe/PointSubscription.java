@@ -1,6 +1,10 @@
 package org.jetlinks.collector.subscribe;
 
+import org.jetlinks.collector.DataCollectorProvider;
+import org.jetlinks.collector.Health;
+import org.jetlinks.collector.Result;
 import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
 
 import java.util.Collection;
 
@@ -18,4 +22,14 @@ public interface PointSubscription extends Disposable {
 
     void reload();
 
+    /**
+     * 获取订阅的健康度,采集器可在{@link DataCollectorProvider.CollectorRuntime#test()}中使用.
+     *
+     * @return 健康度
+     * @see ResubscribingPointSubscription#health()
+     */
+    default Mono<Result<Health>> health() {
+        return Mono.just(Result.success(Health.ok()));
+    }
+
 }
@@ -0,0 +1,51 @@
+package org.jetlinks.collector.subscribe;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.jetlinks.collector.CollectorProperties;
+
+/**
+ * 自动重新订阅配置,可在采集器配置中设置.
+ *
+ * @author zhouhao
+ * @see ResubscribingPointSubscription
+ * @since 1.0.1
+ */
+@Getter
+@Setter
+public class ResubscribeProperties {
+
+    /**
+     * 首次重试的间隔(毫秒)
+     */
+    private long resubscribeInitialBackoff = 1000;
+
+    /**
+     * 最大重试间隔(毫秒)
+     */
+    private long resubscribeMaxBackoff = 60_000;
+
+    /**
+     * 重试间隔的随机抖动比例,0-1
+     */
+    private double resubscribeJitter = 0.2;
+
+    /**
+     * 每次重新订阅的最大点位数量
+     */
+    private int resubscribeBatchSize = 200;
+
+    /**
+     * 检查订阅状态的间隔(毫秒)
+     */
+    private long resubscribeCheckInterval = 1000;
+
+    /**
+     * 超过此时间(毫秒)未收到数据的订阅视为失效并重新订阅,小于等于0时不检查.
+     */
+    private long staleTimeout;
+
+    public static ResubscribeProperties of(CollectorProperties properties) {
+        return properties.copyTo(new ResubscribeProperties());
+    }
+}
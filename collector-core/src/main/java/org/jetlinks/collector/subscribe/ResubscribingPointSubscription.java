@@ -0,0 +1,284 @@
+package org.jetlinks.collector.subscribe;
+
+import org.jetlinks.collector.CollectorConstants;
+import org.jetlinks.collector.Health;
+import org.jetlinks.collector.InternalStatusCode;
+import org.jetlinks.collector.PointData;
+import org.jetlinks.collector.Result;
+import org.jetlinks.core.monitor.Monitor;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 自动重新订阅的点位订阅,记录每个点位的订阅状态.
+ * <p>
+ * 订阅失败的点位将按指数退避(带随机抖动)分批重新订阅,开启{@link ResubscribeProperties#getStaleTimeout()}时,
+ * 长时间未收到数据的订阅将被取消并重新订阅.
+ * <p>
+ * 订阅的整体健康度可通过{@link ResubscribingPointSubscription#health()}获取,用于实现
+ * {@link org.jetlinks.collector.DataCollectorProvider.CollectorRuntime#test()}.
+ * 已订阅但未收到数据的点位视为正常.
+ *
+ * <pre>{@code
+ * public PointSubscription createSubscription(PointListener listener) {
+ *     return subscription = new ResubscribingPointSubscription(
+ *         l -> new MyPointSubscription(l),
+ *         listener,
+ *         monitor,
+ *         ResubscribeProperties.of(properties));
+ * }
+ *
+ * public Mono<Result<Health>> test() {
+ *     return subscription.health();
+ * }
+ * }</pre>
+ *
+ * @author zhouhao
+ * @see ResubscribeProperties
+ * @since 1.0.1
+ */
+public class ResubscribingPointSubscription implements PointSubscription {
+
+    static final int SUBSCRIBING = 0, ACTIVE = 1, FAILED = 2;
+
+    private final PointListener listener;
+
+    private final Monitor monitor;
+
+    private final ResubscribeProperties properties;
+
+    private final PointSubscription target;
+
+    private final Map<String, PointState> states = new ConcurrentHashMap<>();
+
+    private final Disposable checker;
+
+    private volatile boolean disposed;
+
+    public ResubscribingPointSubscription(Function<PointListener, PointSubscription> factory,
+                                          PointListener listener,
+                                          Monitor monitor,
+                                          ResubscribeProperties properties) {
+        this(factory, listener, monitor, properties, Schedulers.parallel());
+    }
+
+    public ResubscribingPointSubscription(Function<PointListener, PointSubscription> factory,
+                                          PointListener listener,
+                                          Monitor monitor,
+                                          ResubscribeProperties properties,
+                                          Scheduler scheduler) {
+        this.listener = listener;
+        this.monitor = monitor;
+        this.properties = properties;
+        this.target = factory.apply(new StateListener());
+        long interval = Math.max(1, properties.getResubscribeCheckInterval());
+        this.checker = scheduler.schedulePeriodically(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean subscribed(String pointId) {
+        return target.subscribed(pointId);
+    }
+
+    @Override
+    public void subscribe(Collection<String> pointId) {
+        long now = System.currentTimeMillis();
+        for (String id : pointId) {
+            states.computeIfAbsent(id, ignore -> new PointState(now));
+        }
+        target.subscribe(pointId);
+    }
+
+    @Override
+    public void unsubscribe(Collection<String> pointId) {
+        for (String id : pointId) {
+            states.remove(id);
+        }
+        target.unsubscribe(pointId);
+    }
+
+    @Override
+    public void reload() {
+        target.reload();
+    }
+
+    /**
+     * 获取订阅的健康度,健康度为正常订阅的点位比例.
+     *
+     * @return 健康度
+     */
+    @Override
+    public Mono<Result<Health>> health() {
+        return Mono.fromSupplier(() -> {
+            int total = 0, failed = 0, subscribing = 0;
+            for (Map.Entry<String, PointState> entry : states.entrySet()) {
+                total++;
+                int state = entry.getValue().state;
+                if (state == FAILED) {
+                    failed++;
+                } else if (state == SUBSCRIBING && !target.subscribed(entry.getKey())) {
+                    subscribing++;
+                }
+            }
+            Health health = new Health();
+            int active = total - failed - subscribing;
+            health.setHealth(total == 0 ? 1 : (double) active / total);
+            health.setReason("active:" + active + ",subscribing:" + subscribing + ",failed:" + failed);
+            Result<Health> result = Result.success(health);
+            if (total > 0 && active == 0 && failed > 0) {
+                result.setSuccess(false);
+                return result.withCode(InternalStatusCode.Bad_NoCommunication);
+            }
+            if (failed > 0) {
+                return result.withCode(InternalStatusCode.Uncertain_SubNormal);
+            }
+            return result;
+        });
+    }
+
+    private long backoff(int attempts) {
+        long backoff = properties.getResubscribeInitialBackoff() << Math.min(attempts - 1, 20);
+        backoff = Math.min(backoff, properties.getResubscribeMaxBackoff());
+        double jitter = properties.getResubscribeJitter();
+        if (jitter > 0) {
+            backoff += (long) (backoff * jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+        }
+        return Math.max(0, backoff);
+    }
+
+    void check() {
+        if (disposed) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            long staleTimeout = properties.getStaleTimeout();
+            List<String> retry = new ArrayList<>();
+            List<String> stale = new ArrayList<>();
+            for (Map.Entry<String, PointState> entry : states.entrySet()) {
+                PointState state = entry.getValue();
+                synchronized (state) {
+                    if (state.state == SUBSCRIBING && target.subscribed(entry.getKey())) {
+                        //已订阅成功但是设备未上报数据
+                        state.state = ACTIVE;
+                        state.attempts = 0;
+                    }
+                    if (state.state == FAILED) {
+                        if (state.nextRetry <= now && retry.size() < properties.getResubscribeBatchSize()) {
+                            state.state = SUBSCRIBING;
+                            state.lastData = now;
+                            retry.add(entry.getKey());
+                        }
+                    } else if (staleTimeout > 0 && now - state.lastData > staleTimeout) {
+                        state.failed(now, backoff(++state.attempts));
+                        stale.add(entry.getKey());
+                    }
+                }
+            }
+            if (!stale.isEmpty()) {
+                monitor.logger().warn("subscription of {} points stale, resubscribe later", stale.size());
+                monitor.metrics().count(CollectorConstants.Metrics.stale, stale.size());
+                target.unsubscribe(stale);
+            }
+            if (!retry.isEmpty()) {
+                monitor.logger().debug("resubscribe {} points", retry.size());
+                monitor.metrics().count(CollectorConstants.Metrics.resubscribe, retry.size());
+                target.subscribe(retry);
+            }
+        } catch (Throwable error) {
+            monitor.logger().warn("check subscription state error", error);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        checker.dispose();
+        states.clear();
+        target.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    private static class PointState {
+        private volatile int state = SUBSCRIBING;
+        private int attempts;
+        private long nextRetry;
+        private volatile long lastData;
+
+        PointState(long now) {
+            this.lastData = now;
+        }
+
+        void failed(long now, long backoff) {
+            state = FAILED;
+            nextRetry = now + backoff;
+        }
+    }
+
+    /**
+     * 记录点位订阅状态
+     */
+    private class StateListener implements PointListener {
+
+        private void active(String pointId) {
+            PointState state = states.get(pointId);
+            if (state != null) {
+                state.lastData = System.currentTimeMillis();
+                if (state.state != ACTIVE) {
+                    synchronized (state) {
+                        state.state = ACTIVE;
+                        state.attempts = 0;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onDataReceived(PointData data) {
+            active(data.getPointId());
+            listener.onDataReceived(data);
+        }
+
+        @Override
+        public void onDataReceived(List<PointData> data) {
+            for (PointData datum : data) {
+                active(datum.getPointId());
+            }
+            listener.onDataReceived(data);
+        }
+
+        @Override
+        public void onDataError(String pointId, Result<?> result) {
+            active(pointId);
+            listener.onDataError(pointId, result);
+        }
+
+        @Override
+        public void onSubscribeFailed(String pointId, Throwable error) {
+            PointState state = states.get(pointId);
+            if (state != null) {
+                synchronized (state) {
+                    state.failed(System.currentTimeMillis(), backoff(++state.attempts));
+                }
+            }
+            listener.onSubscribeFailed(pointId, error);
+        }
+
+        @Override
+        public void onSubscriptionTransferred(Collection<String> pointIds) {
+            listener.onSubscriptionTransferred(pointIds);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.jetlinks.collector.write;
+
+import org.jetlinks.collector.CollectorConstants;
+import org.jetlinks.collector.DataCollectorProvider;
+import org.jetlinks.collector.ErrorStackSampler;
+import org.jetlinks.collector.InternalStatusCode;
+import org.jetlinks.collector.PointData;
+import org.jetlinks.collector.Result;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写入合并器,将一个时间窗口内的写入请求合并为一次{@link DataCollectorProvider.CollectorRuntime#write(List)}调用.
+ * <p>
+ * 同一个点位在窗口内多次写入时只写入最后一次的值,所有写入请求都将收到该次写入的结果.
+ * 窗口内的写入数量达到{@code maxBatchSize}时立即写入.
+ * 写入结果根据{@link CollectorConstants.Headers#pointId}或结果数据的点位ID对应到写入请求,无法识别时按顺序对应.
+ *
+ * <pre>{@code
+ * WriteCoalescer coalescer = new WriteCoalescer(collector, Duration.ofMillis(20), 100);
+ *
+ * coalescer.write(point, data);
+ * }</pre>
+ *
+ * @author zhouhao
+ * @see DataCollectorProvider.CollectorRuntime#write(List)
+ * @see org.jetlinks.collector.CollectorConstants.CollectorFeatures#batchWrite
+ * @since 1.0.1
+ */
+public class WriteCoalescer implements Disposable {
+
+    private final DataCollectorProvider.CollectorRuntime collector;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final Scheduler scheduler;
+
+    private Map<String, PendingWrite> pending = new LinkedHashMap<>();
+
+    private Disposable scheduled;
+
+    private boolean disposed;
+
+    public WriteCoalescer(DataCollectorProvider.CollectorRuntime collector,
+                          Duration window,
+                          int maxBatchSize) {
+        this(collector, window, maxBatchSize, Schedulers.parallel());
+    }
+
+    public WriteCoalescer(DataCollectorProvider.CollectorRuntime collector,
+                          Duration window,
+                          int maxBatchSize,
+                          Scheduler scheduler) {
+        this.collector = collector;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 写入点位数据
+     *
+     * @param point 点位
+     * @param data  数据
+     * @return 写入结果
+     */
+    public Mono<Result<PointData>> write(DataCollectorProvider.PointRuntime point, PointData data) {
+        return Mono.create(sink -> add(point, data, sink));
+    }
+
+    private void add(DataCollectorProvider.PointRuntime point,
+                     PointData data,
+                     MonoSink<Result<PointData>> sink) {
+        Map<String, PendingWrite> flush = null;
+        synchronized (this) {
+            if (disposed) {
+                sink.success(Result.<PointData>error(InternalStatusCode.Bad_Shutdown).withPointId(point.getId()));
+                return;
+            }
+            PendingWrite write = pending.computeIfAbsent(point.getId(), ignore -> new PendingWrite(point));
+            //只保留最后一次写入的值
+            write.data = data;
+            write.sinks.add(sink);
+            if (pending.size() >= maxBatchSize) {
+                flush = swap();
+            } else if (scheduled == null) {
+                scheduled = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (flush != null) {
+            write(flush);
+        }
+    }
+
+    private Map<String, PendingWrite> swap() {
+        Map<String, PendingWrite> flush = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduled != null) {
+            scheduled.dispose();
+            scheduled = null;
+        }
+        return flush;
+    }
+
+    /**
+     * 立即写入窗口内的所有数据
+     */
+    public void flush() {
+        Map<String, PendingWrite> flush;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                scheduled = null;
+                return;
+            }
+            flush = swap();
+        }
+        write(flush);
+    }
+
+    private void write(Map<String, PendingWrite> flush) {
+        List<Tuple2<DataCollectorProvider.PointRuntime, PointData>> points = new ArrayList<>(flush.size());
+        for (PendingWrite write : flush.values()) {
+            points.add(Tuples.of(write.point, write.data));
+        }
+        Flux
+            .defer(() -> collector.write(points))
+            .doOnNext(result -> {
+                PendingWrite write = match(flush, result);
+                if (write != null) {
+                    write.complete(result);
+                }
+            })
+            .subscribe(
+                null,
+                error -> {
+                    for (PendingWrite write : flush.values()) {
+                        write.complete(Result.<PointData>error(error, ErrorStackSampler.scope(collector))
+                                             .withPointId(write.point.getId()));
+                    }
+                    flush.clear();
+                },
+                () -> {
+                    for (PendingWrite write : flush.values()) {
+                        write.complete(Result.<PointData>error(InternalStatusCode.Bad_NothingToDo)
+                                             .withPointId(write.point.getId()));
+                    }
+                    flush.clear();
+                });
+    }
+
+    /**
+     * 根据点位ID找到结果对应的写入请求并移除,无法识别点位时按顺序取第一个未完成的请求.
+     */
+    private static PendingWrite match(Map<String, PendingWrite> flush, Result<PointData> result) {
+        String pointId = result
+            .getHeader(CollectorConstants.Headers.pointId)
+            .orElseGet(() -> result.getData() == null ? null : result.getData().getPointId());
+        if (pointId != null) {
+            PendingWrite write = flush.remove(pointId);
+            if (write != null) {
+                return write;
+            }
+        }
+        Iterator<PendingWrite> iterator = flush.values().iterator();
+        if (iterator.hasNext()) {
+            PendingWrite write = iterator.next();
+            iterator.remove();
+            return write;
+        }
+        return null;
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (this) {
+            disposed = true;
+        }
+        flush();
+    }
+
+    @Override
+    public synchronized boolean isDisposed() {
+        return disposed;
+    }
+
+    private static class PendingWrite {
+        private final DataCollectorProvider.PointRuntime point;
+        private final List<MonoSink<Result<PointData>>> sinks = new ArrayList<>(1);
+        private PointData data;
+
+        PendingWrite(DataCollectorProvider.PointRuntime point) {
+            this.point = point;
+        }
+
+        void complete(Result<PointData> result) {
+            sinks.get(0).success(result);
+            for (int i = 1, size = sinks.size(); i < size; i++) {
+                sinks.get(i).success(result.copy(result.getData()));
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.jetlinks.collector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarBatchPointDataTest {
+
+    @Test
+    void testIndexOf() {
+        ColumnarBatchPointData data = new ColumnarBatchPointData(1);
+        for (int i = 0; i < 1000; i++) {
+            data.addInt("p" + i, i, null, i);
+        }
+        //扩容后索引仍然有效
+        assertEquals(1000, data.size());
+        for (int i = 0; i < 1000; i++) {
+            int row = data.indexOf("p" + i);
+            assertEquals(i, row);
+            assertEquals(i, data.getInt(row));
+        }
+        assertEquals(-1, data.indexOf("p1000"));
+        assertEquals(-1, data.indexOf(null));
+
+        //重复添加覆盖值,位置不变
+        data.addDouble("p10", 1.5, "ok", 1);
+        assertEquals(1000, data.size());
+        assertEquals(10, data.indexOf("p10"));
+        assertEquals(ColumnarBatchPointData.TYPE_DOUBLE, data.getType(10));
+        assertEquals(1.5, data.getDouble(10));
+        assertEquals("ok", data.getState(10));
+    }
+
+    @Test
+    void testMapViews() {
+        ColumnarBatchPointData data = new ColumnarBatchPointData();
+        data.addDouble("p1", 1.5, null, 1)
+            .addBoolean("p2", true, "err", 2)
+            .addObject("p3", new byte[]{0x01}, "v", null, 3);
+
+        Map<String, Object> properties = data.getProperties();
+        assertEquals(3, properties.size());
+        assertEquals(List.of("p1", "p2", "p3"), new ArrayList<>(properties.keySet()));
+        assertTrue(properties.containsKey("p2"));
+        assertFalse(properties.containsKey("p4"));
+        SimplePointData p3 = (SimplePointData) properties.get("p3");
+        assertArrayEquals(new byte[]{0x01}, p3.getOriginData());
+        assertEquals("v", p3.getParsedData());
+
+        assertEquals(Map.of("p1", 1.5, "p2", true, "p3", "v"), data.toParsedProperties());
+        assertEquals(Map.of("p1", 1L, "p2", 2L, "p3", 3L), data.getPropertySourceTimes());
+
+        //没有状态的点位不在视图中
+        Map<String, String> states = data.getPropertyStates();
+        assertNotNull(states);
+        assertEquals(1, states.size());
+        assertEquals(Map.of("p2", "err"), states);
+        assertFalse(states.containsKey("p1"));
+        assertNull(states.get("p1"));
+
+        data.addBoolean("p2", false, null, 2);
+        assertTrue(states.isEmpty());
+    }
+
+    @Test
+    void testMutators() {
+        ColumnarBatchPointData data = new ColumnarBatchPointData();
+        data.setTimestamp(100);
+        data.addLong("p1", 1, "ok", 1)
+            .addLong("p2", 2, null, 2);
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("p1", 10);
+        properties.put("p3", SimplePointData.of(new byte[]{0x02}, 3.5));
+        data.properties(properties);
+
+        assertEquals(2, data.size());
+        assertEquals(-1, data.indexOf("p2"));
+        //已存在的点位保留时间戳和状态
+        int p1 = data.indexOf("p1");
+        assertEquals(ColumnarBatchPointData.TYPE_INT, data.getType(p1));
+        assertEquals(10, data.getInt(p1));
+        assertEquals(1, data.getTimestamp(p1));
+        assertEquals("ok", data.getState(p1));
+        int p3 = data.indexOf("p3");
+        assertEquals(ColumnarBatchPointData.TYPE_DOUBLE, data.getType(p3));
+        assertEquals(3.5, data.getDouble(p3));
+        assertArrayEquals(new byte[]{0x02}, data.getOriginData(p3));
+        assertEquals(100, data.getTimestamp(p3));
+
+        data.propertySourceTimes(Map.of("p3", 300L, "p4", 400L));
+        assertEquals(300, data.getTimestamp(p3));
+        assertEquals(-1, data.indexOf("p4"));
+
+        data.propertyStates(Map.of("p3", "err"));
+        assertEquals(Map.of("p3", "err"), data.getPropertyStates());
+
+        data.properties(null);
+        assertEquals(0, data.size());
+        assertTrue(data.getProperties().isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package org.jetlinks.collector;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ErrorCodeClassifierTest {
+
+    static class CustomException extends RuntimeException {
+        CustomException(String message) {
+            super(message);
+        }
+    }
+
+    static class SubCustomException extends CustomException {
+        SubCustomException(String message) {
+            super(message);
+        }
+    }
+
+    @AfterEach
+    void reset() {
+        ErrorCodeClassifier.unregister(CustomException.class);
+        ErrorCodeClassifier.unregister(SubCustomException.class);
+        ErrorCodeClassifier.unregister(IOException.class);
+    }
+
+    @Test
+    void testBuiltin() {
+        assertEquals(InternalStatusCode.Bad_InternalError.getCode(), ErrorCodeClassifier.classify(null));
+        assertEquals(InternalStatusCode.Bad_ConnectionRefused.getCode(),
+                     ErrorCodeClassifier.classify(new ConnectException()));
+        assertEquals(InternalStatusCode.Bad_Timeout.getCode(),
+                     ErrorCodeClassifier.classify(new TimeoutException()));
+        //类型缓存后结果不变
+        assertEquals(InternalStatusCode.Bad_Timeout.getCode(),
+                     ErrorCodeClassifier.classify(new TimeoutException("connection refused")));
+    }
+
+    @Test
+    void testMessage() {
+        //相同类型,不同消息分别推断
+        assertEquals(InternalStatusCode.Bad_ConnectionRefused.getCode(),
+                     ErrorCodeClassifier.classify(new IOException("Connection refused")));
+        assertEquals(InternalStatusCode.Bad_ConnectionLost.getCode(),
+                     ErrorCodeClassifier.classify(new IOException("Connection reset by peer")));
+        assertEquals(InternalStatusCode.Bad_CommunicationError.getCode(),
+                     ErrorCodeClassifier.classify(new IOException()));
+        assertEquals(InternalStatusCode.Bad_ConnectionRefused.getCode(),
+                     ErrorCodeClassifier.classify(new IOException("Connection refused")));
+
+        //超过缓存数量后清空,推断结果不变
+        for (int i = 0; i < ErrorCodeClassifier.MAX_CACHED_MESSAGES * 2; i++) {
+            assertEquals(InternalStatusCode.Bad_Timeout.getCode(),
+                         ErrorCodeClassifier.classify(new IOException("read timeout " + i)));
+        }
+        assertEquals(InternalStatusCode.Bad_ConnectionLost.getCode(),
+                     ErrorCodeClassifier.classify(new IOException("Connection reset by peer")));
+        assertEquals(InternalStatusCode.Bad_DecodingError.getCode(),
+                     ErrorCodeClassifier.classify(new RuntimeException("parse error")));
+    }
+
+    @Test
+    void testRegister() {
+        assertEquals(InternalStatusCode.Bad_ConfigurationError.getCode(),
+                     ErrorCodeClassifier.classify(new SubCustomException("invalid")));
+
+        //注册后重置缓存,对子类同样生效
+        ErrorCodeClassifier.register(CustomException.class, InternalStatusCode.Bad_NotReadable);
+        assertEquals(InternalStatusCode.Bad_NotReadable.getCode(),
+                     ErrorCodeClassifier.classify(new SubCustomException("invalid")));
+
+        //继承关系近的优先
+        ErrorCodeClassifier.register(SubCustomException.class, InternalStatusCode.Bad_NotWritable);
+        assertEquals(InternalStatusCode.Bad_NotWritable.getCode(),
+                     ErrorCodeClassifier.classify(new SubCustomException("invalid")));
+        assertEquals(InternalStatusCode.Bad_NotReadable.getCode(),
+                     ErrorCodeClassifier.classify(new CustomException("invalid")));
+
+        //自定义映射优先于内置规则,且不再根据消息推断
+        ErrorCodeClassifier.register(IOException.class, InternalStatusCode.Bad_NotReadable);
+        assertEquals(InternalStatusCode.Bad_NotReadable.getCode(),
+                     ErrorCodeClassifier.classify(new IOException("Connection refused")));
+
+        //注销后恢复
+        ErrorCodeClassifier.unregister(SubCustomException.class);
+        assertEquals(InternalStatusCode.Bad_NotReadable.getCode(),
+                     ErrorCodeClassifier.classify(new SubCustomException("invalid")));
+        ErrorCodeClassifier.unregister(CustomException.class);
+        ErrorCodeClassifier.unregister(IOException.class);
+        assertEquals(InternalStatusCode.Bad_ConfigurationError.getCode(),
+                     ErrorCodeClassifier.classify(new SubCustomException("invalid")));
+        assertEquals(InternalStatusCode.Bad_ConnectionRefused.getCode(),
+                     ErrorCodeClassifier.classify(new IOException("Connection refused")));
+    }
+}
@@ -0,0 +1,94 @@
+package org.jetlinks.collector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ErrorStackSamplerTest {
+
+    @AfterEach
+    void reset() {
+        ErrorStackSampler.setMode(ErrorStackSampler.Mode.lazy);
+        ErrorStackSampler.setRate(5, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testParseMode() {
+        assertEquals(ErrorStackSampler.Mode.lazy, ErrorStackSampler.parseMode(null));
+        assertEquals(ErrorStackSampler.Mode.lazy, ErrorStackSampler.parseMode("sampeld"));
+        assertEquals(ErrorStackSampler.Mode.eager, ErrorStackSampler.parseMode("eager"));
+        assertEquals(ErrorStackSampler.Mode.sampled, ErrorStackSampler.parseMode(" Sampled "));
+    }
+
+    @Test
+    void testEager() {
+        ErrorStackSampler.setMode(ErrorStackSampler.Mode.eager);
+        Result<Void> result = Result.error(new IllegalStateException("test"));
+
+        assertNotNull(result.getHeaders().get(ErrorStackSampler.HEADER_ERROR_STACK));
+        assertTrue(String.valueOf(result.getHeaders().get(ErrorStackSampler.HEADER_ERROR_STACK))
+                         .contains("testEager"));
+    }
+
+    @Test
+    void testLazy() throws Exception {
+        Result<Void> result = Result.error(new IllegalStateException("test"));
+        Object stack = result.getHeaders().get(ErrorStackSampler.HEADER_ERROR_STACK);
+        //读取前不生成堆栈
+        assertInstanceOf(ErrorStackSampler.LazyStack.class, stack);
+        assertTrue(String.valueOf(stack).contains("testLazy"));
+
+        //JSON序列化时输出字符串
+        String json = new ObjectMapper().writeValueAsString(result.getHeaders());
+        assertTrue(json.contains("\"errorStack\":\"java.lang.IllegalStateException: test"));
+
+        //序列化时转换为字符串
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(Result.error(new IllegalStateException("test")));
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Result<?> decoded = (Result<?>) in.readObject();
+            assertInstanceOf(String.class, decoded.getHeaders().get(ErrorStackSampler.HEADER_ERROR_STACK));
+            assertTrue(String.valueOf(decoded.getHeaders().get(ErrorStackSampler.HEADER_ERROR_STACK))
+                             .contains("testLazy"));
+        }
+    }
+
+    @Test
+    void testScope() {
+        ErrorStackSampler.setMode(ErrorStackSampler.Mode.sampled);
+        ErrorStackSampler.setRate(1, Duration.ofMinutes(1));
+        Object c1 = new Object(), c2 = new Object();
+
+        //不同采集器独立采样
+        assertNull(Result.error(new IllegalArgumentException(), ErrorStackSampler.scope(c1))
+                         .getHeaders().get(ErrorStackSampler.HEADER_ERROR_FINGERPRINT));
+        assertNull(Result.error(new IllegalArgumentException(), ErrorStackSampler.scope(c2))
+                         .getHeaders().get(ErrorStackSampler.HEADER_ERROR_FINGERPRINT));
+        assertNotNull(Result.error(new IllegalArgumentException(), ErrorStackSampler.scope(c1))
+                            .getHeaders().get(ErrorStackSampler.HEADER_ERROR_FINGERPRINT));
+    }
+
+    @Test
+    void testSampled() {
+        ErrorStackSampler.setMode(ErrorStackSampler.Mode.sampled);
+        ErrorStackSampler.setRate(1, Duration.ofMinutes(1));
+
+        Result<Void> first = Result.error(new IllegalStateException("test"), "testSampled");
+        Result<Void> second = Result.error(new IllegalStateException("test"), "testSampled");
+
+        assertNull(first.getHeaders().get(ErrorStackSampler.HEADER_ERROR_FINGERPRINT));
+        assertNotNull(second.getHeaders().get(ErrorStackSampler.HEADER_ERROR_FINGERPRINT));
+        assertEquals("java.lang.IllegalStateException: test",
+                     second.getHeaders().get(ErrorStackSampler.HEADER_ERROR_STACK));
+    }
+}
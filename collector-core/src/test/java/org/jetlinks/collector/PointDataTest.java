@@ -0,0 +1,87 @@
+package org.jetlinks.collector;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PointDataTest {
+
+    @Test
+    void testOriginBuffer() {
+        ByteBuf buffer = Unpooled.wrappedBuffer(new byte[]{0x01, 0x02});
+        PointData data = PointData.of("p", null, null, null, 0).setOriginBuffer(buffer);
+        SimplePointData simple = data.toSimple();
+
+        assertEquals("0102", simple.getHexString());
+        assertEquals("0102", data.toString());
+        //复制期间持有的引用已释放
+        assertEquals(1, buffer.refCnt());
+
+        data.release();
+        assertEquals(0, buffer.refCnt());
+        //转换时已复制数据
+        assertArrayEquals(new byte[]{0x01, 0x02}, simple.getOriginData());
+        assertEquals("0102", data.toString());
+    }
+
+    @Test
+    void testReleaseWithoutCopy() {
+        ByteBuf buffer = Unpooled.wrappedBuffer(new byte[]{0x01, 0x02});
+        PointData data = PointData.of("p", null, null, null, 0).setOriginBuffer(buffer);
+        data.release();
+        //缓冲区已释放,未复制的数据不可用
+        assertNull(data.getOriginData());
+        assertEquals("null", data.toString());
+    }
+
+    @Test
+    void testToSimplePooled() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false);
+        ByteBuf response = allocator.buffer(2).writeBytes(new byte[]{0x01, 0x02});
+        PointData data = PointData.of("p", null, null, null, 0).setOriginBuffer(response.retainedSlice(0, 2));
+        response.release();
+
+        SimplePointData simple = data.toSimple();
+        data.release();
+
+        //释放后的池化缓冲区被其他响应复用
+        ByteBuf other = allocator.buffer(2).writeBytes(new byte[]{0x09, 0x09});
+        ByteBuf otherSlice = other.retainedSlice(0, 2);
+        try {
+            assertArrayEquals(new byte[]{0x01, 0x02}, simple.getOriginData());
+            assertEquals("0102", simple.getHexString());
+        } finally {
+            otherSlice.release();
+            other.release();
+        }
+    }
+
+    @Test
+    void testCopyBeforeRelease() {
+        ByteBuf buffer = Unpooled.wrappedBuffer(new byte[]{0x01, 0x02});
+        PointData data = PointData.of("p", null, null, null, 0).setOriginBuffer(buffer);
+
+        assertArrayEquals(new byte[]{0x01, 0x02}, data.getOriginData());
+        data.release();
+        assertArrayEquals(new byte[]{0x01, 0x02}, data.getOriginData());
+    }
+
+    @Test
+    void testPrimitiveKeepBoxedType() {
+        DoublePointData d = PointData.ofDouble("p", null, 1, null, 0);
+        d.setParsedData(1.5F);
+        assertFalse(d.isPrimitive());
+        assertEquals(1.5F, d.getParsedData());
+        assertEquals(1.5, d.doubleValue());
+
+        LongPointData l = PointData.ofLong("p", null, 1, null, 0);
+        l.setParsedData(2);
+        assertEquals(Integer.class, l.getParsedData().getClass());
+        l.setParsedData(3L);
+        assertTrue(l.isPrimitive());
+        assertEquals(3L, l.getParsedData());
+    }
+}
@@ -0,0 +1,114 @@
+package org.jetlinks.collector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusCodesTest {
+
+    @Test
+    void testTable() {
+        StatusCodes.Table table = new StatusCodes.Table(8);
+        //低16位均为0的状态码
+        for (int i = 0; i < 4; i++) {
+            long code = 0xC1000000L + ((long) i << 16);
+            table.put(code, new UndefinedStatusCode(code));
+        }
+        for (int i = 0; i < 4; i++) {
+            long code = 0xC1000000L + ((long) i << 16);
+            assertEquals(code, table.get(code).getCode());
+        }
+        assertNull(table.get(0xC1040000L));
+
+        //替换相同状态码
+        StatusCode replaced = new UndefinedStatusCode(0xC1000000L);
+        table.put(0xC1000000L, replaced);
+        assertSame(replaced, table.get(0xC1000000L));
+
+        //复制后修改不影响原表
+        StatusCodes.Table copy = table.copy();
+        copy.put(0xC1040000L, new UndefinedStatusCode(0xC1040000L));
+        assertNull(table.get(0xC1040000L));
+        assertNotNull(copy.get(0xC1040000L));
+
+        StatusCodes.Table resized = copy.resize(64);
+        for (int i = 0; i < 5; i++) {
+            long code = 0xC1000000L + ((long) i << 16);
+            assertEquals(code, resized.get(code).getCode());
+        }
+        assertSame(replaced, resized.get(0xC1000000L));
+    }
+
+    @Test
+    void testLookup() {
+        for (InternalStatusCode code : InternalStatusCode.values()) {
+            assertSame(code, StatusCodes.lookup(code.getCode()));
+        }
+        assertNull(StatusCodes.lookup(0xC2FF0000L));
+        assertInstanceOf(UndefinedStatusCode.class, StatusCodes.of(0xC2FF0000L));
+        assertTrue(StatusCodes.findCode(0xC2FF0000L).isEmpty());
+    }
+
+    @Test
+    void testRegister() {
+        //注册大量状态码触发扩容
+        List<StatusCode> codes = new ArrayList<>();
+        for (int i = 0; i < 512; i++) {
+            StatusCode code = new UndefinedStatusCode(0xC3000000L + ((long) i << 16));
+            codes.add(code);
+            StatusCodes.register(code);
+        }
+        for (StatusCode code : codes) {
+            assertSame(code, StatusCodes.lookup(code.getCode()));
+        }
+        assertSame(InternalStatusCode.Bad_Timeout, StatusCodes.lookup(InternalStatusCode.Bad_Timeout.getCode()));
+
+        //自定义状态码可以被替换
+        StatusCode replaced = new UndefinedStatusCode(0xC3000000L);
+        StatusCodes.register(replaced);
+        assertSame(replaced, StatusCodes.lookup(0xC3000000L));
+
+        //与内置状态码冲突
+        assertThrows(IllegalArgumentException.class,
+                     () -> StatusCodes.register(new UndefinedStatusCode(InternalStatusCode.Bad_Timeout.getCode())));
+        assertSame(InternalStatusCode.Bad_Timeout, StatusCodes.lookup(InternalStatusCode.Bad_Timeout.getCode()));
+        //重复注册内置状态码
+        StatusCodes.register(InternalStatusCode.Bad_Timeout);
+    }
+
+    @Test
+    void testConcurrentRegister() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failed = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 64; i++) {
+                        StatusCodes.register(new UndefinedStatusCode(0xC4000000L + ((long) (offset * 64 + i) << 16)));
+                    }
+                } catch (Throwable e) {
+                    failed.incrementAndGet();
+                }
+            });
+            workers.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(0, failed.get());
+        for (int i = 0; i < threads * 64; i++) {
+            assertNotNull(StatusCodes.lookup(0xC4000000L + ((long) i << 16)));
+        }
+    }
+}
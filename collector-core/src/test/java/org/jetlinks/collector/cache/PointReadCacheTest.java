@@ -0,0 +1,119 @@
+package org.jetlinks.collector.cache;
+
+import org.jetlinks.collector.AccessMode;
+import org.jetlinks.collector.InternalStatusCode;
+import org.jetlinks.collector.PointData;
+import org.jetlinks.collector.Result;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PointReadCache 单元测试
+ *
+ * @author zhouhao
+ */
+class PointReadCacheTest {
+
+    private Mono<Result<PointData>> read(AtomicInteger counter) {
+        return Mono
+            .fromSupplier(() -> Result.<PointData>success(PointData.ofInt("p1", null, counter.incrementAndGet(), null, 0)))
+            .delayElement(Duration.ofMillis(50));
+    }
+
+    @Test
+    void testCollapse() {
+        AtomicInteger counter = new AtomicInteger();
+        PointReadCache cache = new PointReadCache(new ReadCacheProperties());
+
+        Flux.range(0, 10)
+            .flatMap(ignore -> cache.read("p1", null, () -> read(counter)))
+            .map(result -> result.getData().getParsedData())
+            .as(StepVerifier::create)
+            .expectNextCount(10)
+            .verifyComplete();
+
+        assertEquals(1, counter.get());
+        assertEquals(9, cache.getCollapsed());
+
+        //上一次读取完成后重新读取
+        cache.read("p1", null, () -> read(counter)).block();
+        assertEquals(2, counter.get());
+    }
+
+    @Test
+    void testMaxAge() {
+        AtomicInteger counter = new AtomicInteger();
+        ReadCacheProperties properties = new ReadCacheProperties();
+        properties.setReadMaxAge(10_000);
+        PointReadCache cache = new PointReadCache(properties);
+
+        cache.read("p1", null, () -> read(counter)).block();
+        Result<PointData> cached = cache.read("p1", null, () -> read(counter)).block();
+        assertNotNull(cached);
+        assertEquals(1, cached.getData().getParsedData());
+        assertEquals(1, counter.get());
+        assertEquals(1, cache.getHits());
+
+        //写入后缓存失效
+        cache.write("p1", () -> Mono.just(Result.success(PointData.of("p1", null, 3, null, 0)))).block();
+        cache.read("p1", null, () -> read(counter)).block();
+        assertEquals(2, counter.get());
+    }
+
+    @Test
+    void testInvalidateDuringRead() {
+        AtomicInteger counter = new AtomicInteger();
+        ReadCacheProperties properties = new ReadCacheProperties();
+        properties.setReadMaxAge(10_000);
+        PointReadCache cache = new PointReadCache(properties);
+
+        //读取进行中时写入
+        Mono<Result<PointData>> reading = cache.read("p1", null, () -> read(counter));
+        Result<PointData> first = Mono
+            .zip(reading, Mono.delay(Duration.ofMillis(10)).doOnNext(ignore -> cache.invalidate("p1")))
+            .map(tuple -> tuple.getT1())
+            .block();
+        assertNotNull(first);
+
+        //旧值不应被缓存
+        cache.read("p1", null, () -> read(counter)).block();
+        assertEquals(2, counter.get());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void testCopyForEveryCaller() {
+        AtomicInteger counter = new AtomicInteger();
+        PointReadCache cache = new PointReadCache(new ReadCacheProperties());
+        Result<PointData> shared = Result.success(PointData.ofInt("p1", null, 1, null, 0));
+
+        Mono<Result<PointData>> first = cache.read("p1", null, () -> Mono.just(shared).delayElement(Duration.ofMillis(20)));
+        Mono<Result<PointData>> second = cache.read("p1", null, () -> read(counter));
+        Result<PointData>[] results = Mono
+            .zip(first, second)
+            .map(tuple -> new Result[]{tuple.getT1(), tuple.getT2()})
+            .block();
+        assertNotNull(results);
+        assertNotSame(shared, results[0]);
+        assertNotSame(shared, results[1]);
+        assertEquals(0, counter.get());
+    }
+
+    @Test
+    void testNotReadable() {
+        PointReadCache cache = new PointReadCache(new ReadCacheProperties());
+        Result<PointData> result = cache
+            .read("p1", new AccessMode[]{AccessMode.write}, () -> Mono.error(new IllegalStateException()))
+            .block();
+        assertNotNull(result);
+        assertFalse(result.isSuccess());
+        assertEquals(InternalStatusCode.Bad_NotReadable.getCode(), result.getCode());
+    }
+}
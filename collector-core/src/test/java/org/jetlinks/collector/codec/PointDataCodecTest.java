@@ -0,0 +1,198 @@
+package org.jetlinks.collector.codec;
+
+import org.jetlinks.collector.*;
+import org.jetlinks.core.utils.SerializeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PointDataCodec 单元测试
+ *
+ * @author zhouhao
+ */
+class PointDataCodecTest {
+
+    private BatchPointData createBatch() {
+        long now = System.currentTimeMillis();
+        BatchPointData batch = new BatchPointData();
+        batch.setProvider("modbus");
+        batch.setChannelId("channel");
+        batch.setCollectorId("collector");
+        batch.setTimestamp(now);
+        batch.setSource("test");
+        batch.addHeader("traceId", "abc");
+        List<PointData> points = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            points.add(PointData.ofDouble("temp_" + i, null, i * 0.5, i % 3 == 0 ? "good" : null, now - i));
+        }
+        points.add(PointData.ofLong("long", null, -123456789L, null, now + 10));
+        points.add(PointData.ofInt("int", new byte[]{0x01, 0x02}, 42, "bad", now));
+        points.add(PointData.ofBoolean("bool", null, true, null, now));
+        points.add(PointData.of("str", null, "hello", null, now).withOther("unit", "℃"));
+        points.add(PointData.of("map", null, Map.of("a", 1), null, now));
+        points.add(PointData.of("null", new byte[]{0x0F}, null, null, now));
+        batch.setPoints(points);
+        return batch;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Externalizable> T roundTrip(T value, T target) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            value.writeExternal(out);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            target.readExternal(in);
+            assertEquals(-1, in.read());
+        }
+        return target;
+    }
+
+    private void assertPoints(List<PointData> expect, List<PointData> actual) {
+        assertEquals(expect.size(), actual.size());
+        for (int i = 0; i < expect.size(); i++) {
+            PointData e = expect.get(i);
+            PointData a = actual.get(i);
+            assertEquals(e.getPointId(), a.getPointId());
+            assertEquals(e.getParsedData(), a.getParsedData());
+            assertEquals(e.getState(), a.getState());
+            assertEquals(e.getTimestamp(), a.getTimestamp());
+            assertArrayEquals(e.getOriginData(), a.getOriginData());
+        }
+    }
+
+    @Test
+    void testBatchRoundTrip() throws Exception {
+        BatchPointData batch = createBatch();
+        BatchPointData decoded = roundTrip(batch, new BatchPointData());
+
+        assertEquals("modbus", decoded.getProvider());
+        assertEquals("channel", decoded.getChannelId());
+        assertEquals("collector", decoded.getCollectorId());
+        assertEquals("test", decoded.getSource());
+        assertEquals(batch.getTimestamp(), decoded.getTimestamp());
+        assertEquals("abc", decoded.getHeader("traceId").orElse(null));
+        assertPoints(batch.getPoints(), decoded.getPoints());
+        assertInstanceOf(DoublePointData.class, decoded.getPoints().get(0));
+        assertEquals("℃", decoded.propertiesMap().get("str").getOthers().get("unit"));
+    }
+
+    @Test
+    void testEmptyBatchRoundTrip() throws Exception {
+        BatchPointData batch = new BatchPointData();
+        batch.setProvider("modbus");
+        batch.setChannelId("channel");
+        batch.setCollectorId("collector");
+        BatchPointData decoded = roundTrip(batch, new BatchPointData());
+        assertTrue(decoded.getPoints().isEmpty());
+    }
+
+    @Test
+    void testColumnarRoundTrip() throws Exception {
+        BatchPointData batch = createBatch();
+        ColumnarBatchPointData columnar = ColumnarBatchPointData.of(batch);
+        ColumnarBatchPointData decoded = roundTrip(columnar, new ColumnarBatchPointData());
+
+        assertEquals(columnar.size(), decoded.size());
+        assertEquals(ColumnarBatchPointData.TYPE_DOUBLE, decoded.getType(decoded.indexOf("temp_1")));
+        assertPoints(columnar.getPoints(), decoded.getPoints());
+        assertEquals(columnar.getPropertyStates(), decoded.getPropertyStates());
+    }
+
+    @Test
+    void testPointRoundTrip() throws Exception {
+        PointData point = PointData.of("p", new byte[]{1, 2, 3}, 1.5F, "good", 100);
+        PointData decoded = roundTrip(point, new PointData());
+        assertPoints(List.of(point), List.of(decoded));
+
+        DoublePointData primitive = PointData.ofDouble("d", null, 2.5, null, 200);
+        DoublePointData decodedPrimitive = roundTrip(primitive, new DoublePointData());
+        assertTrue(decodedPrimitive.isPrimitive());
+        assertEquals(2.5, decodedPrimitive.doubleValue());
+    }
+
+    @Test
+    void testLegacyPoint() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            //1.0.1之前的格式
+            SerializeUtils.writeNullableUTF("legacy", out);
+            SerializeUtils.writeNullableUTF("good", out);
+            SerializeUtils.writeObject(new byte[]{1, 2}, out);
+            SerializeUtils.writeObject(12.5D, out);
+            out.writeLong(100);
+            SerializeUtils.writeKeyValue(Map.of("unit", "℃"), out);
+        }
+        PointData point = new PointData();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            point.readExternal(in);
+        }
+        assertEquals("legacy", point.getPointId());
+        assertEquals("good", point.getState());
+        assertEquals(12.5D, point.getParsedData());
+        assertEquals(100, point.getTimestamp());
+        assertArrayEquals(new byte[]{1, 2}, point.getOriginData());
+        assertEquals("℃", point.getOthers().get("unit"));
+    }
+
+    @Test
+    void testNullPointId() throws Exception {
+        PointData point = PointData.of(null, null, 1, null, 100);
+        assertNull(roundTrip(point, new PointData()).getPointId());
+
+        BatchPointData batch = createBatch();
+        batch.getPoints().add(1, PointData.of(null, null, 1, null, 100));
+        PointIdDictionary sender = PointIdDictionary.create();
+        assertPoints(batch.getPoints(), decode(encode(batch, null), null).getPoints());
+        assertPoints(batch.getPoints(), decode(encode(batch, sender), PointIdDictionary.receiver()).getPoints());
+    }
+
+    @Test
+    void testIllegalDictionaryIndex() {
+        PointIdDictionary receiver = PointIdDictionary.receiver();
+        assertThrows(StreamCorruptedException.class, () -> receiver.put(-1, "a"));
+        assertThrows(StreamCorruptedException.class, () -> receiver.put(Integer.MAX_VALUE - 1, "a"));
+    }
+
+    @Test
+    void testSharedDictionary() throws Exception {
+        PointIdDictionary sender = PointIdDictionary.create();
+        PointIdDictionary receiver = PointIdDictionary.receiver();
+        BatchPointData batch = createBatch();
+
+        byte[] first = encode(batch, sender);
+        assertPoints(batch.getPoints(), decode(first, receiver).getPoints());
+        assertEquals(sender.size(), receiver.size());
+
+        //接收方确认后,发送索引
+        sender.acknowledge(receiver.size());
+        byte[] second = encode(batch, sender);
+        assertTrue(second.length < first.length);
+        assertPoints(batch.getPoints(), decode(second, receiver).getPoints());
+
+        //接收方没有字典时无法解码
+        assertThrows(StreamCorruptedException.class, () -> decode(second, PointIdDictionary.receiver()));
+    }
+
+    private byte[] encode(BatchPointData batch, PointIdDictionary dictionary) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            PointDataCodec.writeBatch(batch, out, dictionary);
+        }
+        return bytes.toByteArray();
+    }
+
+    private BatchPointData decode(byte[] data, PointIdDictionary dictionary) throws Exception {
+        BatchPointData batch = new BatchPointData();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            PointDataCodec.readBatch(batch, in, dictionary);
+        }
+        return batch;
+    }
+}
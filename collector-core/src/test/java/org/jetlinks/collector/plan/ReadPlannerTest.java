@@ -0,0 +1,90 @@
+package org.jetlinks.collector.plan;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.jetlinks.collector.PointMetadata;
+import org.jetlinks.collector.address.OffsetPointAddress;
+import org.jetlinks.collector.address.PointAddress;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReadPlanner 单元测试
+ *
+ * @author zhouhao
+ */
+class ReadPlannerTest {
+
+    private final Map<String, PointMetadata> metadata = new HashMap<>();
+
+    private String point(String id, PointAddress address, int byteLength) {
+        PointMetadata meta = new PointMetadata();
+        meta.setAddress(address);
+        meta.setByteLength(byteLength);
+        metadata.put(id, meta);
+        return id;
+    }
+
+    @Test
+    void testMergeBlocks() {
+        List<String> points = new ArrayList<>();
+        //3段连续的寄存器,每段间隔较大
+        for (int i = 0; i < 100; i++) {
+            int offset = (i / 34) * 1000 + (i % 34);
+            points.add(point("p" + i, OffsetPointAddress.of("1:3", offset), 2));
+        }
+        points.add(point("float", OffsetPointAddress.of("1:3", 40), 4));
+        points.add(point("other", OffsetPointAddress.of("2:3", 0), 2));
+        points.add(point("unknown", PointAddress.create("x"), 2));
+
+        ReadPlan<String> plan = new ReadPlanner(125, 10, 2).plan(points, metadata::get);
+
+        assertEquals(List.of("unknown"), plan.getUnplanned());
+        assertEquals(4, plan.getBlocks().size());
+
+        ReadBlock<String> first = plan.getBlocks().get(0);
+        assertEquals("1:3", first.getScope());
+        assertEquals(0, first.getStart());
+        //0-33 和 40-41 合并
+        assertEquals(42, first.getLength());
+        assertEquals(35, first.getMembers().size());
+    }
+
+    @Test
+    void testMaxSpan() {
+        List<String> points = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            points.add(point("p" + i, OffsetPointAddress.of("s", i), 1));
+        }
+        //超过最大跨度的点位不参与合并
+        points.add(point("large", OffsetPointAddress.of("s", 10), 5));
+        ReadPlan<String> plan = new ReadPlanner(4, 0, 1).plan(points, metadata::get);
+        assertEquals(List.of("large"), plan.getUnplanned());
+        assertEquals(3, plan.getBlocks().size());
+        for (ReadBlock<String> block : plan.getBlocks()) {
+            assertTrue(block.getLength() <= 4);
+        }
+    }
+
+    @Test
+    void testSlice() {
+        List<String> points = List.of(
+            point("a", OffsetPointAddress.of("s", 10), 2),
+            point("b", OffsetPointAddress.of("s", 11), 4));
+        ReadBlock<String> block = new ReadPlanner(125, 10, 2).plan(points, metadata::get).getBlocks().get(0);
+        assertEquals(6, block.getByteLength());
+
+        ByteBuf response = Unpooled.wrappedBuffer(new byte[]{1, 2, 3, 4, 5, 6});
+        Map<String, ByteBuf> slices = new HashMap<>();
+        block.slice(response, slices::put);
+
+        assertEquals(0x0102, slices.get("a").getUnsignedShort(0));
+        assertEquals(0x03040506, slices.get("b").getInt(0));
+        assertEquals(3, response.refCnt());
+        slices.values().forEach(ByteBuf::release);
+        assertTrue(response.release());
+    }
+}
@@ -0,0 +1,124 @@
+package org.jetlinks.collector.schedule;
+
+import org.jetlinks.collector.DataCollectorProvider;
+import org.jetlinks.collector.PointData;
+import org.jetlinks.collector.Result;
+import org.jetlinks.core.monitor.Monitor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * PollingScheduler 单元测试
+ *
+ * @author zhouhao
+ */
+class PollingSchedulerTest {
+
+    private DataCollectorProvider.PointRuntime point(String id, int order) {
+        DataCollectorProvider.PointRuntime point = mock(DataCollectorProvider.PointRuntime.class);
+        when(point.getId()).thenReturn(id);
+        when(point.getOrder()).thenReturn(order);
+        return point;
+    }
+
+    @SuppressWarnings("unchecked")
+    private DataCollectorProvider.CollectorRuntime collector(Queue<List<String>> calls, CountDownLatch latch) {
+        DataCollectorProvider.CollectorRuntime collector = mock(DataCollectorProvider.CollectorRuntime.class);
+        when(collector.collect(anyList())).thenAnswer(invocation -> {
+            List<DataCollectorProvider.PointRuntime> points = invocation.getArgument(0);
+            List<String> ids = new ArrayList<>();
+            for (DataCollectorProvider.PointRuntime point : points) {
+                ids.add(point.getId());
+            }
+            calls.add(ids);
+            latch.countDown();
+            return Flux.<Result<PointData>>empty();
+        });
+        return collector;
+    }
+
+    @Test
+    @Timeout(10)
+    void testCoalesceAndOrder() throws Exception {
+        Queue<List<String>> calls = new ConcurrentLinkedQueue<>();
+        CountDownLatch latch = new CountDownLatch(4);
+        DataCollectorProvider.CollectorRuntime collector = collector(calls, latch);
+
+        PollingScheduler scheduler = new PollingScheduler(
+            (id, c, results) -> results.then(), Monitor.noop(), Duration.ofMillis(5), Schedulers.immediate());
+        try {
+            scheduler.schedule("c1", collector, List.of(point("p2", 2), point("p1", 1)), Duration.ofMillis(50));
+            scheduler.schedule("c1", collector, point("p0", 0), Duration.ofMillis(100));
+            assertEquals(2, scheduler.getGroups());
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            //周期成倍数关系,长周期的点位总是与短周期的点位合并采集
+            for (List<String> call : calls) {
+                assertTrue(call.equals(List.of("p1", "p2")) || call.equals(List.of("p0", "p1", "p2")), call::toString);
+            }
+            assertTrue(calls.stream().anyMatch(call -> call.size() == 3));
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testDisposeRegistration() throws Exception {
+        Queue<List<String>> calls = new ConcurrentLinkedQueue<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        DataCollectorProvider.CollectorRuntime collector = collector(calls, latch);
+
+        PollingScheduler scheduler = new PollingScheduler(
+            (id, c, results) -> results.then(), Monitor.noop(), Duration.ofMillis(5), Schedulers.immediate());
+        try {
+            Disposable disposable = scheduler.schedule("c1", collector, point("p1", 1), Duration.ofMillis(20));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            disposable.dispose();
+            Thread.sleep(100);
+            //采集组在下一次到期时移除
+            assertEquals(0, scheduler.getGroups());
+            int size = calls.size();
+            Thread.sleep(100);
+            assertEquals(size, calls.size());
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testHandlerThrow() throws Exception {
+        Queue<List<String>> calls = new ConcurrentLinkedQueue<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        DataCollectorProvider.CollectorRuntime collector = collector(calls, latch);
+
+        //处理器同步抛出异常后,下一个周期仍然继续采集
+        PollingScheduler scheduler = new PollingScheduler(
+            (id, c, results) -> {
+                results.subscribe();
+                throw new IllegalStateException("test");
+            }, Monitor.noop(), Duration.ofMillis(5), Schedulers.immediate());
+        try {
+            scheduler.schedule("c1", collector, point("p1", 1), Duration.ofMillis(20));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.dispose();
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.jetlinks.core.metadata.DataType;
 import org.jetlinks.core.metadata.types.UnknownType;
 import org.jetlinks.core.monitor.Monitor;
 import org.jetlinks.core.monitor.logger.Logger;
+import org.jetlinks.core.monitor.metrics.Metrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
@@ -17,6 +18,7 @@ import org.mockito.MockitoAnnotations;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -163,16 +165,26 @@ class AbstractPointSubscriptionTest {
         subscription.subscribe(pointIds);
         assertTrue(subscribeLatch.await(5, TimeUnit.SECONDS));
 
-        // 执行重新加载
-        CountDownLatch reloadLatch = new CountDownLatch(pointIds.size());
+        // 点位运行时未变化时保留订阅,只重新订阅发生变化的点位
+        CountDownLatch transferLatch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            transferLatch.countDown();
+            return null;
+        }).when(mockListener).onSubscriptionTransferred(eq(List.of("point-1")));
+        TestPointRuntime changed = new TestPointRuntime("point-2");
+        subscription.addMockRuntime("point-2", changed);
+
+        CountDownLatch reloadLatch = new CountDownLatch(1);
         subscription.setSubscribeCallback(() -> reloadLatch.countDown());
         subscription.reload();
 
         // 验证重新加载完成
         assertTrue(reloadLatch.await(5, TimeUnit.SECONDS));
+        assertTrue(transferLatch.await(5, TimeUnit.SECONDS));
         for (String pointId : pointIds) {
             assertTrue(subscription.subscribed(pointId));
         }
+        assertSame(changed, subscription.get("point-2").getPoint());
     }
 
     @Test
@@ -198,6 +210,24 @@ class AbstractPointSubscriptionTest {
         verify(subscription.monitor(), atLeastOnce()).logger();
     }
 
+    @Test
+    void testSubscribeTimeout() throws InterruptedException {
+        String pointId = "timeout-point";
+        TestPointRuntime runtime = new TestPointRuntime(pointId);
+        subscription.addMockRuntime(pointId, runtime);
+        subscription.timeout = Duration.ofMillis(100);
+        subscription.subscribeNever = true;
+
+        CountDownLatch unsubscribeLatch = new CountDownLatch(1);
+        subscription.setUnsubscribeCallback(unsubscribeLatch::countDown);
+        subscription.subscribe(Collections.singletonList(pointId));
+
+        //超时后尽力取消设备端的订阅
+        assertTrue(unsubscribeLatch.await(5, TimeUnit.SECONDS));
+        assertFalse(subscription.subscribed(pointId));
+        verify(mockListener).onSubscribeFailed(eq(pointId), any(java.util.concurrent.TimeoutException.class));
+    }
+
     @Test
     void testUnsubscribeWithError() throws InterruptedException {
         // 先订阅一个点位
@@ -349,6 +379,8 @@ class AbstractPointSubscriptionTest {
         private RuntimeException unsubscribeError;
         private Runnable subscribeCallback;
         private Runnable unsubscribeCallback;
+        private Duration timeout = Duration.ofSeconds(30);
+        private boolean subscribeNever;
         boolean disposed = false;
 
         public TestPointSubscription(PointListener listener) {
@@ -357,6 +389,7 @@ class AbstractPointSubscriptionTest {
             // 创建一个简单的日志记录器模拟
             Logger mockLogger = mock(Logger.class);
             when(monitor.logger()).thenReturn(mockLogger);
+            when(monitor.metrics()).thenReturn(Metrics.noop());
         }
 
         @Override
@@ -378,11 +411,22 @@ class AbstractPointSubscriptionTest {
             return new TestSubscribingPoint(runtime);
         }
 
+        @Override
+        protected Duration getTimeout() {
+            return timeout;
+        }
+
         @Override
         protected Mono<Void> subscribe(List<TestSubscribingPoint> subscribing) {
             if (subscribeError != null) {
                 return Mono.error(subscribeError);
             }
+            if (subscribeNever) {
+                for (TestSubscribingPoint point : subscribing) {
+                    point.subscribed = true;
+                }
+                return Mono.never();
+            }
 
             return Mono.fromRunnable(() -> {
                 for (TestSubscribingPoint point : subscribing) {
@@ -0,0 +1,101 @@
+package org.jetlinks.collector.subscribe;
+
+import org.jetlinks.collector.PointData;
+import org.jetlinks.core.monitor.Monitor;
+import org.junit.jupiter.api.Test;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BatchingPointListener 单元测试
+ *
+ * @author zhouhao
+ */
+class BatchingPointListenerTest {
+
+    private static class CollectingListener implements PointListener {
+        final List<List<PointData>> batches = new ArrayList<>();
+
+        @Override
+        public void onDataReceived(PointData data) {
+            fail("should deliver in batch");
+        }
+
+        @Override
+        public void onDataReceived(List<PointData> data) {
+            batches.add(data);
+        }
+
+        @Override
+        public void onDataError(String pointId, org.jetlinks.collector.Result<?> result) {
+        }
+
+        @Override
+        public void onSubscribeFailed(String pointId, Throwable error) {
+        }
+    }
+
+    @Test
+    void testBatchBySize() {
+        CollectingListener target = new CollectingListener();
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+        BatchingPointListener listener = new BatchingPointListener(
+            target, Monitor.noop(), 10, Duration.ofHours(1), 1024, false, scheduler);
+        for (int i = 0; i < 25; i++) {
+            listener.onDataReceived(PointData.of("p" + i, null, i, null, 0));
+        }
+        scheduler.advanceTime();
+        assertEquals(2, target.batches.size());
+        listener.dispose();
+        assertEquals(3, target.batches.size());
+        assertEquals(5, target.batches.get(2).size());
+    }
+
+    @Test
+    void testConflate() {
+        CollectingListener target = new CollectingListener();
+        BatchingPointListener listener = new BatchingPointListener(
+            target, Monitor.noop(), 1000, Duration.ofHours(1), 8, true);
+        for (int i = 0; i < 100; i++) {
+            listener.onDataReceived(PointData.of("p" + (i % 2), null, i, null, 0));
+        }
+        listener.flush();
+        List<PointData> batch = target.batches.get(0);
+        //缓冲区中的8个数据 + 每个点位最新的值
+        assertEquals(10, batch.size());
+        assertEquals(Set.of(98, 99), Set.of(batch.get(8).getParsedData(), batch.get(9).getParsedData()));
+        assertEquals(90, listener.getConflated());
+        listener.dispose();
+    }
+
+    @Test
+    void testConflateOrder() {
+        CollectingListener target = new CollectingListener();
+        BatchingPointListener listener = new BatchingPointListener(
+            target, Monitor.noop(), 1000, Duration.ofHours(1), 4, true);
+        for (int i = 0; i < 10; i++) {
+            listener.onDataReceived(PointData.of("p", null, i, null, 0));
+        }
+        listener.flush();
+        //合并区未分发前,缓冲区有空间也不能写入新的值
+        listener.onDataReceived(PointData.of("p", null, 10, null, 0));
+        listener.flush();
+        listener.onDataReceived(PointData.of("p", null, 11, null, 0));
+        listener.flush();
+
+        List<Object> values = new ArrayList<>();
+        for (List<PointData> batch : target.batches) {
+            for (PointData data : batch) {
+                values.add(data.getParsedData());
+            }
+        }
+        assertEquals(List.of(0, 1, 2, 3, 9, 10, 11), values);
+        listener.dispose();
+    }
+}
@@ -0,0 +1,100 @@
+package org.jetlinks.collector.subscribe;
+
+import org.jetlinks.collector.PointData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * MultiplexPointSubscription 单元测试
+ *
+ * @author zhouhao
+ */
+class MultiplexPointSubscriptionTest {
+
+    @Test
+    void testReferenceCount() {
+        PointSubscription target = mock(PointSubscription.class);
+        PointListener[] dispatcher = new PointListener[1];
+        MultiplexPointSubscription multiplex = new MultiplexPointSubscription(listener -> {
+            dispatcher[0] = listener;
+            return target;
+        });
+
+        PointListener l1 = mock(PointListener.class), l2 = mock(PointListener.class);
+        PointSubscription s1 = multiplex.createSubscription(l1);
+        PointSubscription s2 = multiplex.createSubscription(l2);
+
+        s1.subscribe(List.of("p1", "p2"));
+        s2.subscribe(List.of("p1"));
+        verify(target).subscribe(List.of("p1", "p2"));
+        verify(target, times(1)).subscribe(any());
+        assertEquals(2, multiplex.getReferences("p1"));
+
+        //数据分发给所有订阅的监听器,不复制
+        PointData data = PointData.of("p1", null, 1, null, 0);
+        dispatcher[0].onDataReceived(data);
+        verify(l1).onDataReceived(same(data));
+        verify(l2).onDataReceived(same(data));
+
+        //最后一个监听器取消订阅时才向设备取消订阅
+        s2.dispose();
+        verify(target, never()).unsubscribe(any());
+        s1.unsubscribe(List.of("p1"));
+        verify(target).unsubscribe(List.of("p1"));
+        assertEquals(0, multiplex.getReferences("p1"));
+    }
+
+    @Test
+    void testHandleReload() {
+        PointSubscription target = mock(PointSubscription.class);
+        MultiplexPointSubscription multiplex = new MultiplexPointSubscription(listener -> target);
+
+        PointSubscription s1 = multiplex.createSubscription(mock(PointListener.class));
+        PointSubscription s2 = multiplex.createSubscription(mock(PointListener.class));
+        s1.subscribe(List.of("p1"));
+        s2.subscribe(List.of("p1", "p2"));
+
+        //按差异重新加载,不中断其他监听器
+        s1.reload();
+        verify(target).reload();
+        verify(target, never()).unsubscribe(any());
+        verify(target, times(1)).subscribe(List.of("p1"));
+
+        multiplex.reload();
+        verify(target, times(2)).reload();
+    }
+
+    @Test
+    void testSubscribeFailed() {
+        PointSubscription target = mock(PointSubscription.class);
+        PointListener[] dispatcher = new PointListener[1];
+        MultiplexPointSubscription multiplex = new MultiplexPointSubscription(listener -> {
+            dispatcher[0] = listener;
+            return target;
+        });
+        PointListener l1 = mock(PointListener.class);
+        PointSubscription s1 = multiplex.createSubscription(l1);
+        s1.subscribe(List.of("p1"));
+
+        //订阅失败时保留引用
+        RuntimeException error = new RuntimeException();
+        dispatcher[0].onSubscribeFailed("p1", error);
+        verify(l1).onSubscribeFailed("p1", error);
+        assertEquals(1, multiplex.getReferences("p1"));
+
+        //设备端重试成功后继续分发
+        PointData data = PointData.of("p1", null, 1, null, 0);
+        dispatcher[0].onDataReceived(data);
+        verify(l1).onDataReceived(same(data));
+
+        //取消订阅时释放并向设备取消订阅
+        s1.dispose();
+        verify(target).unsubscribe(List.of("p1"));
+        assertEquals(0, multiplex.getReferences("p1"));
+    }
+}
@@ -0,0 +1,142 @@
+package org.jetlinks.collector.subscribe;
+
+import org.jetlinks.collector.Health;
+import org.jetlinks.collector.InternalStatusCode;
+import org.jetlinks.collector.PointData;
+import org.jetlinks.collector.Result;
+import org.jetlinks.core.monitor.Monitor;
+import org.junit.jupiter.api.Test;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ResubscribingPointSubscription 单元测试
+ *
+ * @author zhouhao
+ */
+class ResubscribingPointSubscriptionTest {
+
+    @Test
+    void testResubscribeAndHealth() {
+        PointSubscription target = mock(PointSubscription.class);
+        PointListener listener = mock(PointListener.class);
+        PointListener[] inner = new PointListener[1];
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+        ResubscribeProperties properties = new ResubscribeProperties();
+        properties.setResubscribeInitialBackoff(0);
+        properties.setResubscribeJitter(0);
+        properties.setStaleTimeout(60_000);
+
+        ResubscribingPointSubscription subscription = new ResubscribingPointSubscription(
+            l -> {
+                inner[0] = l;
+                return target;
+            },
+            listener,
+            Monitor.noop(),
+            properties,
+            scheduler);
+
+        subscription.subscribe(List.of("p1", "p2"));
+        inner[0].onDataReceived(PointData.of("p1", null, 1, null, 0));
+        inner[0].onSubscribeFailed("p2", new RuntimeException());
+        verify(listener).onSubscribeFailed(eq("p2"), any());
+
+        Result<Health> health = subscription.health().block();
+        assertNotNull(health);
+        assertEquals(0.5, health.getData().getHealth());
+        assertEquals(InternalStatusCode.Uncertain_SubNormal.getCode(), health.getCode());
+
+        //失败的点位将重新订阅
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        verify(target).subscribe(List.of("p2"));
+
+        inner[0].onDataReceived(List.of(PointData.of("p2", null, 1, null, 0)));
+        health = subscription.health().block();
+        assertNotNull(health);
+        assertEquals(1, health.getData().getHealth());
+        assertTrue(health.isSuccess());
+
+        subscription.dispose();
+        verify(target).dispose();
+    }
+
+    @Test
+    void testQuietPointIsActive() {
+        PointSubscription target = mock(PointSubscription.class);
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+        ResubscribingPointSubscription subscription = new ResubscribingPointSubscription(
+            l -> target,
+            mock(PointListener.class),
+            Monitor.noop(),
+            new ResubscribeProperties(),
+            scheduler);
+
+        subscription.subscribe(List.of("p1"));
+        Result<Health> health = subscription.health().block();
+        assertNotNull(health);
+        assertEquals(0, health.getData().getHealth());
+
+        //已订阅但未上报数据
+        when(target.subscribed("p1")).thenReturn(true);
+        health = subscription.health().block();
+        assertNotNull(health);
+        assertEquals(1, health.getData().getHealth());
+
+        subscription.dispose();
+    }
+
+    @Test
+    void testResubscribeWithMultiplex() {
+        PointSubscription target = mock(PointSubscription.class);
+        PointListener[] inner = new PointListener[1];
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+        ResubscribeProperties properties = new ResubscribeProperties();
+        properties.setResubscribeInitialBackoff(0);
+        properties.setResubscribeJitter(0);
+
+        MultiplexPointSubscription multiplex = new MultiplexPointSubscription(
+            dispatcher -> new ResubscribingPointSubscription(
+                l -> {
+                    inner[0] = l;
+                    return target;
+                },
+                dispatcher,
+                Monitor.noop(),
+                properties,
+                scheduler));
+        PointListener l1 = mock(PointListener.class), l2 = mock(PointListener.class);
+        PointSubscription s1 = multiplex.createSubscription(l1);
+        PointSubscription s2 = multiplex.createSubscription(l2);
+        s1.subscribe(List.of("p1"));
+        s2.subscribe(List.of("p1"));
+
+        inner[0].onSubscribeFailed("p1", new RuntimeException());
+        verify(l1).onSubscribeFailed(eq("p1"), any());
+        verify(l2).onSubscribeFailed(eq("p1"), any());
+
+        //重试成功后数据分发给所有监听器
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        verify(target, times(2)).subscribe(List.of("p1"));
+        PointData data = PointData.of("p1", null, 1, null, 0);
+        inner[0].onDataReceived(data);
+        verify(l1).onDataReceived(same(data));
+        verify(l2).onDataReceived(same(data));
+
+        //所有监听器取消订阅后不再重试
+        s1.dispose();
+        s2.dispose();
+        verify(target).unsubscribe(List.of("p1"));
+        inner[0].onSubscribeFailed("p1", new RuntimeException());
+        scheduler.advanceTimeBy(Duration.ofSeconds(10));
+        verify(target, times(2)).subscribe(List.of("p1"));
+
+        multiplex.dispose();
+    }
+}
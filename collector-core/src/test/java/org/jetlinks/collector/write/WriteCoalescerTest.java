@@ -0,0 +1,90 @@
+package org.jetlinks.collector.write;
+
+import org.jetlinks.collector.DataCollectorProvider;
+import org.jetlinks.collector.PointData;
+import org.jetlinks.collector.Result;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * WriteCoalescer 单元测试
+ *
+ * @author zhouhao
+ */
+class WriteCoalescerTest {
+
+    private DataCollectorProvider.PointRuntime point(String id) {
+        DataCollectorProvider.PointRuntime point = mock(DataCollectorProvider.PointRuntime.class);
+        when(point.getId()).thenReturn(id);
+        when(point.write(any())).thenAnswer(invocation -> Mono.just(Result.success(invocation.<PointData>getArgument(0))));
+        return point;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCoalesce() {
+        List<List<Tuple2<DataCollectorProvider.PointRuntime, PointData>>> batches = new ArrayList<>();
+        DataCollectorProvider.CollectorRuntime collector = mock(DataCollectorProvider.CollectorRuntime.class);
+        when(collector.write(anyList())).thenAnswer(invocation -> {
+            List<Tuple2<DataCollectorProvider.PointRuntime, PointData>> points = invocation.getArgument(0);
+            batches.add(points);
+            return Flux
+                .fromIterable(points)
+                .concatMap(tp2 -> tp2.getT1().write(tp2.getT2()));
+        });
+
+        WriteCoalescer coalescer = new WriteCoalescer(collector, Duration.ofMillis(50), 100);
+        DataCollectorProvider.PointRuntime p1 = point("p1"), p2 = point("p2");
+
+        List<Result<PointData>> results = Flux
+            .merge(coalescer.write(p1, PointData.of("p1", null, 1, null, 0)),
+                   coalescer.write(p2, PointData.of("p2", null, 2, null, 0)),
+                   coalescer.write(p1, PointData.of("p1", null, 3, null, 0)))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertNotNull(results);
+        assertEquals(3, results.size());
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+        //只写入最后一次的值
+        assertEquals(3, batches.get(0).get(0).getT2().getParsedData());
+        for (Result<PointData> result : results) {
+            assertTrue(result.isSuccess());
+        }
+    }
+
+    @Test
+    void testMatchByPointId() {
+        DataCollectorProvider.CollectorRuntime collector = mock(DataCollectorProvider.CollectorRuntime.class);
+        //结果顺序与写入顺序不一致
+        when(collector.write(anyList())).thenReturn(Flux.just(
+            Result.<PointData>error(new IllegalStateException("p2")).withPointId("p2"),
+            Result.success(PointData.of("p1", null, 1, null, 0))));
+
+        WriteCoalescer coalescer = new WriteCoalescer(collector, Duration.ofMillis(50), 100);
+        Mono<Result<PointData>> r1 = coalescer.write(point("p1"), PointData.of("p1", null, 1, null, 0)).cache();
+        Mono<Result<PointData>> r2 = coalescer.write(point("p2"), PointData.of("p2", null, 2, null, 0)).cache();
+        r1.subscribe();
+        r2.subscribe();
+        coalescer.flush();
+
+        Result<PointData> result1 = r1.block(Duration.ofSeconds(5));
+        Result<PointData> result2 = r2.block(Duration.ofSeconds(5));
+        assertNotNull(result1);
+        assertNotNull(result2);
+        assertTrue(result1.isSuccess());
+        assertFalse(result2.isSuccess());
+    }
+}
@@ -0,0 +1,169 @@
+package org.jetlinks.collector.plugin;
+
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import jakarta.annotation.Nullable;
+import org.jetlinks.collector.plugin.tcp.IntSequencedPayload;
+import org.jetlinks.collector.plugin.tcp.PendingRequestTable;
+import org.jetlinks.core.enums.ErrorCode;
+import org.jetlinks.core.exception.DeviceOperationException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.netty.Connection;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于int序列号的收发tcp客户端实现,适用于序列号范围固定的协议,如: modbus tcp 的16位事务标识.
+ * <p>
+ * 等待响应的请求保存在以序列号为下标的数组中,序列号循环分配并跳过仍在等待响应的序列号.
+ * 请求超时由共享的时间轮处理,超时后的序列号在{@link AbstractTcpClientLifecycle#getRequestTimeout()}内不再分配,
+ * 迟到的响应将被丢弃.
+ * <p>
+ * 可通过{@link AbstractTcpClientLifecycle#getMaxInFlight()}限制同时等待响应的请求数量.
+ *
+ * @param <REQ> 请求体类型
+ * @param <RES> 响应体类型
+ * @author zhouhao
+ * @see PendingRequestTable
+ * @since 1.0.1
+ */
+public abstract class AbstractIntSequencedTcpClientLifecycle<REQ, RES extends IntSequencedPayload> extends AbstractTcpClientLifecycle {
+
+    private final PendingRequestTable<PendingRequest> pendingRequests;
+
+    protected AbstractIntSequencedTcpClientLifecycle() {
+        this(16);
+    }
+
+    /**
+     * @param sequenceBits 序列号位数
+     */
+    protected AbstractIntSequencedTcpClientLifecycle(int sequenceBits) {
+        this.pendingRequests = new PendingRequestTable<>(sequenceBits);
+    }
+
+    /**
+     * 初始化连接前，用于添加粘拆包策略、编解码器等
+     */
+    protected Mono<Void> beforeInitConnection(Connection connection) {
+        return Mono.empty();
+    }
+
+    /**
+     * 初始化连接后，用于发送连接认证报文等
+     */
+    protected Mono<Void> afterInitConnection(Connection connection) {
+        return Mono.empty();
+    }
+
+    /**
+     * 处理接收数据
+     *
+     * @param payload 接收数据
+     * @return 响应数据
+     */
+    protected abstract @Nullable RES handleInbound(Object payload);
+
+    /**
+     * 处理发送数据
+     *
+     * @param number  序列号
+     * @param payload 请求数据
+     * @return 发送数据
+     */
+    protected abstract Object handleOutbound(int number, REQ payload);
+
+    /**
+     * @return 分配序列号时遇到仍在使用中的序列号次数
+     */
+    public long getSequenceCollisions() {
+        return pendingRequests.getCollisions();
+    }
+
+    @Override
+    protected Mono<Void> initConnection(Connection connection) {
+        return beforeInitConnection(connection)
+            .then(Mono.defer(() -> {
+                //接收消息
+                Disposable inbound = connection
+                    .inbound()
+                    .receiveObject()
+                    .doOnNext(v -> {
+                        RES payload = handleInbound(v);
+                        if (payload != null) {
+                            PendingRequest request = pendingRequests.remove(payload.getSequenceNumber());
+                            if (null != request) {
+                                request.sink.success(payload);
+                                return;
+                            }
+                        }
+                        ReferenceCountUtil.safeRelease(payload);
+                    })
+                    .subscribe();
+                connection.onDispose(inbound);
+                return afterInitConnection(connection);
+            }));
+    }
+
+    @Override
+    protected void stop0() {
+        super.stop0();
+        pendingRequests.clear(request -> request.sink.error(new DeviceOperationException(ErrorCode.CONNECTION_LOST)));
+    }
+
+    public Mono<RES> request(REQ request) {
+        return Mono
+            .<RES>create(sink -> {
+                PendingRequest pending = new PendingRequest(sink);
+                int number = pendingRequests.register(pending);
+                if (number < 0) {
+                    sink.error(new DeviceOperationException(ErrorCode.SYSTEM_BUSY));
+                    return;
+                }
+                pending.number = number;
+                Duration timeout = getRequestTimeout();
+                if (!timeout.isNegative() && !timeout.isZero()) {
+                    pending.timeoutNanos = timeout.toNanos();
+                    pending.timeout = REQUEST_TIMER.newTimeout(pending, pending.timeoutNanos, TimeUnit.NANOSECONDS);
+                }
+                Disposable outbound = sendRequest(() -> handleOutbound(number, request), sink::error);
+
+                sink.onDispose(() -> {
+                    pending.dispose();
+                    outbound.dispose();
+                });
+
+            })
+            .as(tracer().traceMono("/tcp/request/"));
+    }
+
+    private class PendingRequest implements TimerTask {
+        private final MonoSink<RES> sink;
+        private int number;
+        private long timeoutNanos;
+        private volatile Timeout timeout;
+
+        PendingRequest(MonoSink<RES> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            //保留序列号,丢弃迟到的响应
+            if (pendingRequests.expire(number, this, timeoutNanos)) {
+                sink.error(new DeviceOperationException(ErrorCode.TIME_OUT));
+            }
+        }
+
+        void dispose() {
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            pendingRequests.remove(number, this);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package org.jetlinks.collector.plugin;
+
+import jakarta.annotation.Nullable;
+import org.jetlinks.collector.AbstractLifecycle;
+import org.jetlinks.collector.CollectorConstants;
+import org.jetlinks.core.enums.ErrorCode;
+import org.jetlinks.core.exception.DeviceOperationException;
+import org.jetlinks.collector.plugin.tcp.ConnectLimiter;
+import org.jetlinks.collector.plugin.tcp.PendingRequestTable;
+import org.jetlinks.collector.plugin.tcp.ReconnectPolicy;
+import org.jetlinks.collector.plugin.tcp.TcpClientResources;
+import org.jetlinks.core.monitor.logger.Logger;
+import org.jetlinks.core.monitor.metrics.Metrics;
+import org.jetlinks.core.monitor.tracer.Tracer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+import reactor.netty.tcp.TcpClient;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 基于连接池的tcp客户端实现,同时保持多个连接,请求分配到等待响应的请求最少的连接上.
+ * <p>
+ * 每个连接独立建立、初始化({@link AbstractPooledTcpClientLifecycle#initConnection(Connection)})和重连,
+ * 单个连接断开不影响其他连接处理请求.
+ *
+ * <p>
+ * 同一个连接上可能同时有多个请求等待响应,不能在每个请求中订阅{@code connection.inbound().receive()},
+ * 而应在{@link AbstractPooledTcpClientLifecycle#initConnection(Connection)}中只订阅一次,
+ * 通过协议中的序列号(如: modbus tcp 事务标识)将响应分发给对应的请求,见{@link PendingRequestTable}.
+ * 协议没有序列号时,需要自行保证每个连接同时只有一个请求等待响应.
+ *
+ * <pre>{@code
+ * private final PendingRequestTable<Sinks.One<ByteBuf>> pending = new PendingRequestTable<>(16);
+ *
+ * protected Mono<Void> initConnection(Connection connection) {
+ *     connection
+ *         .inbound()
+ *         .receive()
+ *         .retain()
+ *         .subscribe(response -> {
+ *             Sinks.One<ByteBuf> sink = pending.remove(response.getUnsignedShort(0));
+ *             if (sink == null || sink.tryEmitValue(response).isFailure()) {
+ *                 response.release();
+ *             }
+ *         });
+ *     return Mono.empty();
+ * }
+ *
+ * public Mono<ByteBuf> read(IntFunction<ByteBuf> encoder) {
+ *     return request(connection -> {
+ *         Sinks.One<ByteBuf> sink = Sinks.one();
+ *         int seq = pending.register(sink);
+ *         if (seq < 0) {
+ *             return Mono.error(new DeviceOperationException(ErrorCode.SYSTEM_BUSY));
+ *         }
+ *         return connection
+ *             .outbound()
+ *             .send(Mono.fromSupplier(() -> encoder.apply(seq)))
+ *             .then(sink.asMono())
+ *             .timeout(Duration.ofSeconds(10))
+ *             .doFinally(ignore -> pending.remove(seq, sink));
+ *     });
+ * }
+ * }</pre>
+ *
+ * @author zhouhao
+ * @see AbstractTcpClientLifecycle
+ * @see PendingRequestTable
+ * @since 1.0.1
+ */
+public abstract class AbstractPooledTcpClientLifecycle extends AbstractLifecycle {
+
+    private volatile Member[] members;
+
+    protected abstract Logger logger();
+
+    protected abstract Tracer tracer();
+
+    protected Metrics metrics() {
+        return Metrics.noop();
+    }
+
+    protected abstract TcpClient initClient();
+
+    /**
+     * 初始化连接,每个连接建立后调用,完成后连接才会被分配请求.
+     *
+     * @param connection 连接
+     * @return void
+     */
+    protected abstract Mono<Void> initConnection(Connection connection);
+
+    /**
+     * 连接池大小
+     */
+    protected int getPoolSize() {
+        return 2;
+    }
+
+    /**
+     * 重连策略,每个连接独立计算重连次数.
+     */
+    protected ReconnectPolicy getReconnectPolicy() {
+        return ReconnectPolicy.DEFAULT;
+    }
+
+    /**
+     * 连接速率限制,默认为全局限制.
+     */
+    protected ConnectLimiter getConnectLimiter() {
+        return ConnectLimiter.global();
+    }
+
+    /**
+     * 是否使用所有采集器共享的事件循环资源,启用时每个连接固定在各自的事件循环上.
+     *
+     * 默认不启用,启用时{@link #initClient()}中对事件循环的配置将被覆盖.
+     *
+     * @see TcpClientResources
+     */
+    protected boolean isSharedLoopResources() {
+        return false;
+    }
+
+    /**
+     * 是否重连
+     *
+     * @param lastError 上次连接错误
+     * @return 是否重连
+     */
+    protected boolean isReconnect(@Nullable Throwable lastError) {
+        return true;
+    }
+
+    @Override
+    protected void start0() {
+        Member[] members = new Member[Math.max(1, getPoolSize())];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new Member(i);
+        }
+        this.members = members;
+        for (Member member : members) {
+            member.reconnect(false);
+        }
+    }
+
+    @Override
+    protected void stop0() {
+        Member[] members = this.members;
+        if (members != null) {
+            for (Member member : members) {
+                member.dispose();
+            }
+        }
+    }
+
+    /**
+     * 使用连接池中的连接执行请求,请求将分配到等待响应的请求最少的连接上.
+     *
+     * @param handler 请求处理器
+     * @param <T>     响应类型
+     * @return 响应
+     */
+    protected final <T> Mono<T> request(Function<Connection, Mono<T>> handler) {
+        return Mono.defer(() -> {
+            Member member = select();
+            if (member == null) {
+                return Mono.error(() -> new DeviceOperationException(ErrorCode.CONNECTION_LOST));
+            }
+            member.inFlight.incrementAndGet();
+            return member
+                .connect()
+                .flatMap(handler)
+                .doFinally(ignore -> member.inFlight.decrementAndGet());
+        });
+    }
+
+    /**
+     * @return 可用的连接数量
+     */
+    public int getActiveConnections() {
+        Member[] members = this.members;
+        int active = 0;
+        if (members != null) {
+            for (Member member : members) {
+                if (member.isAvailable()) {
+                    active++;
+                }
+            }
+        }
+        return active;
+    }
+
+    private Member select() {
+        Member[] members = this.members;
+        if (members == null || isStopped()) {
+            return null;
+        }
+        //随机起点,避免负载相同时总是选择第一个连接
+        int start = members.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(members.length);
+        Member selected = null, fallback = null;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < members.length; i++) {
+            Member member = members[(start + i) % members.length];
+            if (!member.isAvailable()) {
+                if (fallback == null && !member.exhausted) {
+                    fallback = member;
+                }
+                continue;
+            }
+            int inFlight = member.inFlight.get();
+            if (inFlight < min) {
+                min = inFlight;
+                selected = member;
+            }
+        }
+        //没有可用的连接时等待连接建立,所有连接都已超过重连次数时返回null
+        return selected == null ? fallback : selected;
+    }
+
+    private boolean isStopped() {
+        return CollectorConstants.States.stopped.equals(state()) || isDisposed();
+    }
+
+    private class Member implements Disposable {
+        private final int index;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicReference<Sinks.One<Connection>> connecting = new AtomicReference<>();
+        private volatile Connection connection;
+        private volatile Disposable reconnecting;
+        private volatile TcpClientResources.Pinned pinned;
+        private volatile boolean disposed;
+        //已超过重连次数,不再建立连接
+        private volatile boolean exhausted;
+        private final AtomicInteger retryNumber = new AtomicInteger();
+        private Throwable lastError;
+
+        Member(int index) {
+            this.index = index;
+        }
+
+        boolean isAvailable() {
+            Connection connection = this.connection;
+            return connection != null && !connection.isDisposed();
+        }
+
+        Mono<Connection> connect() {
+            for (; ; ) {
+                Connection connection = this.connection;
+                if (connection != null && !connection.isDisposed()) {
+                    return Mono.just(connection);
+                }
+                if (disposed || exhausted || isStopped()) {
+                    return Mono.error(() -> new DeviceOperationException(ErrorCode.CONNECTION_LOST));
+                }
+                Sinks.One<Connection> current = connecting.get();
+                if (current != null) {
+                    return current.asMono();
+                }
+                Sinks.One<Connection> sink = Sinks.one();
+                if (connecting.compareAndSet(null, sink)) {
+                    doConnect(sink);
+                    return sink.asMono();
+                }
+            }
+        }
+
+        private void doConnect(Sinks.One<Connection> sink) {
+            logger().debug("连接池[{}]开始第{}次连接tcp服务", index, retryNumber.getAndIncrement());
+            long[] startTime = new long[1];
+            getConnectLimiter()
+                .acquire()
+                .then(Mono.defer(() -> {
+                    startTime[0] = System.nanoTime();
+                    return client().connect();
+                }))
+                .cast(Connection.class)
+                .doOnNext(ignore -> metrics().value(
+                    CollectorConstants.Metrics.connectTime,
+                    (System.nanoTime() - startTime[0]) / 1_000_000D))
+                .flatMap(c -> initConnection(c)
+                    .thenReturn(c)
+                    //初始化失败时关闭连接,避免泄漏
+                    .onErrorResume(err -> {
+                        c.dispose();
+                        return Mono.error(err);
+                    }))
+                .as(tracer().traceMono("/tcp/connect"))
+                .subscribe(
+                    c -> {
+                        logger().debug("连接池[{}]tcp服务连接成功", index);
+                        retryNumber.set(0);
+                        lastError = null;
+                        this.connection = c;
+                        c.onDispose(() -> disconnected(c));
+                        if (disposed) {
+                            c.dispose();
+                        }
+                        connecting.compareAndSet(sink, null);
+                        sink.tryEmitValue(c);
+                    },
+                    err -> {
+                        logger().warn("连接池[{}]tcp服务连接失败", index, err);
+                        lastError = err;
+                        connecting.compareAndSet(sink, null);
+                        sink.tryEmitError(err);
+                        reconnect();
+                    });
+        }
+
+        private TcpClient client() {
+            TcpClient client = initClient();
+            if (!isSharedLoopResources()) {
+                return client;
+            }
+            TcpClientResources.Pinned pinned = this.pinned;
+            if (pinned == null) {
+                synchronized (this) {
+                    pinned = this.pinned;
+                    if (pinned == null) {
+                        this.pinned = pinned = TcpClientResources.global().pin();
+                    }
+                }
+            }
+            return pinned.configure(client);
+        }
+
+        private void disconnected(Connection c) {
+            if (connection != c || disposed || isStopped()) {
+                return;
+            }
+            logger().warn("连接池[{}]tcp服务连接断开", index);
+            reconnect();
+        }
+
+        void reconnect() {
+            reconnect(true);
+        }
+
+        /**
+         * @param reconnect 是否为重连,启动时的首次连接不计入重连次数
+         */
+        void reconnect(boolean reconnect) {
+            if (disposed || isStopped() || !isReconnect(lastError)) {
+                return;
+            }
+            int attempt = retryNumber.get();
+            Duration delay = getReconnectPolicy().nextDelay(attempt);
+            if (delay == null) {
+                logger().warn("连接池[{}]tcp服务连接重试次数超过最大值[{}]", index, attempt);
+                exhausted = true;
+                return;
+            }
+            if (reconnect) {
+                metrics().count(CollectorConstants.Metrics.reconnect, 1);
+            }
+            if (!delay.isZero()) {
+                logger().info("连接池[{}]tcp服务将在{}毫秒后重连", index, delay.toMillis());
+            }
+            Disposable old = this.reconnecting;
+            this.reconnecting = Mono
+                .delay(delay)
+                .flatMap(ignore -> connect())
+                .subscribe(ignore -> {
+                }, ignore -> {
+                });
+            if (old != null) {
+                old.dispose();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+            Disposable reconnecting = this.reconnecting;
+            if (reconnecting != null) {
+                reconnecting.dispose();
+            }
+            Connection connection = this.connection;
+            if (connection != null) {
+                connection.dispose();
+            }
+            Sinks.One<Connection> sink = connecting.getAndSet(null);
+            if (sink != null) {
+                sink.tryEmitError(new DeviceOperationException(ErrorCode.CONNECTION_LOST));
+            }
+            TcpClientResources.Pinned pinned = this.pinned;
+            if (pinned != null) {
+                pinned.dispose();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
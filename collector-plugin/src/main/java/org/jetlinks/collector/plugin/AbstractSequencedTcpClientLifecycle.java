@@ -1,6 +1,7 @@
 package org.jetlinks.collector.plugin;
 
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.Timeout;
 import jakarta.annotation.Nullable;
 import org.hswebframework.ezorm.core.CastUtil;
 import org.jetlinks.collector.plugin.tcp.SequencedPayload;
@@ -11,12 +12,16 @@ import reactor.core.publisher.Mono;
 import reactor.core.publisher.MonoSink;
 import reactor.netty.Connection;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * 基于序列号的收发tcp客户端实现
+ * <p>
+ * 序列号为16位等固定范围的整数时,可使用{@link AbstractIntSequencedTcpClientLifecycle}.
  *
  * @param <REQ> 请求体类型
  * @param <RES> 响应体类型
@@ -115,16 +120,23 @@ public abstract class AbstractSequencedTcpClientLifecycle<REQ, RES extends Seque
             .<RES>create(sink -> {
                 ID number = nextRequestSequenceNumber();
                 pendingRequests.put(number, sink);
-                @SuppressWarnings("all")
-                Disposable outbound = connect()
-                    .flatMap(c -> c
-                        .outbound()
-                        .sendObject(handleOutbound(number, request))
-                        .then())
-                    .subscribe(ignore -> {
-                    }, sink::error);
+                Duration timeout = getRequestTimeout();
+                Timeout timeoutTask = timeout.isNegative() || timeout.isZero()
+                    ? null
+                    : REQUEST_TIMER.newTimeout(
+                    task -> {
+                        if (pendingRequests.remove(number, sink)) {
+                            sink.error(new DeviceOperationException(ErrorCode.TIME_OUT));
+                        }
+                    },
+                    timeout.toNanos(),
+                    TimeUnit.NANOSECONDS);
+                Disposable outbound = sendRequest(() -> handleOutbound(number, request), sink::error);
 
                 sink.onDispose(() -> {
+                    if (timeoutTask != null) {
+                        timeoutTask.cancel();
+                    }
                     pendingRequests.remove(number, sink);
                     outbound.dispose();
                 });
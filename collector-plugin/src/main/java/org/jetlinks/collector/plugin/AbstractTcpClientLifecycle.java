@@ -1,11 +1,21 @@
 package org.jetlinks.collector.plugin;
 
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import jakarta.annotation.Nullable;
 import org.jetlinks.collector.AbstractLifecycle;
 import org.jetlinks.collector.CollectorConstants;
 import org.jetlinks.core.enums.ErrorCode;
 import org.jetlinks.core.exception.DeviceOperationException;
+import org.jetlinks.collector.plugin.tcp.ConnectLimiter;
+import org.jetlinks.collector.plugin.tcp.ReconnectPolicy;
+import org.jetlinks.collector.plugin.tcp.RequestWindow;
+import org.jetlinks.collector.plugin.tcp.TcpClientResources;
 import org.jetlinks.core.monitor.logger.Logger;
+import org.jetlinks.core.monitor.metrics.Metrics;
 import org.jetlinks.core.monitor.tracer.Tracer;
 import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
@@ -14,25 +24,56 @@ import reactor.netty.Connection;
 import reactor.netty.tcp.TcpClient;
 
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public abstract class AbstractTcpClientLifecycle extends AbstractLifecycle {
 
     static final AtomicReferenceFieldUpdater<AbstractTcpClientLifecycle, Sinks.One>
         CONNECTING = AtomicReferenceFieldUpdater.newUpdater(AbstractTcpClientLifecycle.class, Sinks.One.class, "connecting");
 
+    //所有连接共享的请求超时时间轮,请求响应后取消超时任务.
+    static final Timer REQUEST_TIMER = new HashedWheelTimer(
+        new DefaultThreadFactory("tcp-request-timeout", true),
+        10, TimeUnit.MILLISECONDS, 1024);
+
+    static final AttributeKey<FlushTask> FLUSH_TASK = AttributeKey.valueOf("collector-flush-task");
+
+    private final RequestWindow window = new RequestWindow(this::getMaxInFlight, Metrics.lazy(this::metrics));
+
     private volatile Connection connected;
     private volatile Sinks.One<Connection> connecting;
     private volatile Disposable connectionDisposable;
-    private int retryNumber;
+    private volatile TcpClientResources.Pinned pinned;
+    private final AtomicInteger retryNumber = new AtomicInteger();
     protected Throwable lastError;
 
     protected abstract Logger logger();
 
     protected abstract Tracer tracer();
 
+    protected Metrics metrics() {
+        return Metrics.noop();
+    }
+
     protected abstract TcpClient initClient();
 
+    /**
+     * 是否使用所有采集器共享的事件循环资源,启用时连接固定在同一个事件循环上.
+     * 返回false时使用{@link AbstractTcpClientLifecycle#initClient()}自定义的配置.
+     *
+     * 默认不启用,启用时{@link #initClient()}中对事件循环的配置将被覆盖.
+     *
+     * @see TcpClientResources
+     */
+    protected boolean isSharedLoopResources() {
+        return false;
+    }
+
     /**
      * 是否重连
      *
@@ -44,6 +85,22 @@ public abstract class AbstractTcpClientLifecycle extends AbstractLifecycle {
     }
 
 
+    /**
+     * 重连策略,默认为带随机抖动的指数退避.
+     *
+     * @see ReconnectPolicy#exponential(Duration, Duration, int)
+     */
+    protected ReconnectPolicy getReconnectPolicy() {
+        return ReconnectPolicy.DEFAULT;
+    }
+
+    /**
+     * 连接速率限制,默认为全局限制.
+     */
+    protected ConnectLimiter getConnectLimiter() {
+        return ConnectLimiter.global();
+    }
+
     /**
      * 最大连续重连次数,大于0生效
      */
@@ -51,12 +108,84 @@ public abstract class AbstractTcpClientLifecycle extends AbstractLifecycle {
         return -1;
     }
 
+    /**
+     * 请求超时时间,包含在请求窗口中排队的时间,小于等于0时不超时
+     */
+    protected Duration getRequestTimeout() {
+        return Duration.ofSeconds(30);
+    }
+
+    /**
+     * 最大同时等待响应的请求数量,超过时请求将排队等待,小于等于0时不限制.
+     */
+    protected int getMaxInFlight() {
+        return 0;
+    }
+
     protected abstract Mono<Void> initConnection(Connection connection);
 
+    /**
+     * 通过请求窗口发送请求,同一事件循环中写出的请求将合并为一次flush.
+     *
+     * @param payload 获取发送数据,在请求实际发送时调用
+     * @param onError 发送失败回调
+     * @return 请求, 请求完成后需要调用{@link Disposable#dispose()}释放窗口
+     * @see AbstractTcpClientLifecycle#getMaxInFlight()
+     */
+    protected final Disposable sendRequest(Supplier<Object> payload, Consumer<Throwable> onError) {
+        return window.submit(
+            () -> connect()
+                .subscribe(
+                    c -> write(c.channel(), payload.get(), onError),
+                    onError));
+    }
+
+    private void write(Channel channel, Object payload, Consumer<Throwable> onError) {
+        channel
+            .write(payload)
+            .addListener(future -> {
+                if (!future.isSuccess()) {
+                    onError.accept(future.cause());
+                }
+            });
+        FlushTask task = channel.attr(FLUSH_TASK).get();
+        if (task == null) {
+            FlushTask newTask = new FlushTask(channel);
+            task = channel.attr(FLUSH_TASK).setIfAbsent(newTask);
+            if (task == null) {
+                task = newTask;
+            }
+        }
+        task.schedule();
+    }
+
+    /**
+     * 合并flush,在事件循环的当前任务执行完成后flush一次.
+     */
+    static class FlushTask extends AtomicBoolean implements Runnable {
+        private final Channel channel;
+
+        FlushTask(Channel channel) {
+            this.channel = channel;
+        }
+
+        void schedule() {
+            if (compareAndSet(false, true)) {
+                channel.eventLoop().execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            set(false);
+            channel.flush();
+        }
+    }
+
 
     @Override
     protected void start0() {
-        tryReconnect();
+        tryReconnect(false);
     }
 
 
@@ -71,12 +200,50 @@ public abstract class AbstractTcpClientLifecycle extends AbstractLifecycle {
         if (connecting != null) {
             connecting.tryEmitError(new DeviceOperationException(ErrorCode.CONNECTION_LOST));
         }
+        TcpClientResources.Pinned pinned = this.pinned;
+        if (pinned != null) {
+            this.pinned = null;
+            pinned.dispose();
+        }
+    }
+
+    private TcpClient client() {
+        TcpClient client = initClient();
+        if (!isSharedLoopResources()) {
+            return client;
+        }
+        TcpClientResources.Pinned pinned = this.pinned;
+        if (pinned == null) {
+            synchronized (this) {
+                pinned = this.pinned;
+                if (pinned == null) {
+                    this.pinned = pinned = TcpClientResources.global().pin();
+                }
+            }
+        }
+        return pinned.configure(client);
     }
 
     private void tryReconnect() {
-        long duration = retryNumber * 2L;
-        logger().info("tcp服务将在{}秒后重连", duration);
-        Mono.delay(Duration.ofSeconds(duration))
+        tryReconnect(true);
+    }
+
+    /**
+     * @param reconnect 是否为重连,启动时的首次连接不计入重连次数
+     */
+    private void tryReconnect(boolean reconnect) {
+        int attempt = retryNumber.get();
+        Duration delay = getReconnectPolicy().nextDelay(attempt);
+        if (delay == null) {
+            logger().warn("tcp服务连接重试次数超过最大值[{}]", attempt);
+            dispose();
+            return;
+        }
+        if (reconnect) {
+            metrics().count(CollectorConstants.Metrics.reconnect, 1);
+        }
+        logger().info("tcp服务将在{}毫秒后重连", delay.toMillis());
+        Mono.delay(delay)
             .then(Mono.defer(this::connect))
             .flatMap(this::initConnection)
             .subscribe();
@@ -137,20 +304,29 @@ public abstract class AbstractTcpClientLifecycle extends AbstractLifecycle {
 
         //超过重试次数
         if (this.getMaxRetryNumber() > 0
-            && retryNumber >= this.getMaxRetryNumber()) {
+            && retryNumber.get() >= this.getMaxRetryNumber()) {
             logger().warn("tcp服务连接重试次数超过最大值[{}]", this.getMaxRetryNumber());
             dispose();
             return Mono.empty();
         }
-        logger().debug("开始第{}次连接tcp服务", retryNumber++);
-        return initClient()
-            .doOnConnected(this::connected)
-            .connect()
-            .cast(Connection.class);
+        logger().debug("开始第{}次连接tcp服务", retryNumber.getAndIncrement());
+        //限制同时建立连接的速率,避免大量客户端同时重连
+        return getConnectLimiter()
+            .acquire()
+            .then(Mono.defer(() -> {
+                long startTime = System.nanoTime();
+                return client()
+                    .doOnConnected(this::connected)
+                    .connect()
+                    .cast(Connection.class)
+                    .doOnNext(ignore -> metrics().value(
+                        CollectorConstants.Metrics.connectTime,
+                        (System.nanoTime() - startTime) / 1_000_000D));
+            }));
     }
 
     private synchronized void connected(Connection connected) {
-        retryNumber = 0;
+        retryNumber.set(0);
         if (this.connected != null) {
             this.connected.dispose();
         }
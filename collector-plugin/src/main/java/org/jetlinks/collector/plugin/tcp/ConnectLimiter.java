@@ -0,0 +1,73 @@
+package org.jetlinks.collector.plugin.tcp;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 连接速率限制(令牌桶),避免大量客户端同时建立连接.
+ * <p>
+ * 全局限制可通过系统属性配置:
+ * <ul>
+ *     <li>jetlinks.collector.tcp.connect-rate: 每秒允许的连接次数,默认50</li>
+ *     <li>jetlinks.collector.tcp.connect-burst: 允许的突发连接次数,默认50</li>
+ * </ul>
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+public class ConnectLimiter {
+
+    private static final ConnectLimiter GLOBAL = new ConnectLimiter(
+        Integer.getInteger("jetlinks.collector.tcp.connect-rate", 50),
+        Integer.getInteger("jetlinks.collector.tcp.connect-burst", 50));
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    //下一个令牌可用的时间
+    private final AtomicLong next;
+
+    public ConnectLimiter(int permitsPerSecond, int burst) {
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, permitsPerSecond);
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.next = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    public static ConnectLimiter global() {
+        return GLOBAL;
+    }
+
+    /**
+     * 预留一个令牌
+     *
+     * @return 需要等待的时间
+     */
+    public Duration reserve() {
+        for (; ; ) {
+            long now = System.nanoTime();
+            long current = next.get();
+            long earliest = now - burstNanos;
+            long start = current - earliest < 0 ? earliest : current;
+            if (next.compareAndSet(current, start + intervalNanos)) {
+                long wait = start + intervalNanos - now;
+                return wait > 0 ? Duration.ofNanos(wait) : Duration.ZERO;
+            }
+        }
+    }
+
+    /**
+     * 获取令牌,令牌不足时延迟到令牌可用.在订阅时才预留令牌,每次订阅(如重试)都会重新预留.
+     *
+     * @return void
+     */
+    public Mono<Void> acquire() {
+        return Mono.defer(() -> {
+            Duration wait = reserve();
+            return wait.isZero() ? Mono.<Void>empty() : Mono.delay(wait).then();
+        });
+    }
+}
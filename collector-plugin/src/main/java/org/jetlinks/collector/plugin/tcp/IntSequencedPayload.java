@@ -0,0 +1,14 @@
+package org.jetlinks.collector.plugin.tcp;
+
+/**
+ * 使用int类型序列号的报文,如: modbus tcp 事务标识.
+ *
+ * @author zhouhao
+ * @see PendingRequestTable
+ * @since 1.0.1
+ */
+public interface IntSequencedPayload {
+
+    int getSequenceNumber();
+
+}
@@ -0,0 +1,140 @@
+package org.jetlinks.collector.plugin.tcp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 以序列号为下标的等待响应请求表,适用于序列号范围固定的协议,如: 16位的modbus tcp 事务标识.
+ * <p>
+ * 序列号循环使用,分配时跳过仍在等待响应的序列号,避免序列号回绕时响应错配.
+ * 超时的请求可以通过{@link PendingRequestTable#expire(int, Object, long)}在一段时间内保留序列号,
+ * 以丢弃迟到的响应.
+ *
+ * @param <T> 请求类型
+ * @author zhouhao
+ * @since 1.0.1
+ */
+public class PendingRequestTable<T> {
+
+    //分配序列号时最大尝试次数
+    static final int MAX_PROBE = 16;
+
+    private final AtomicReferenceArray<Object> slots;
+
+    private final int mask;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * @param bits 序列号位数,如: 16
+     */
+    public PendingRequestTable(int bits) {
+        if (bits <= 0 || bits > 24) {
+            throw new IllegalArgumentException("unsupported sequence bits: " + bits);
+        }
+        this.slots = new AtomicReferenceArray<>(1 << bits);
+        this.mask = (1 << bits) - 1;
+    }
+
+    /**
+     * 分配序列号并注册请求
+     *
+     * @param request 请求
+     * @return 序列号, 无可用序列号时返回-1
+     */
+    public int register(T request) {
+        long now = 0;
+        for (int i = 0; i < MAX_PROBE; i++) {
+            int seq = sequence.getAndIncrement() & mask;
+            Object current = slots.get(seq);
+            if (current instanceof Expired expired) {
+                if (now == 0) {
+                    now = System.nanoTime();
+                }
+                if (now - expired.until < 0) {
+                    collisions.increment();
+                    continue;
+                }
+            } else if (current != null) {
+                collisions.increment();
+                continue;
+            }
+            if (slots.compareAndSet(seq, current, request)) {
+                return seq;
+            }
+            collisions.increment();
+        }
+        return -1;
+    }
+
+    /**
+     * 移除请求
+     *
+     * @param sequence 序列号
+     * @return 请求, 不存在或者已超时时返回<code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    public T remove(int sequence) {
+        if ((sequence & ~mask) != 0) {
+            return null;
+        }
+        Object current = slots.getAndSet(sequence, null);
+        return current instanceof Expired ? null : (T) current;
+    }
+
+    /**
+     * 移除指定的请求
+     *
+     * @param sequence 序列号
+     * @param request  请求
+     * @return 是否移除成功
+     */
+    public boolean remove(int sequence, T request) {
+        return (sequence & ~mask) == 0 && slots.compareAndSet(sequence, request, null);
+    }
+
+    /**
+     * 将超时的请求标记为过期,在{@code holdNanos}内不再分配此序列号,迟到的响应将被丢弃.
+     *
+     * @param sequence  序列号
+     * @param request   请求
+     * @param holdNanos 保留时间
+     * @return 是否标记成功, 请求已被移除时返回<code>false</code>
+     */
+    public boolean expire(int sequence, T request, long holdNanos) {
+        return (sequence & ~mask) == 0
+            && slots.compareAndSet(sequence, request, new Expired(System.nanoTime() + holdNanos));
+    }
+
+    /**
+     * 移除所有请求
+     *
+     * @param consumer 被移除的请求
+     */
+    @SuppressWarnings("unchecked")
+    public void clear(Consumer<T> consumer) {
+        for (int i = 0, len = slots.length(); i < len; i++) {
+            if (slots.get(i) == null) {
+                continue;
+            }
+            Object current = slots.getAndSet(i, null);
+            if (current != null && !(current instanceof Expired)) {
+                consumer.accept((T) current);
+            }
+        }
+    }
+
+    /**
+     * @return 分配序列号时遇到仍在使用中的序列号次数
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    private record Expired(long until) {
+    }
+}
@@ -0,0 +1,54 @@
+package org.jetlinks.collector.plugin.tcp;
+
+import jakarta.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 重连策略
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+@FunctionalInterface
+public interface ReconnectPolicy {
+
+    /**
+     * 默认策略: 从1秒开始指数退避,最大1分钟,不限制重连次数.
+     */
+    ReconnectPolicy DEFAULT = exponential(Duration.ofSeconds(1), Duration.ofMinutes(1), -1);
+
+    /**
+     * 获取下一次重连的延迟
+     *
+     * @param attempt 连续失败次数,从0开始
+     * @return 延迟, 返回<code>null</code>时不再重连
+     */
+    @Nullable
+    Duration nextDelay(int attempt);
+
+    /**
+     * 带随机抖动的指数退避策略,延迟在[0,min(max,base*2^(attempt-1))]之间随机,避免大量客户端同时重连.
+     *
+     * @param base        初始延迟
+     * @param max         最大延迟
+     * @param maxAttempts 最大连续重连次数,小于等于0时不限制
+     * @return 重连策略
+     */
+    static ReconnectPolicy exponential(Duration base, Duration max, int maxAttempts) {
+        long baseMillis = Math.max(1, base.toMillis());
+        long maxMillis = Math.max(baseMillis, max.toMillis());
+        return attempt -> {
+            if (maxAttempts > 0 && attempt >= maxAttempts) {
+                return null;
+            }
+            if (attempt <= 0) {
+                return Duration.ZERO;
+            }
+            int shift = Math.min(attempt - 1, Long.numberOfLeadingZeros(baseMillis) - 1);
+            long cap = Math.min(maxMillis, baseMillis << shift);
+            return Duration.ofMillis(ThreadLocalRandom.current().nextLong(cap + 1));
+        };
+    }
+}
@@ -0,0 +1,157 @@
+package org.jetlinks.collector.plugin.tcp;
+
+import org.jetlinks.collector.CollectorConstants;
+import org.jetlinks.core.monitor.metrics.Metrics;
+import reactor.core.Disposable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.IntSupplier;
+
+/**
+ * 请求窗口,限制同时等待响应的请求数量,超过时排队等待.
+ * <p>
+ * 排队和等待响应的请求数量最多每秒上报一次,数量降为0时立即上报,避免请求停止后指标停留在之前的值.
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+public class RequestWindow {
+
+    static final AtomicIntegerFieldUpdater<RequestWindow> WIP =
+        AtomicIntegerFieldUpdater.newUpdater(RequestWindow.class, "wip");
+
+    static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final IntSupplier maxInFlight;
+
+    private final Metrics metrics;
+
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int wip;
+
+    private volatile long lastReport;
+
+    private volatile int reportedQueued, reportedInFlight;
+
+    /**
+     * @param maxInFlight 最大同时等待响应的请求数量,小于等于0时不限制.
+     * @param metrics     监控
+     */
+    public RequestWindow(IntSupplier maxInFlight, Metrics metrics) {
+        this.maxInFlight = maxInFlight;
+        this.metrics = metrics;
+        this.lastReport = System.nanoTime() - REPORT_INTERVAL;
+    }
+
+    /**
+     * 提交请求,窗口未满时立即发送.
+     * <p>
+     * 请求完成后需要调用返回值的{@link Disposable#dispose()}释放窗口,未发送的请求将被取消.
+     *
+     * @param send 发送请求
+     * @return 请求
+     */
+    public Disposable submit(Runnable send) {
+        Entry entry = new Entry(send);
+        queued.incrementAndGet();
+        queue.add(entry);
+        drain();
+        return entry;
+    }
+
+    /**
+     * @return 排队中的请求数量
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return 等待响应的请求数量
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void drain() {
+        if (WIP.getAndIncrement(this) != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            for (; ; ) {
+                int max = maxInFlight.getAsInt();
+                if (max > 0 && inFlight.get() >= max) {
+                    break;
+                }
+                Entry entry = queue.poll();
+                if (entry == null) {
+                    break;
+                }
+                queued.decrementAndGet();
+                if (Entry.STATE.compareAndSet(entry, Entry.QUEUED, Entry.SENT)) {
+                    inFlight.incrementAndGet();
+                    entry.send.run();
+                }
+            }
+            missed = WIP.addAndGet(this, -missed);
+        } while (missed != 0);
+
+        report();
+    }
+
+    private void report() {
+        int queued = this.queued.get();
+        int inFlight = this.inFlight.get();
+        long now = System.nanoTime();
+        boolean due = now - lastReport >= REPORT_INTERVAL;
+        if (due) {
+            lastReport = now;
+        }
+        if (due || (queued == 0 && reportedQueued != 0)) {
+            reportedQueued = queued;
+            metrics.value(CollectorConstants.Metrics.pending, queued);
+        }
+        if (due || (inFlight == 0 && reportedInFlight != 0)) {
+            reportedInFlight = inFlight;
+            metrics.value(CollectorConstants.Metrics.inflight, inFlight);
+        }
+    }
+
+    private class Entry implements Disposable {
+        static final AtomicIntegerFieldUpdater<Entry> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        static final int QUEUED = 0, SENT = 1, DONE = 2;
+
+        private final Runnable send;
+
+        private volatile int state;
+
+        Entry(Runnable send) {
+            this.send = send;
+        }
+
+        @Override
+        public void dispose() {
+            if (STATE.getAndSet(this, DONE) == SENT) {
+                inFlight.decrementAndGet();
+                drain();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return state == DONE;
+        }
+    }
+}
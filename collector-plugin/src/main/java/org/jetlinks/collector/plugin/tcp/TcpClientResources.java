@@ -0,0 +1,318 @@
+package org.jetlinks.collector.plugin.tcp;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.jetlinks.collector.CollectorConstants;
+import org.jetlinks.core.monitor.metrics.Metrics;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.LoopResources;
+import reactor.netty.tcp.TcpClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 所有采集器tcp客户端共享的事件循环资源,在linux上优先使用epoll.
+ * <p>
+ * 可通过系统属性配置:
+ * <ul>
+ *     <li>jetlinks.collector.tcp.threads: 事件循环线程数量,默认为CPU核心数</li>
+ *     <li>jetlinks.collector.tcp.native: 是否优先使用epoll等本地传输,默认true</li>
+ *     <li>jetlinks.collector.tcp.report-interval: 上报事件循环负载的间隔(毫秒),默认10000</li>
+ * </ul>
+ * 通过{@link TcpClientResources#pin()}可将连接固定在同一个事件循环上,使请求和响应在同一个线程中处理.
+ * <p>
+ * 事件循环的负载由资源本身统一定时上报,通过{@link TcpClientResources#setMetrics(Metrics)}设置监控后,
+ * 在首次使用事件循环时开始上报,不论有多少客户端都只有一个定时任务.
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+public class TcpClientResources {
+
+    private static final TcpClientResources GLOBAL = new TcpClientResources(
+        LoopResources.create(
+            "collector-tcp",
+            Integer.getInteger("jetlinks.collector.tcp.threads", LoopResources.DEFAULT_IO_WORKER_COUNT),
+            true),
+        Boolean.parseBoolean(System.getProperty("jetlinks.collector.tcp.native", "true"))
+            && LoopResources.hasNativeSupport());
+
+    private final LoopResources loopResources;
+
+    private final boolean preferNative;
+
+    private final Duration reportInterval;
+
+    private volatile Loops loops;
+
+    private volatile Metrics metrics;
+
+    private Disposable reporter;
+
+    public TcpClientResources(LoopResources loopResources, boolean preferNative) {
+        this(loopResources,
+             preferNative,
+             Duration.ofMillis(Long.getLong("jetlinks.collector.tcp.report-interval", 10_000L)));
+    }
+
+    public TcpClientResources(LoopResources loopResources, boolean preferNative, Duration reportInterval) {
+        this.loopResources = loopResources;
+        this.preferNative = preferNative;
+        this.reportInterval = reportInterval;
+    }
+
+    public static TcpClientResources global() {
+        return GLOBAL;
+    }
+
+    /**
+     * 使用共享的事件循环和池化内存分配器
+     *
+     * @param client 客户端
+     * @return 客户端
+     */
+    public TcpClient configure(TcpClient client) {
+        return client
+            .runOn(loopResources, preferNative)
+            .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+    }
+
+    /**
+     * 选择一个连接数量最少的事件循环,使用{@link Pinned#configure(TcpClient)}创建的连接都将运行在此事件循环上.
+     * <p>
+     * 不再使用时调用{@link Pinned#dispose()}释放.
+     *
+     * @return 固定的事件循环
+     */
+    public Pinned pin() {
+        Loops loops = loops();
+        int selected = 0;
+        for (int i = 1; i < loops.size(); i++) {
+            if (loops.channels.get(i) < loops.channels.get(selected)) {
+                selected = i;
+            }
+        }
+        loops.channels.incrementAndGet(selected);
+        return new Pinned(loops, selected);
+    }
+
+    /**
+     * @return 各事件循环的负载
+     */
+    public List<LoopLoad> getLoads() {
+        Loops loops = loops();
+        List<LoopLoad> loads = new ArrayList<>(loops.size());
+        for (int i = 0; i < loops.size(); i++) {
+            EventLoop loop = loops.loops.get(i);
+            loads.add(new LoopLoad(
+                i,
+                loops.channels.get(i),
+                loop instanceof SingleThreadEventExecutor executor ? executor.pendingTasks() : -1));
+        }
+        return loads;
+    }
+
+    /**
+     * 上报各事件循环的负载, 指标名称为{@code loop_pending.序号}和{@code loop_pinned.序号}
+     *
+     * @param metrics 监控
+     */
+    public void report(Metrics metrics) {
+        for (LoopLoad load : getLoads()) {
+            metrics.value(CollectorConstants.Metrics.loopPinned + "." + load.index, load.pinned);
+            if (load.pendingTasks >= 0) {
+                metrics.value(CollectorConstants.Metrics.loopPending + "." + load.index, load.pendingTasks);
+            }
+        }
+    }
+
+    /**
+     * 设置上报事件循环负载的监控,事件循环已被使用时立即开始定时上报,设置为null时停止上报.
+     *
+     * @param metrics 监控
+     * @see TcpClientResources#report(Metrics)
+     */
+    public synchronized void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        if (metrics == null) {
+            if (reporter != null) {
+                reporter.dispose();
+                reporter = null;
+            }
+            return;
+        }
+        if (loops != null) {
+            startReport();
+        }
+    }
+
+    private synchronized void startReport() {
+        if (reporter != null || metrics == null || reportInterval.isZero() || reportInterval.isNegative()) {
+            return;
+        }
+        reporter = Flux
+            .interval(reportInterval, reportInterval)
+            .subscribe(ignore -> {
+                Metrics metrics = this.metrics;
+                if (metrics != null) {
+                    report(metrics);
+                }
+            });
+    }
+
+    private Loops loops() {
+        Loops loops = this.loops;
+        if (loops == null) {
+            synchronized (this) {
+                loops = this.loops;
+                if (loops == null) {
+                    this.loops = loops = new Loops(loopResources.onClient(preferNative));
+                    startReport();
+                }
+            }
+        }
+        return loops;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class LoopLoad {
+        /**
+         * 事件循环序号
+         */
+        private final int index;
+        /**
+         * 固定在此事件循环上的客户端数量
+         */
+        private final int pinned;
+        /**
+         * 待执行的任务数量,无法获取时为-1
+         */
+        private final int pendingTasks;
+    }
+
+    private static class Loops {
+        private final EventLoopGroup group;
+        private final List<EventLoop> loops = new ArrayList<>();
+        private final AtomicIntegerArray channels;
+
+        Loops(EventLoopGroup group) {
+            this.group = group;
+            for (EventExecutor executor : group) {
+                if (executor instanceof EventLoop loop) {
+                    loops.add(loop);
+                }
+            }
+            if (loops.isEmpty()) {
+                loops.add(group.next());
+            }
+            this.channels = new AtomicIntegerArray(loops.size());
+        }
+
+        int size() {
+            return loops.size();
+        }
+    }
+
+    /**
+     * 固定的事件循环
+     */
+    public class Pinned implements Disposable {
+        private final Loops loops;
+        private final int index;
+        private final LoopResources resources;
+        private volatile boolean disposed;
+
+        Pinned(Loops loops, int index) {
+            this.loops = loops;
+            this.index = index;
+            this.resources = new PinnedLoopResources(loops.group, loops.loops.get(index));
+        }
+
+        /**
+         * 使用固定的事件循环和池化内存分配器
+         *
+         * @param client 客户端
+         * @return 客户端
+         */
+        public TcpClient configure(TcpClient client) {
+            return client
+                .runOn(resources, preferNative)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        }
+
+        @Override
+        public synchronized void dispose() {
+            if (!disposed) {
+                disposed = true;
+                loops.channels.decrementAndGet(index);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+
+    /**
+     * 只使用一个事件循环,通道类型由共享的事件循环组决定.
+     */
+    private class PinnedLoopResources implements LoopResources {
+        private final EventLoopGroup group;
+        private final EventLoop loop;
+
+        PinnedLoopResources(EventLoopGroup group, EventLoop loop) {
+            this.group = group;
+            this.loop = loop;
+        }
+
+        @Override
+        public EventLoopGroup onServer(boolean useNative) {
+            return loop;
+        }
+
+        @Override
+        public EventLoopGroup onClient(boolean useNative) {
+            return loop;
+        }
+
+        @Override
+        public <CHANNEL extends Channel> CHANNEL onChannel(Class<CHANNEL> channelType, EventLoopGroup group) {
+            return loopResources.onChannel(channelType, this.group);
+        }
+
+        @Override
+        public <CHANNEL extends Channel> Class<? extends CHANNEL> onChannelClass(Class<CHANNEL> channelType,
+                                                                                 EventLoopGroup group) {
+            return loopResources.onChannelClass(channelType, this.group);
+        }
+
+        @Override
+        public boolean daemon() {
+            return loopResources.daemon();
+        }
+
+        @Override
+        public void dispose() {
+            //共享的资源不释放
+        }
+
+        @Override
+        public Mono<Void> disposeLater(Duration quietPeriod, Duration timeout) {
+            return Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.jetlinks.collector.plugin.tcp;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConnectLimiter 单元测试
+ *
+ * @author zhouhao
+ */
+class ConnectLimiterTest {
+
+    @Test
+    void testReserve() {
+        ConnectLimiter limiter = new ConnectLimiter(10, 2);
+        assertEquals(Duration.ZERO, limiter.reserve());
+        assertEquals(Duration.ZERO, limiter.reserve());
+        //突发令牌用完后按速率等待
+        Duration wait = limiter.reserve();
+        assertTrue(wait.compareTo(Duration.ZERO) > 0);
+        assertTrue(wait.compareTo(Duration.ofMillis(100)) <= 0);
+        assertTrue(limiter.reserve().compareTo(wait) > 0);
+    }
+
+    @Test
+    void testAcquireLazy() {
+        ConnectLimiter limiter = new ConnectLimiter(10, 1);
+        //未订阅时不预留令牌
+        Mono<Void> acquire = limiter.acquire();
+        assertEquals(Duration.ZERO, limiter.reserve());
+
+        //订阅时才预留令牌,等待下一个令牌可用
+        long start = System.nanoTime();
+        acquire.block(Duration.ofSeconds(5));
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(50).toNanos());
+    }
+}
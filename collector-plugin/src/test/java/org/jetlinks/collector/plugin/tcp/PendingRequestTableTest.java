@@ -0,0 +1,62 @@
+package org.jetlinks.collector.plugin.tcp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PendingRequestTable 单元测试
+ *
+ * @author zhouhao
+ */
+class PendingRequestTableTest {
+
+    @Test
+    void testWraparound() {
+        PendingRequestTable<String> table = new PendingRequestTable<>(2);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, table.register("r" + i));
+        }
+        //序列号已全部使用
+        assertEquals(-1, table.register("r4"));
+        assertEquals(PendingRequestTable.MAX_PROBE, table.getCollisions());
+
+        //回绕后跳过仍在等待响应的序列号
+        assertEquals("r2", table.remove(2));
+        assertEquals(2, table.register("r5"));
+        assertEquals("r5", table.remove(2));
+        assertNull(table.remove(2));
+        //超出范围的序列号
+        assertNull(table.remove(4));
+    }
+
+    @Test
+    void testExpire() {
+        PendingRequestTable<String> table = new PendingRequestTable<>(2);
+        String[] requests = {"r0", "r1", "r2", "r3"};
+        for (String request : requests) {
+            table.register(request);
+        }
+        assertTrue(table.expire(0, requests[0], TimeUnit.HOURS.toNanos(1)));
+        assertFalse(table.expire(0, requests[0], TimeUnit.HOURS.toNanos(1)));
+        assertTrue(table.expire(3, requests[3], 0));
+        assertEquals("r1", table.remove(1));
+
+        //保留中的序列号不会被分配
+        assertEquals(1, table.register("r4"));
+        //保留时间已过的序列号可以再次分配
+        assertEquals(3, table.register("r5"));
+        assertEquals(-1, table.register("r6"));
+
+        //迟到的响应被丢弃
+        assertNull(table.remove(0));
+
+        List<String> cleared = new ArrayList<>();
+        table.clear(cleared::add);
+        assertEquals(List.of("r4", "r2", "r5"), cleared);
+    }
+}
@@ -0,0 +1,43 @@
+package org.jetlinks.collector.plugin.tcp;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReconnectPolicy 单元测试
+ *
+ * @author zhouhao
+ */
+class ReconnectPolicyTest {
+
+    @Test
+    void testExponential() {
+        ReconnectPolicy policy = ReconnectPolicy.exponential(Duration.ofMillis(100), Duration.ofSeconds(1), 5);
+        //首次连接不延迟
+        assertEquals(Duration.ZERO, policy.nextDelay(0));
+        for (int i = 0; i < 100; i++) {
+            assertBetween(policy.nextDelay(1), 100);
+            assertBetween(policy.nextDelay(3), 400);
+            assertBetween(policy.nextDelay(4), 800);
+        }
+        //超过最大重连次数
+        assertNull(policy.nextDelay(5));
+    }
+
+    @Test
+    void testUnlimited() {
+        ReconnectPolicy policy = ReconnectPolicy.exponential(Duration.ofMillis(100), Duration.ofSeconds(1), -1);
+        //次数很大时不溢出
+        for (int attempt : new int[]{10, 63, 64, 1000, Integer.MAX_VALUE}) {
+            assertBetween(policy.nextDelay(attempt), 1000);
+        }
+    }
+
+    private static void assertBetween(Duration delay, long maxMillis) {
+        assertNotNull(delay);
+        assertTrue(delay.toMillis() >= 0 && delay.toMillis() <= maxMillis, String.valueOf(delay));
+    }
+}
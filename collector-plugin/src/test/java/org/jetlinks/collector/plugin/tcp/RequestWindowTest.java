@@ -0,0 +1,86 @@
+package org.jetlinks.collector.plugin.tcp;
+
+import org.jetlinks.collector.CollectorConstants;
+import org.jetlinks.core.monitor.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RequestWindow 单元测试
+ *
+ * @author zhouhao
+ */
+class RequestWindowTest {
+
+    @Test
+    void testWindow() {
+        RequestWindow window = new RequestWindow(() -> 1, Metrics.noop());
+        List<String> sent = new ArrayList<>();
+
+        Disposable a = window.submit(() -> sent.add("a"));
+        Disposable b = window.submit(() -> sent.add("b"));
+        Disposable c = window.submit(() -> sent.add("c"));
+        assertEquals(List.of("a"), sent);
+        assertEquals(1, window.getInFlight());
+        assertEquals(2, window.getQueued());
+
+        //取消排队中的请求,不占用窗口
+        b.dispose();
+        assertTrue(b.isDisposed());
+
+        //请求完成(响应或超时)后释放窗口
+        a.dispose();
+        assertEquals(List.of("a", "c"), sent);
+        assertEquals(1, window.getInFlight());
+        assertEquals(0, window.getQueued());
+
+        //重复释放不影响计数
+        a.dispose();
+        assertEquals(1, window.getInFlight());
+
+        c.dispose();
+        assertEquals(0, window.getInFlight());
+        window.submit(() -> sent.add("d"));
+        assertEquals(List.of("a", "c", "d"), sent);
+    }
+
+    @Test
+    void testReportIdle() {
+        Map<String, Double> values = new HashMap<>();
+        RequestWindow window = new RequestWindow(() -> 1, new Metrics() {
+            @Override
+            public void count(String name, int inc) {
+            }
+
+            @Override
+            public void value(String name, double value) {
+                values.put(name, value);
+            }
+
+            @Override
+            public void error(String name, Throwable error) {
+            }
+        });
+
+        Disposable a = window.submit(() -> {
+        });
+        Disposable b = window.submit(() -> {
+        });
+        //首次立即上报
+        assertEquals(1, values.get(CollectorConstants.Metrics.inflight));
+        assertEquals(0, values.get(CollectorConstants.Metrics.pending));
+
+        a.dispose();
+        //请求停止后,数量降为0时不等待上报间隔
+        b.dispose();
+        assertEquals(0, window.getInFlight());
+        assertEquals(0, values.get(CollectorConstants.Metrics.inflight));
+    }
+}
@@ -0,0 +1,140 @@
+package org.jetlinks.collector.serial;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.ReferenceCountUtil;
+import org.jetlinks.core.utils.Reactors;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+/**
+ * 增量报文解析器,将接收到的数据累积到同一个缓冲区中,并从中切分出完整报文.
+ * <p>
+ * 切分出的报文为累积缓冲区的切片,不复制数据,由接收方负责释放.
+ * <p>
+ * 默认使用非池化的堆内存分配器累积数据,与{@link SerialPortClient}的默认分配器一致,未释放的报文可被GC回收.
+ * 使用池化分配器时,接收方必须释放报文,否则将导致内存泄漏.
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+public abstract class AbstractPayloadParser implements PayloadParser {
+
+    private final Sinks.Many<ByteBuf> sinks =
+        Sinks.unsafe()
+             .many()
+             .unicast()
+             .onBackpressureBuffer(Queues.<ByteBuf>unboundedMultiproducer().get());
+
+    /**
+     * 默认的内存分配器,非池化的堆内存
+     */
+    public static final ByteBufAllocator DEFAULT_ALLOCATOR = new UnpooledByteBufAllocator(false);
+
+    protected final ByteBufAllocator allocator;
+
+    private ByteBuf cumulation;
+
+    protected AbstractPayloadParser() {
+        this(DEFAULT_ALLOCATOR);
+    }
+
+    protected AbstractPayloadParser(ByteBufAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    @Override
+    public final synchronized void handle(ByteBuf buffer) {
+        cumulation = cumulation == null
+            ? buffer
+            : ByteToMessageDecoder.MERGE_CUMULATOR.cumulate(allocator, cumulation, buffer);
+        try {
+            decodeAll(cumulation);
+        } finally {
+            onReceived();
+            discardReadBytes();
+        }
+    }
+
+    /**
+     * 从累积的数据中解析完整报文
+     *
+     * @param in 累积的数据
+     * @return 完整报文, 数据不足时返回<code>null</code>
+     */
+    protected abstract ByteBuf decode(ByteBuf in);
+
+    /**
+     * 数据处理完成后调用,可用于基于时间的报文切分.
+     */
+    protected void onReceived() {
+
+    }
+
+    private void decodeAll(ByteBuf in) {
+        while (in.isReadable()) {
+            int readable = in.readableBytes();
+            ByteBuf frame = decode(in);
+            if (frame == null) {
+                // 数据不足
+                if (readable == in.readableBytes()) {
+                    break;
+                }
+                continue;
+            }
+            emit(frame);
+        }
+    }
+
+    /**
+     * 将累积的数据作为一个完整报文发送
+     */
+    protected final synchronized void flush() {
+        if (cumulation != null && cumulation.isReadable()) {
+            emit(cumulation.readRetainedSlice(cumulation.readableBytes()));
+        }
+        discardReadBytes();
+    }
+
+    /**
+     * @return 当前累积的数据长度
+     */
+    protected final synchronized int cumulated() {
+        return cumulation == null ? 0 : cumulation.readableBytes();
+    }
+
+    protected final void emit(ByteBuf frame) {
+        if (sinks.tryEmitNext(frame).isFailure()) {
+            ReferenceCountUtil.safeRelease(frame);
+        }
+    }
+
+    private void discardReadBytes() {
+        if (cumulation != null && !cumulation.isReadable()) {
+            cumulation.release();
+            cumulation = null;
+        }
+    }
+
+    @Override
+    public Flux<ByteBuf> handlePayload() {
+        return sinks.asFlux();
+    }
+
+    @Override
+    public synchronized void reset() {
+        if (cumulation != null) {
+            cumulation.release();
+            cumulation = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        reset();
+        sinks.emitComplete(Reactors.emitFailureHandler());
+    }
+}
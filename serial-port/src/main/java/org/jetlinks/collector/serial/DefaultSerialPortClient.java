@@ -4,10 +4,15 @@ import com.fazecast.jSerialComm.SerialPort;
 import com.fazecast.jSerialComm.SerialPortDataListenerWithExceptions;
 import com.fazecast.jSerialComm.SerialPortEvent;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufUtil;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.util.HashedWheelTimer;
 import io.netty.util.ReferenceCountUtil;
-import lombok.AllArgsConstructor;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.jetlinks.collector.CollectorConstants;
 import org.jetlinks.core.monitor.Monitor;
@@ -22,8 +27,8 @@ import reactor.core.scheduler.Schedulers;
 
 import java.io.OutputStream;
 import java.time.Duration;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -37,6 +42,11 @@ public class DefaultSerialPortClient implements
     private static final AtomicIntegerFieldUpdater<DefaultSerialPortClient>
         WIP = AtomicIntegerFieldUpdater.newUpdater(DefaultSerialPortClient.class, "wip");
 
+    //所有串口共享的请求超时时间轮,请求响应后取消超时任务.
+    static final Timer TIMEOUT_TIMER = new HashedWheelTimer(
+        new DefaultThreadFactory("serial-port-timeout", true),
+        10, TimeUnit.MILLISECONDS, 512);
+
     private final SerialPort port;
     private final SerialPortConfig config;
 
@@ -48,13 +58,14 @@ public class DefaultSerialPortClient implements
 
     private volatile int wip;
 
-    private final Queue<PendingRequest> queue;
+    private final TransactionScheduler<PendingRequest> queue;
 
     private final Disposable.Composite disposable = Disposables.composite();
 
     private final Scheduler scheduler;
 
     private final int maxQueueSize;
+    private final ByteBufAllocator allocator;
     private final Monitor monitor;
     private final Logger logger;
 
@@ -77,11 +88,25 @@ public class DefaultSerialPortClient implements
                                    PayloadParser parser,
                                    int maxQueueSize,
                                    Monitor monitor) {
+        this(config, port, parser, maxQueueSize, monitor, UnpooledByteBufAllocator.DEFAULT);
+    }
+
+    /**
+     * @param allocator 接收数据使用的内存分配器,接收到的数据将直接从串口读取到分配的缓冲区中.
+     *                  使用池化分配器时,调用方必须释放响应的缓冲区.
+     */
+    public DefaultSerialPortClient(SerialPortConfig config,
+                                   SerialPort port,
+                                   PayloadParser parser,
+                                   int maxQueueSize,
+                                   Monitor monitor,
+                                   ByteBufAllocator allocator) {
         this.config = config;
         this.port = port;
         this.parser = parser;
         this.out = port.getOutputStream();
         this.maxQueueSize = maxQueueSize;
+        this.allocator = allocator;
         this.scheduler = Schedulers.single(Schedulers.boundedElastic());
         this.disposable.add(scheduler);
         this.disposable.add(
@@ -95,7 +120,7 @@ public class DefaultSerialPortClient implements
         } else {
             this.logger = log;
         }
-        this.queue = new ConcurrentLinkedQueue<>();
+        this.queue = new TransactionScheduler<>(port.getSystemPortPath(), config, this::onIntervalChanged);
         if (!port.isOpen()) {
             port.openPort();
         }
@@ -112,10 +137,24 @@ public class DefaultSerialPortClient implements
     @Override
     public Mono<ByteBuf> sendAndReceive(ByteBuf buf, Duration timeout) {
         return this
-            .sendAndReceiveMulti(buf, timeout, true)
+            .sendAndReceiveMulti(null, RequestPriority.NORMAL, buf, timeout, true)
             .singleOrEmpty();
     }
 
+    @Override
+    public Mono<ByteBuf> sendAndReceive(String slave, RequestPriority priority, ByteBuf buf, Duration timeout) {
+        return this
+            .sendAndReceiveMulti(slave, priority, buf, timeout, true)
+            .singleOrEmpty();
+    }
+
+    /**
+     * @return 各从机的请求统计信息
+     */
+    public List<SlaveStatistics> getStatistics() {
+        return queue.getStatistics();
+    }
+
     @Override
     public Flux<ByteBuf> sendAndReceiveMulti(ByteBuf buf, Duration timeout, int num) {
         return this
@@ -128,26 +167,33 @@ public class DefaultSerialPortClient implements
         return port.isOpen();
     }
 
-    private Flux<ByteBuf> sendAndReceiveMulti(ByteBuf buf, Duration timeout, boolean single) {
+    private Flux<ByteBuf> sendAndReceiveMulti(String slave,
+                                              RequestPriority priority,
+                                              ByteBuf buf,
+                                              Duration timeout,
+                                              boolean single) {
         return Flux
             .<ByteBuf>create(sink -> {
                 if (!port.isOpen() || isDisposed()) {
                     sink.error(new PortClosedException(getPath()));
                     return;
                 }
-                PendingRequest request = new PendingRequest(buf, sink, timeout, single);
+                PendingRequest request = new PendingRequest(slave, priority, buf, sink, timeout, single);
                 sink.onDispose(request);
 
-                if (queue.size() >= maxQueueSize || !queue.offer(request)) {
-                    sink.error(new IllegalStateException("queue is full"));
+                Throwable error = queue.offer(request, maxQueueSize);
+                if (error != null) {
+                    sink.error(error);
                 }
                 drain();
-            });
+            })
+            //未被下游消费的响应
+            .doOnDiscard(ByteBuf.class, ReferenceCountUtil::safeRelease);
     }
 
     @Override
     public Flux<ByteBuf> sendAndReceiveMulti(ByteBuf buf, Duration timeout) {
-        return sendAndReceiveMulti(buf, timeout, false);
+        return sendAndReceiveMulti(null, RequestPriority.NORMAL, buf, timeout, false);
     }
 
     private void drain() {
@@ -169,22 +215,19 @@ public class DefaultSerialPortClient implements
                 if (isDisposed()) {
                     break;
                 }
+                // 已取消的任务将被忽略
                 request = queue.poll();
                 if (request == null) {
                     break;
                 }
-                // 任务已经取消,重新拉取.
-                if (request.isCancelled()) {
-                    continue;
-                }
                 if (PENDING.compareAndSet(this, null, request)) {
                     //独立线程发起请求,防止阻塞请求线程
                     scheduler.schedule(
                         request::sendRequest,
-                        config.getCommunicationInterval().toNanos(),
+                        queue.interval(request.slave),
                         TimeUnit.NANOSECONDS);
                 } else {
-                    queue.add(request);
+                    queue.requeue(request);
                 }
             }
             missed = WIP.addAndGet(this, -missed);
@@ -192,17 +235,40 @@ public class DefaultSerialPortClient implements
 
     }
 
+    private void onIntervalChanged(String slave, Duration interval) {
+        monitor
+            .metrics()
+            .value(slave == null
+                       ? CollectorConstants.Metrics.interval
+                       : CollectorConstants.Metrics.interval + "." + slave,
+                   interval.toNanos() / 1_000_000D);
+    }
+
+    @Override
+    public void reportError(String slave) {
+        rejectUnavailable(slave, queue.onError(slave));
+    }
+
+    private void rejectUnavailable(String slave, List<PendingRequest> rejected) {
+        for (PendingRequest request : rejected) {
+            request.sink.error(new SlaveUnavailableException(getPath(), slave));
+        }
+    }
+
     @Override
     public void catchException(Exception e) {
         logger.error("handle serial port payload error", e);
+        PendingRequest pending = this.pending;
         if (pending != null && !pending.isDisposed()) {
+            List<PendingRequest> rejected = queue.onError(pending.slave);
             pending.sink.error(new IllegalStateException("error.handle_serial_port_error", e));
+            rejectUnavailable(pending.slave, rejected);
         }
     }
 
     @Override
     public int getListeningEvents() {
-        return SerialPort.LISTENING_EVENT_DATA_RECEIVED |
+        return SerialPort.LISTENING_EVENT_DATA_AVAILABLE |
             SerialPort.LISTENING_EVENT_PORT_DISCONNECTED;
     }
 
@@ -212,24 +278,51 @@ public class DefaultSerialPortClient implements
             dispose();
             return;
         }
-        if (event.getEventType() == SerialPort.LISTENING_EVENT_DATA_RECEIVED) {
+        if (event.getEventType() == SerialPort.LISTENING_EVENT_DATA_AVAILABLE) {
+            readAvailable();
+        }
+
+    }
+
+    //直接从串口读取数据到分配的缓冲区中,避免每次接收都创建新的数组.
+    private void readAvailable() {
+        int available;
+        while ((available = port.bytesAvailable()) > 0) {
+            ByteBuf buf = allocator.heapBuffer(available);
+            int read;
+            try {
+                read = port.readBytes(buf.array(), available, buf.arrayOffset() + buf.writerIndex());
+            } catch (Throwable e) {
+                buf.release();
+                throw e;
+            }
+            if (read <= 0) {
+                buf.release();
+                return;
+            }
+            buf.writerIndex(buf.writerIndex() + read);
+
             // 监控
             monitor
                 .metrics()
-                .count(CollectorConstants.Metrics.received, event.getReceivedData().length);
+                .count(CollectorConstants.Metrics.received, read);
 
-            if (logger.isInfoEnabled()) {
-                logger.info("received data: {}", ByteBufUtil.hexDump(event.getReceivedData()));
+            if (logger.isTraceEnabled()) {
+                logger.trace("received data: {}", ByteBufUtil.hexDump(buf));
             }
 
             PendingRequest pending = PENDING.get(this);
             if (pending == null || pending.isDisposed()) {
-                logger.warn("request is canceled! received data: {}", ByteBufUtil.hexDump(event.getReceivedData()));
-                return;
+                if (logger.isDebugEnabled()) {
+                    logger.debug("request is canceled! received data: {}", ByteBufUtil.hexDump(buf));
+                } else {
+                    logger.warn("request is canceled! discard {} bytes", read);
+                }
+                buf.release();
+                continue;
             }
-            parser.handle(Unpooled.wrappedBuffer(event.getReceivedData()));
+            parser.handle(buf);
         }
-
     }
 
     private void handleBuffer(ByteBuf buffer) {
@@ -239,10 +332,10 @@ public class DefaultSerialPortClient implements
                          port.getSystemPortPath(),
                          ByteBufUtil.hexDump(buffer));
         }
-        if (pending != null) {
-
+        if (pending != null && !pending.isDisposed()) {
             pending.complete(buffer);
-
+        } else {
+            ReferenceCountUtil.safeRelease(buffer);
         }
 
         drain();
@@ -260,15 +353,8 @@ public class DefaultSerialPortClient implements
         if (pending != null && !pending.isCancelled()) {
             pending.sink.error(new PortClosedException(getPath()));
         }
-        for (; ; ) {
-            pending = queue.poll();
-            if (pending == null) {
-                break;
-            }
-            if (pending.isCancelled()) {
-                continue;
-            }
-            pending.sink.error(new PortClosedException(getPath()));
+        for (PendingRequest request : queue.clear()) {
+            request.sink.error(new PortClosedException(getPath()));
         }
 
     }
@@ -278,13 +364,42 @@ public class DefaultSerialPortClient implements
         return disposable.isDisposed();
     }
 
-    @AllArgsConstructor
-    class PendingRequest implements Disposable {
+    class PendingRequest implements Disposable, TimerTask, TransactionScheduler.Transaction {
+        String slave;
+        RequestPriority priority;
         ByteBuf request;
         FluxSink<ByteBuf> sink;
         Duration requestTimeout;
         boolean single;
+        volatile Timeout timeout;
+        long sentTime;
+        volatile boolean responded;
+
+        PendingRequest(String slave,
+                       RequestPriority priority,
+                       ByteBuf request,
+                       FluxSink<ByteBuf> sink,
+                       Duration requestTimeout,
+                       boolean single) {
+            this.slave = slave;
+            this.priority = priority == null ? RequestPriority.NORMAL : priority;
+            this.request = request;
+            this.sink = sink;
+            this.requestTimeout = requestTimeout;
+            this.single = single;
+        }
 
+        @Override
+        public String getSlave() {
+            return slave;
+        }
+
+        @Override
+        public RequestPriority getPriority() {
+            return priority;
+        }
+
+        @Override
         public boolean isCancelled() {
             return isDisposed();
         }
@@ -297,6 +412,10 @@ public class DefaultSerialPortClient implements
         @Override
         public void dispose() {
             try {
+                Timeout timeout = this.timeout;
+                if (timeout != null) {
+                    timeout.cancel();
+                }
                 PENDING.compareAndSet(DefaultSerialPortClient.this, this, null);
                 if (isDisposed()) {
                     return;
@@ -307,7 +426,24 @@ public class DefaultSerialPortClient implements
             }
         }
 
+        @Override
+        public void run(Timeout timeout) {
+            //只处理当前正在进行的请求,防止延迟的超时影响后续请求.
+            if (PENDING.get(DefaultSerialPortClient.this) != this || isDisposed()) {
+                return;
+            }
+            //超时未获取到数据,重置粘拆包处理器.
+            parser.reset();
+            List<PendingRequest> rejected = responded ? Collections.emptyList() : queue.onTimeout(slave);
+            sink.error(new RequestTimeoutException(getPath()));
+            rejectUnavailable(slave, rejected);
+        }
+
         public void complete(ByteBuf buf) {
+            if (!responded) {
+                responded = true;
+                queue.onResponse(slave, System.nanoTime() - sentTime);
+            }
             sink.next(buf);
             if (single) {
                 sink.complete();
@@ -316,31 +452,29 @@ public class DefaultSerialPortClient implements
 
         private void sendRequest() {
             try {
-                byte[] payload = ByteBufUtil.getBytes(request);
-
+                int length = request.readableBytes();
+                sentTime = System.nanoTime();
                 if (logger.isDebugEnabled()) {
                     logger.debug("request SerialPort [{}] data:{}",
                                  port.getSystemPortPath(),
-                                 ByteBufUtil.hexDump(payload));
+                                 ByteBufUtil.hexDump(request));
+                }
+                //直接写出缓冲区,不复制到中间数组
+                if (request.hasArray()) {
+                    out.write(request.array(), request.arrayOffset() + request.readerIndex(), length);
+                } else {
+                    request.getBytes(request.readerIndex(), out, length);
                 }
-                out.write(payload);
-                if (logger.isInfoEnabled()) {
-                    logger.info("write SerialPort [{}] data: {}",
-                                port.getSystemPortPath(),
-                                ByteBufUtil.hexDump(payload));
+                if (logger.isTraceEnabled()) {
+                    logger.trace("write SerialPort [{}] {} bytes", port.getSystemPortPath(), length);
                 }
                 if (!isDisposed()) {
                     //请求超时处理
-                    scheduler.schedule(
-                        () -> {
-                            //超时未获取到数据,重置粘拆包处理器.
-                            if (!isDisposed()) {
-                                parser.reset();
-                            }
-                            sink.error(new RequestTimeoutException(getPath()));
-                        },
-                        requestTimeout.toMillis(),
-                        TimeUnit.MILLISECONDS);
+                    timeout = TIMEOUT_TIMER.newTimeout(this, requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                    //在设置超时任务前已经响应
+                    if (isDisposed()) {
+                        timeout.cancel();
+                    }
                 }
             } catch (RejectedExecutionException e) {
                 logger.info("write SerialPort [{}] rejected {}", port.getSystemPortPath(), ByteBufUtil.hexDump(request), e);
@@ -0,0 +1,93 @@
+package org.jetlinks.collector.serial;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * 分隔符报文解析器,如: 以<code>\r\n</code>结尾的文本协议.
+ * <p>
+ * 超过最大长度仍未找到分隔符时,丢弃已接收的数据.
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+public class DelimiterPayloadParser extends AbstractPayloadParser {
+
+    private final byte[] delimiter;
+
+    private final boolean stripDelimiter;
+
+    private final int maxFrameLength;
+
+    //已查找过的数据长度,避免重复查找
+    private int searched;
+
+    public DelimiterPayloadParser(byte[] delimiter, boolean stripDelimiter, int maxFrameLength) {
+        this(delimiter, stripDelimiter, maxFrameLength, DEFAULT_ALLOCATOR);
+    }
+
+    public DelimiterPayloadParser(byte[] delimiter,
+                                  boolean stripDelimiter,
+                                  int maxFrameLength,
+                                  ByteBufAllocator allocator) {
+        super(allocator);
+        if (delimiter == null || delimiter.length == 0) {
+            throw new IllegalArgumentException("delimiter can not be empty");
+        }
+        this.delimiter = delimiter.clone();
+        this.stripDelimiter = stripDelimiter;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    protected ByteBuf decode(ByteBuf in) {
+        int index = indexOf(in);
+        if (index < 0) {
+            if (in.readableBytes() > maxFrameLength) {
+                in.skipBytes(in.readableBytes());
+                searched = 0;
+            }
+            return null;
+        }
+        searched = 0;
+        int length = index - in.readerIndex();
+        if (length > maxFrameLength) {
+            in.skipBytes(length + delimiter.length);
+            return null;
+        }
+        ByteBuf frame;
+        if (stripDelimiter) {
+            frame = in.readRetainedSlice(length);
+            in.skipBytes(delimiter.length);
+        } else {
+            frame = in.readRetainedSlice(length + delimiter.length);
+        }
+        return frame;
+    }
+
+    private int indexOf(ByteBuf in) {
+        int from = in.readerIndex() + Math.max(0, searched - delimiter.length + 1);
+        int end = in.writerIndex() - delimiter.length;
+        byte first = delimiter[0];
+        for (int i = from; i <= end; i++) {
+            if (in.getByte(i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < delimiter.length && in.getByte(i + j) == delimiter[j]) {
+                j++;
+            }
+            if (j == delimiter.length) {
+                return i;
+            }
+        }
+        searched = in.readableBytes();
+        return -1;
+    }
+
+    @Override
+    public synchronized void reset() {
+        searched = 0;
+        super.reset();
+    }
+}
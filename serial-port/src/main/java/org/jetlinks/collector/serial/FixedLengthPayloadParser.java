@@ -0,0 +1,35 @@
+package org.jetlinks.collector.serial;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * 固定长度报文解析器
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+public class FixedLengthPayloadParser extends AbstractPayloadParser {
+
+    private final int length;
+
+    public FixedLengthPayloadParser(int length) {
+        this(length, DEFAULT_ALLOCATOR);
+    }
+
+    public FixedLengthPayloadParser(int length, ByteBufAllocator allocator) {
+        super(allocator);
+        if (length <= 0) {
+            throw new IllegalArgumentException("length must be positive: " + length);
+        }
+        this.length = length;
+    }
+
+    @Override
+    protected ByteBuf decode(ByteBuf in) {
+        if (in.readableBytes() < length) {
+            return null;
+        }
+        return in.readRetainedSlice(length);
+    }
+}
@@ -0,0 +1,76 @@
+package org.jetlinks.collector.serial;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.nio.ByteOrder;
+
+/**
+ * 长度字段报文解析器,根据报文中的长度字段确定报文长度.
+ * <p>
+ * 报文长度 = {@code lengthFieldOffset} + {@code lengthFieldLength} + 长度字段值 + {@code lengthAdjustment}.
+ * 长度不合法时丢弃已接收的数据.
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+public class LengthFieldPayloadParser extends AbstractPayloadParser {
+
+    private final int lengthFieldOffset;
+    private final int lengthFieldLength;
+    private final int lengthAdjustment;
+    private final int maxFrameLength;
+    private final ByteOrder byteOrder;
+
+    public LengthFieldPayloadParser(int lengthFieldOffset,
+                                    int lengthFieldLength,
+                                    int lengthAdjustment,
+                                    int maxFrameLength) {
+        this(lengthFieldOffset, lengthFieldLength, lengthAdjustment, maxFrameLength,
+             ByteOrder.BIG_ENDIAN, DEFAULT_ALLOCATOR);
+    }
+
+    public LengthFieldPayloadParser(int lengthFieldOffset,
+                                    int lengthFieldLength,
+                                    int lengthAdjustment,
+                                    int maxFrameLength,
+                                    ByteOrder byteOrder,
+                                    ByteBufAllocator allocator) {
+        super(allocator);
+        if (lengthFieldLength != 1 && lengthFieldLength != 2 && lengthFieldLength != 4) {
+            throw new IllegalArgumentException("unsupported lengthFieldLength: " + lengthFieldLength);
+        }
+        this.lengthFieldOffset = lengthFieldOffset;
+        this.lengthFieldLength = lengthFieldLength;
+        this.lengthAdjustment = lengthAdjustment;
+        this.maxFrameLength = maxFrameLength;
+        this.byteOrder = byteOrder;
+    }
+
+    @Override
+    protected ByteBuf decode(ByteBuf in) {
+        int headerLength = lengthFieldOffset + lengthFieldLength;
+        if (in.readableBytes() < headerLength) {
+            return null;
+        }
+        long frameLength = headerLength + getLength(in, in.readerIndex() + lengthFieldOffset) + lengthAdjustment;
+        if (frameLength < headerLength || frameLength > maxFrameLength) {
+            // 报文错误,丢弃数据重新同步
+            in.skipBytes(in.readableBytes());
+            return null;
+        }
+        if (in.readableBytes() < frameLength) {
+            return null;
+        }
+        return in.readRetainedSlice((int) frameLength);
+    }
+
+    private long getLength(ByteBuf in, int index) {
+        boolean be = byteOrder == ByteOrder.BIG_ENDIAN;
+        return switch (lengthFieldLength) {
+            case 1 -> in.getUnsignedByte(index);
+            case 2 -> be ? in.getUnsignedShort(index) : in.getUnsignedShortLE(index);
+            default -> be ? in.getUnsignedInt(index) : in.getUnsignedIntLE(index);
+        };
+    }
+}
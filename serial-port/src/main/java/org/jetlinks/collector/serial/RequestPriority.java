@@ -0,0 +1,18 @@
+package org.jetlinks.collector.serial;
+
+/**
+ * 串口请求优先级,同一从机的请求按优先级发送.
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+public enum RequestPriority {
+    /**
+     * 高优先级,如: 写入请求
+     */
+    HIGH,
+    /**
+     * 普通优先级,如: 读取请求
+     */
+    NORMAL
+}
@@ -2,6 +2,7 @@ package org.jetlinks.collector.serial;
 
 import com.fazecast.jSerialComm.SerialPort;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import org.jetlinks.core.monitor.Monitor;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
@@ -37,18 +38,38 @@ public interface SerialPortClient extends Disposable {
      *
      * @param buf     数据
      * @param timeout 超时时间,数据发送到串口后等待响应的超时时间
-     * @return 响应数据
+     * @return 响应数据,调用方使用完毕后需要调用{@link ByteBuf#release()}释放
      * @see RequestTimeoutException
      * @see Mono#onErrorResume(Function)
      */
     Mono<ByteBuf> sendAndReceive(ByteBuf buf, Duration timeout);
 
+    /**
+     * 向指定从机发送数据并接收响应.
+     * <p>
+     * 请求按从机排队并轮流发送,同一从机的高优先级请求优先发送.从机连续超时时将暂停向其发送请求,
+     * 此期间的请求返回{@link SlaveUnavailableException}.
+     * <p>
+     * 此方法需要调用方显式使用,{@link SerialPortClient#sendAndReceive(ByteBuf, Duration)}发送的请求不区分从机,
+     * 也不会被暂停.默认实现忽略从机和优先级.
+     *
+     * @param slave    从机标识,如: modbus从机地址
+     * @param priority 优先级
+     * @param buf      数据
+     * @param timeout  超时时间,数据发送到串口后等待响应的超时时间
+     * @return 响应数据,调用方使用完毕后需要调用{@link ByteBuf#release()}释放
+     * @see SerialPortConfig#getSlaveFailureThreshold()
+     */
+    default Mono<ByteBuf> sendAndReceive(String slave, RequestPriority priority, ByteBuf buf, Duration timeout) {
+        return sendAndReceive(buf, timeout);
+    }
+
     /**
      * 发送并接收多个响应,直到超时时间到达.
      *
      * @param buf     请求数据
      * @param timeout 超时时间,超时未获取到数据时将返回empty.
-     * @return 响应数据
+     * @return 响应数据,调用方使用完毕后需要调用{@link ByteBuf#release()}释放
      */
     Flux<ByteBuf> sendAndReceiveMulti(ByteBuf buf, Duration timeout);
 
@@ -58,7 +79,7 @@ public interface SerialPortClient extends Disposable {
      * @param buf     请求数据
      * @param timeout 超时时间,超时未获取到数据时将返回empty.
      * @param num     收取响应报文的数量限制，收完即停
-     * @return 响应数据
+     * @return 响应数据,调用方使用完毕后需要调用{@link ByteBuf#release()}释放
      */
     Flux<ByteBuf> sendAndReceiveMulti(ByteBuf buf, Duration timeout, int num);
 
@@ -69,6 +90,15 @@ public interface SerialPortClient extends Disposable {
         return !isDisposed();
     }
 
+    /**
+     * 报告从机的响应错误,如校验失败.与超时一样计入从机的连续失败次数.
+     *
+     * @param slave 从机标识
+     * @see SerialPortConfig#getSlaveFailureThreshold()
+     */
+    default void reportError(String slave) {
+    }
+
     void doOnClosed(Disposable disposable);
 
     /**
@@ -83,6 +113,26 @@ public interface SerialPortClient extends Disposable {
         return new DefaultSerialPortClient(port, parser, maxQueueSize, monitor);
     }
 
+    /**
+     * 创建客户端,接收到的数据将直接读取到{@code allocator}分配的缓冲区中,
+     * {@link PayloadParser}需要负责释放不再传递的缓冲区. 其他创建方法默认使用非池化的堆内存分配器.
+     * <p>
+     * 使用池化分配器(如{@link ByteBufAllocator#DEFAULT})时,调用方必须释放响应的缓冲区,否则将导致内存泄漏.
+     *
+     * @param port         串口配置
+     * @param parser       完整报文解析器
+     * @param maxQueueSize 最大队列长度
+     * @param allocator    内存分配器
+     * @return 串口客户端
+     */
+    static SerialPortClient create(SerialPortConfig port,
+                                   PayloadParser parser,
+                                   int maxQueueSize,
+                                   Monitor monitor,
+                                   ByteBufAllocator allocator) {
+        return new DefaultSerialPortClient(port, port.create(), parser, maxQueueSize, monitor, allocator);
+    }
+
     /**
      * 基于已经打开的串口创建客户端,在收到串口数据后,会根据{@link PayloadParser}的规则解析出完整报文后返回给发起方.
      *
@@ -41,6 +41,21 @@ public class SerialPortConfig {
     //Rtu通讯间隔时间（两个请求之间的间隔时间，以适应性能不佳的设备）
     private Duration communicationInterval = Duration.ZERO;
 
+    //根据各从机的响应情况自动调整通讯间隔,启用时communicationInterval为初始间隔
+    private boolean adaptiveInterval = false;
+
+    private Duration minCommunicationInterval = Duration.ZERO;
+
+    private Duration maxCommunicationInterval = Duration.ofSeconds(1);
+
+    //从机连续超时或响应错误次数达到此值时暂停向该从机发送请求,小于等于0时不暂停.
+    private int slaveFailureThreshold = 3;
+
+    //暂停向从机发送请求的时间,连续失败时翻倍直到slaveMaxBackoff
+    private Duration slaveBackoff = Duration.ofSeconds(5);
+
+    private Duration slaveMaxBackoff = Duration.ofMinutes(1);
+
     public void validate(){
         ValidatorUtils.tryValidate(this);
     }
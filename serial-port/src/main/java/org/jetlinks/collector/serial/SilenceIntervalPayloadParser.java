@@ -0,0 +1,170 @@
+package org.jetlinks.collector.serial;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于字符间静默时间的报文解析器,如: Modbus RTU 以 T3.5 字符时间的静默作为报文结束.
+ * <p>
+ * 使用正确的分帧后,可以不再依赖{@link SerialPortConfig#getCommunicationInterval()}来避免报文粘连.
+ *
+ * <pre>{@code
+ * SerialPortClient.create(config, SilenceIntervalPayloadParser.modbusRtu(config), 1024, monitor);
+ * }</pre>
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+public class SilenceIntervalPayloadParser extends AbstractPayloadParser {
+
+    //波特率大于19200时使用固定的字符间隔时间
+    static final long FIXED_T15_NANOS = 750_000, FIXED_T35_NANOS = 1_750_000;
+
+    /**
+     * 默认的最小静默时间.操作系统及USB转串口设备会批量上报接收到的数据(如FTDI默认16ms的延迟定时器),
+     * 静默时间小于此延迟时报文可能被拆分.
+     */
+    public static final Duration DEFAULT_MIN_SILENCE = Duration.ofMillis(20);
+
+    private final long silenceNanos;
+
+    private final long interCharNanos;
+
+    private final Scheduler scheduler;
+
+    private long lastReceived;
+
+    private boolean corrupted;
+
+    private Disposable task;
+
+    /**
+     * @param silence   报文结束的静默时间
+     * @param interChar 报文内两次接收数据的最大间隔,超过此间隔的报文将被丢弃,为<code>null</code>时不检查.
+     *                  间隔为操作系统上报数据的间隔,不是实际的字符间隔.
+     */
+    public SilenceIntervalPayloadParser(Duration silence, Duration interChar) {
+        this(silence, interChar, DEFAULT_ALLOCATOR, Schedulers.parallel());
+    }
+
+    public SilenceIntervalPayloadParser(Duration silence,
+                                        Duration interChar,
+                                        ByteBufAllocator allocator,
+                                        Scheduler scheduler) {
+        super(allocator);
+        this.silenceNanos = silence.toNanos();
+        this.interCharNanos = interChar == null ? 0 : interChar.toNanos();
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 根据串口配置创建 Modbus RTU 报文解析器,以 T3.5 作为报文结束,
+     * 静默时间不小于{@link SilenceIntervalPayloadParser#DEFAULT_MIN_SILENCE}.
+     *
+     * @param config 串口配置
+     * @return 报文解析器
+     */
+    public static SilenceIntervalPayloadParser modbusRtu(SerialPortConfig config) {
+        return modbusRtu(config, DEFAULT_MIN_SILENCE, false);
+    }
+
+    /**
+     * 根据串口配置创建 Modbus RTU 报文解析器.
+     * <p>
+     * 由于操作系统及USB转串口设备存在接收延迟,可通过{@code minSilence}设置最小静默时间.
+     * <p>
+     * 严格模式下测量的是操作系统两次上报数据的间隔,而不是实际的字符间隔.
+     * 通过USB转串口设备等存在批量上报的场景下,正常的报文也可能被判断为间隔超时而丢弃,只建议在原生串口上使用.
+     *
+     * @param config     串口配置
+     * @param minSilence 最小静默时间
+     * @param strict     是否丢弃两次接收数据间隔超过 T1.5 的报文
+     * @return 报文解析器
+     */
+    public static SilenceIntervalPayloadParser modbusRtu(SerialPortConfig config, Duration minSilence, boolean strict) {
+        long t15, t35;
+        if (config.getBaudRate() > 19200) {
+            t15 = FIXED_T15_NANOS;
+            t35 = FIXED_T35_NANOS;
+        } else {
+            long charNanos = characterNanos(config);
+            t15 = charNanos * 3 / 2;
+            t35 = charNanos * 7 / 2;
+        }
+        return new SilenceIntervalPayloadParser(
+            Duration.ofNanos(Math.max(t35, minSilence.toNanos())),
+            strict ? Duration.ofNanos(t15) : null);
+    }
+
+    /**
+     * 计算传输一个字符需要的时间: 起始位+数据位+校验位+停止位.
+     *
+     * @param config 串口配置
+     * @return 纳秒
+     */
+    static long characterNanos(SerialPortConfig config) {
+        double bits = 1 + config.getDataBits();
+        if (config.getParity() != null && config.getParity() != SerialPortParity.NONE) {
+            bits += 1;
+        }
+        SerialPortStopBits stopBits = config.getStopBits() == null ? SerialPortStopBits.ONE : config.getStopBits();
+        bits += switch (stopBits) {
+            case ONE -> 1;
+            case ONE_POINT_FIVE -> 1.5;
+            case TWO -> 2;
+        };
+        return (long) Math.ceil(bits * TimeUnit.SECONDS.toNanos(1) / Math.max(1, config.getBaudRate()));
+    }
+
+    @Override
+    protected ByteBuf decode(ByteBuf in) {
+        //由静默时间确定报文结束
+        return null;
+    }
+
+    @Override
+    protected void onReceived() {
+        long now = System.nanoTime();
+        if (interCharNanos > 0 && task != null && now - lastReceived > interCharNanos) {
+            corrupted = true;
+        }
+        lastReceived = now;
+        if (task == null) {
+            task = scheduler.schedule(this::checkSilence, silenceNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void checkSilence() {
+        if (task == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - lastReceived;
+        if (elapsed < silenceNanos) {
+            task = scheduler.schedule(this::checkSilence, silenceNanos - elapsed, TimeUnit.NANOSECONDS);
+            return;
+        }
+        task = null;
+        if (corrupted) {
+            corrupted = false;
+            super.reset();
+        } else {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void reset() {
+        if (task != null) {
+            task.dispose();
+            task = null;
+        }
+        corrupted = false;
+        super.reset();
+    }
+}
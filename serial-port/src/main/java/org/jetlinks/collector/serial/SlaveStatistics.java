@@ -0,0 +1,60 @@
+package org.jetlinks.collector.serial;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 从机请求统计信息
+ *
+ * @author zhouhao
+ * @see DefaultSerialPortClient#getStatistics()
+ * @since 1.0.1
+ */
+@Getter
+@AllArgsConstructor
+public class SlaveStatistics {
+
+    /**
+     * 从机标识,未指定从机的请求为<code>null</code>
+     */
+    private final String slave;
+
+    /**
+     * 已响应的请求数量
+     */
+    private final long responses;
+
+    /**
+     * 超时的请求数量
+     */
+    private final long timeouts;
+
+    /**
+     * 响应错误的请求数量,如校验失败
+     *
+     * @see DefaultSerialPortClient#reportError(String)
+     */
+    private final long errors;
+
+    /**
+     * 平均响应时间(毫秒)
+     */
+    private final double latency;
+
+    /**
+     * 排队中的请求数量
+     */
+    private final int pending;
+
+    /**
+     * 是否已暂停向该从机发送请求
+     */
+    private final boolean unavailable;
+
+    /**
+     * 请求前的通讯间隔(毫秒)
+     *
+     * @see SerialPortConfig#isAdaptiveInterval()
+     */
+    private final double interval;
+}
@@ -0,0 +1,31 @@
+package org.jetlinks.collector.serial;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * 从机连续超时,暂停向该从机发送请求.
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+@AllArgsConstructor
+@Getter
+public class SlaveUnavailableException extends IOException {
+
+    private final String port;
+
+    private final String slave;
+
+    @Override
+    public String getMessage() {
+        return "SerialPort [" + port + "] slave [" + slave + "] unavailable";
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
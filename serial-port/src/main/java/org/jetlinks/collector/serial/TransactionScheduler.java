@@ -0,0 +1,359 @@
+package org.jetlinks.collector.serial;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * 串口请求调度器,按从机排队并轮流发送,避免单个从机阻塞其他从机的请求.
+ * <p>
+ * 同一从机的高优先级请求优先发送.从机连续超时或响应错误达到阈值时,在退避时间内直接拒绝该从机的请求,
+ * 退避时间结束后只接受一个探测请求,探测结果返回前拒绝该从机的其他请求,探测成功则恢复,否则退避时间翻倍.
+ * <p>
+ * 启用{@link SerialPortConfig#isAdaptiveInterval()}时,每个从机独立学习请求前的通讯间隔:
+ * 连续正常响应时逐步缩短,超时或响应错误时加倍,并限制在配置的范围内.
+ *
+ * @author zhouhao
+ * @since 1.0.1
+ */
+class TransactionScheduler<T extends TransactionScheduler.Transaction> {
+
+    interface Transaction {
+
+        String getSlave();
+
+        RequestPriority getPriority();
+
+        boolean isCancelled();
+    }
+
+    private final String port;
+
+    private final int failureThreshold;
+
+    private final long backoffNanos;
+
+    private final long maxBackoffNanos;
+
+    private final boolean adaptiveInterval;
+
+    private final long intervalNanos;
+
+    private final long minIntervalNanos;
+
+    private final long maxIntervalNanos;
+
+    private final BiConsumer<String, Duration> intervalListener;
+
+    private final Map<String, Slave> slaves = new HashMap<>();
+
+    //有待发送请求的从机,轮流发送
+    private final ArrayDeque<Slave> ready = new ArrayDeque<>();
+
+    private int size;
+
+    //连续正常响应多少次后缩短通讯间隔
+    static final int HEALTHY_THRESHOLD = 8;
+
+    static final long MIN_INTERVAL_STEP_NANOS = 1_000_000;
+
+    /**
+     * @param port             串口
+     * @param config           串口配置
+     * @param intervalListener 从机通讯间隔变化监听器
+     */
+    TransactionScheduler(String port, SerialPortConfig config, BiConsumer<String, Duration> intervalListener) {
+        this.port = port;
+        this.failureThreshold = config.getSlaveFailureThreshold();
+        this.backoffNanos = config.getSlaveBackoff().toNanos();
+        this.maxBackoffNanos = Math.max(backoffNanos, config.getSlaveMaxBackoff().toNanos());
+        this.adaptiveInterval = config.isAdaptiveInterval();
+        this.minIntervalNanos = config.getMinCommunicationInterval().toNanos();
+        this.maxIntervalNanos = Math.max(minIntervalNanos, config.getMaxCommunicationInterval().toNanos());
+        long interval = config.getCommunicationInterval().toNanos();
+        this.intervalNanos = adaptiveInterval
+            ? Math.min(Math.max(interval, minIntervalNanos), maxIntervalNanos)
+            : interval;
+        this.intervalListener = intervalListener;
+    }
+
+    /**
+     * 获取向从机发送请求前的通讯间隔
+     *
+     * @param slaveId 从机
+     * @return 间隔(纳秒)
+     */
+    synchronized long interval(String slaveId) {
+        Slave slave = slaves.get(slaveId);
+        return slave == null ? intervalNanos : slave.intervalNanos;
+    }
+
+    /**
+     * 添加请求
+     *
+     * @param transaction  请求
+     * @param maxQueueSize 最大队列长度
+     * @return 无法添加时返回错误, 否则返回<code>null</code>
+     */
+    synchronized Throwable offer(T transaction, int maxQueueSize) {
+        if (size >= maxQueueSize) {
+            return new IllegalStateException("queue is full");
+        }
+        Slave slave = slaves.computeIfAbsent(transaction.getSlave(), Slave::new);
+        if (slave.isUnavailable(System.nanoTime())) {
+            return new SlaveUnavailableException(port, transaction.getSlave());
+        }
+        if (slave.backoff > 0) {
+            //退避结束,只允许一个探测请求
+            T probe = slave.probe;
+            if (probe != null && !probe.isCancelled()) {
+                return new SlaveUnavailableException(port, transaction.getSlave());
+            }
+            slave.probe = transaction;
+        }
+        slave.queue(transaction.getPriority()).add(transaction);
+        size++;
+        if (!slave.ready) {
+            slave.ready = true;
+            ready.add(slave);
+        }
+        return null;
+    }
+
+    /**
+     * 将已取出的请求放回队首
+     */
+    synchronized void requeue(T transaction) {
+        Slave slave = slaves.computeIfAbsent(transaction.getSlave(), Slave::new);
+        slave.queue(transaction.getPriority()).addFirst(transaction);
+        size++;
+        if (!slave.ready) {
+            slave.ready = true;
+            ready.addFirst(slave);
+        }
+    }
+
+    /**
+     * 获取下一个要发送的请求,已取消的请求将被忽略.
+     *
+     * @return 请求, 没有请求时返回<code>null</code>
+     */
+    synchronized T poll() {
+        while (!ready.isEmpty()) {
+            Slave slave = ready.poll();
+            T transaction = slave.poll();
+            if (transaction == null) {
+                slave.ready = false;
+                continue;
+            }
+            if (slave.high.isEmpty() && slave.normal.isEmpty()) {
+                slave.ready = false;
+            } else {
+                ready.add(slave);
+            }
+            return transaction;
+        }
+        return null;
+    }
+
+    void onResponse(String slaveId, long latencyNanos) {
+        long interval;
+        synchronized (this) {
+            Slave slave = slaves.get(slaveId);
+            if (slave == null) {
+                return;
+            }
+            long before = slave.intervalNanos;
+            onResponse0(slave, latencyNanos);
+            interval = slave.intervalNanos == before ? -1 : slave.intervalNanos;
+        }
+        fireIntervalChanged(slaveId, interval);
+    }
+
+    private void onResponse0(Slave slave, long latencyNanos) {
+        //与更新前的平均响应时间比较
+        long average = slave.latencyNanos;
+        slave.responses++;
+        slave.latencyNanos = slave.responses == 1
+            ? latencyNanos
+            : (average * 7 + latencyNanos) / 8;
+        //响应之后可能被调用方报告为错误响应,记录响应前的状态
+        slave.responded = true;
+        slave.failuresBeforeResponse = slave.failures;
+        slave.backoffBeforeResponse = slave.backoff;
+        slave.failures = 0;
+        slave.backoff = 0;
+        slave.unavailableUntil = 0;
+        slave.probe = null;
+
+        //连续正常响应,并且响应时间没有明显变长时缩短间隔
+        if (adaptiveInterval
+            && slave.intervalNanos > minIntervalNanos
+            && ++slave.healthy >= HEALTHY_THRESHOLD
+            && (slave.responses == 1 || latencyNanos <= average * 2)) {
+            slave.healthy = 0;
+            long interval = slave.intervalNanos - Math.max(slave.intervalNanos / 8, MIN_INTERVAL_STEP_NANOS);
+            slave.intervalNanos = Math.max(minIntervalNanos, interval);
+        }
+    }
+
+    /**
+     * 请求超时
+     *
+     * @param slaveId 从机
+     * @return 从机暂停发送时, 被拒绝的排队中的请求
+     */
+    List<T> onTimeout(String slaveId) {
+        return onFailure(slaveId, true);
+    }
+
+    /**
+     * 请求响应错误,如校验失败,与超时一样计入连续失败次数.
+     *
+     * @param slaveId 从机
+     * @return 从机暂停发送时, 被拒绝的排队中的请求
+     */
+    List<T> onError(String slaveId) {
+        return onFailure(slaveId, false);
+    }
+
+    private List<T> onFailure(String slaveId, boolean timeout) {
+        long interval;
+        List<T> rejected;
+        synchronized (this) {
+            Slave slave = slaves.get(slaveId);
+            if (slave == null) {
+                return Collections.emptyList();
+            }
+            long before = slave.intervalNanos;
+            rejected = onFailure0(slave, timeout);
+            interval = slave.intervalNanos == before ? -1 : slave.intervalNanos;
+        }
+        fireIntervalChanged(slaveId, interval);
+        return rejected;
+    }
+
+    private List<T> onFailure0(Slave slave, boolean timeout) {
+        if (timeout) {
+            slave.timeouts++;
+        } else {
+            slave.errors++;
+            if (slave.responded) {
+                //错误的响应不视为恢复
+                slave.failures = slave.failuresBeforeResponse;
+                slave.backoff = slave.backoffBeforeResponse;
+            }
+        }
+        slave.responded = false;
+        slave.failures++;
+        if (adaptiveInterval) {
+            slave.healthy = 0;
+            long interval = Math.max(slave.intervalNanos * 2, MIN_INTERVAL_STEP_NANOS);
+            slave.intervalNanos = Math.min(maxIntervalNanos, interval);
+        }
+        //未指定从机的请求不暂停
+        if (slave.id == null || failureThreshold <= 0 || slave.failures < failureThreshold) {
+            return Collections.emptyList();
+        }
+        slave.backoff = slave.backoff == 0 ? backoffNanos : Math.min(slave.backoff * 2, maxBackoffNanos);
+        slave.unavailableUntil = System.nanoTime() + slave.backoff;
+        slave.probe = null;
+        List<T> rejected = new ArrayList<>(slave.high.size() + slave.normal.size());
+        T transaction;
+        while ((transaction = slave.poll()) != null) {
+            rejected.add(transaction);
+        }
+        return rejected;
+    }
+
+    //在锁外通知,避免监听器阻塞调度
+    private void fireIntervalChanged(String slaveId, long interval) {
+        if (interval >= 0) {
+            intervalListener.accept(slaveId, Duration.ofNanos(interval));
+        }
+    }
+
+    /**
+     * 移除所有请求
+     *
+     * @return 未取消的请求
+     */
+    synchronized List<T> clear() {
+        List<T> all = new ArrayList<>(size);
+        T transaction;
+        while ((transaction = poll()) != null) {
+            all.add(transaction);
+        }
+        return all;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized List<SlaveStatistics> getStatistics() {
+        long now = System.nanoTime();
+        List<SlaveStatistics> statistics = new ArrayList<>(slaves.size());
+        for (Slave slave : slaves.values()) {
+            statistics.add(new SlaveStatistics(
+                slave.id,
+                slave.responses,
+                slave.timeouts,
+                slave.errors,
+                slave.latencyNanos / 1_000_000D,
+                slave.high.size() + slave.normal.size(),
+                slave.isUnavailable(now),
+                slave.intervalNanos / 1_000_000D));
+        }
+        return statistics;
+    }
+
+    private class Slave {
+        private final String id;
+        private final ArrayDeque<T> high = new ArrayDeque<>();
+        private final ArrayDeque<T> normal = new ArrayDeque<>();
+        private boolean ready;
+
+        private long responses;
+        private long timeouts;
+        private long errors;
+        private long latencyNanos;
+
+        //连续失败次数
+        private int failures;
+        private boolean responded;
+        private int failuresBeforeResponse;
+        private long backoffBeforeResponse;
+        private long backoff;
+        private long unavailableUntil;
+        //退避结束后的探测请求
+        private T probe;
+
+        //学习到的通讯间隔
+        private long intervalNanos = TransactionScheduler.this.intervalNanos;
+        private int healthy;
+
+        Slave(String id) {
+            this.id = id;
+        }
+
+        ArrayDeque<T> queue(RequestPriority priority) {
+            return priority == RequestPriority.HIGH ? high : normal;
+        }
+
+        boolean isUnavailable(long now) {
+            return unavailableUntil != 0 && now - unavailableUntil < 0;
+        }
+
+        T poll() {
+            T transaction;
+            while ((transaction = high.poll()) != null || (transaction = normal.poll()) != null) {
+                size--;
+                if (!transaction.isCancelled()) {
+                    return transaction;
+                }
+            }
+            return null;
+        }
+    }
+}
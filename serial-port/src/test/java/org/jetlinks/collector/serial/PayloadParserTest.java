@@ -0,0 +1,134 @@
+package org.jetlinks.collector.serial;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 报文解析器单元测试
+ *
+ * @author zhouhao
+ */
+class PayloadParserTest {
+
+    private static List<String> collect(PayloadParser parser) {
+        List<String> frames = new ArrayList<>();
+        parser.handlePayload()
+              .subscribe(frame -> {
+                  frames.add(ByteBufUtil.hexDump(frame));
+                  frame.release();
+              });
+        return frames;
+    }
+
+    private static void handle(PayloadParser parser, String hex) {
+        parser.handle(Unpooled.wrappedBuffer(ByteBufUtil.decodeHexDump(hex)));
+    }
+
+    @Test
+    void testLengthField() {
+        LengthFieldPayloadParser parser = new LengthFieldPayloadParser(1, 1, 0, 16);
+        List<String> frames = collect(parser);
+
+        //拆包
+        handle(parser, "01");
+        handle(parser, "02aa");
+        assertTrue(frames.isEmpty());
+        handle(parser, "bb");
+        assertEquals(List.of("0102aabb"), frames);
+
+        //粘包
+        frames.clear();
+        handle(parser, "0101aa0200" + "03");
+        assertEquals(List.of("0101aa", "0200"), frames);
+
+        //重置后丢弃未完成的报文
+        frames.clear();
+        parser.reset();
+        handle(parser, "0100");
+        assertEquals(List.of("0100"), frames);
+
+        //长度不合法时丢弃数据
+        frames.clear();
+        handle(parser, "01ff");
+        handle(parser, "0100");
+        assertEquals(List.of("0100"), frames);
+    }
+
+    @Test
+    void testDelimiter() {
+        DelimiterPayloadParser parser = new DelimiterPayloadParser("\r\n".getBytes(StandardCharsets.US_ASCII), true, 8);
+        List<String> frames = collect(parser);
+
+        //分隔符被拆分
+        handle(parser, "6162630d");
+        assertTrue(frames.isEmpty());
+        handle(parser, "0a");
+        assertEquals(List.of("616263"), frames);
+
+        //粘包
+        frames.clear();
+        handle(parser, "610d0a620d0a63");
+        assertEquals(List.of("61", "62"), frames);
+
+        //重置后重新查找
+        frames.clear();
+        parser.reset();
+        handle(parser, "640d0a");
+        assertEquals(List.of("64"), frames);
+
+        //超过最大长度时丢弃数据
+        frames.clear();
+        handle(parser, "616161616161616161");
+        handle(parser, "650d0a");
+        assertEquals(List.of("65"), frames);
+    }
+
+    @Test
+    void testFixedLength() {
+        FixedLengthPayloadParser parser = new FixedLengthPayloadParser(3);
+        List<String> frames = collect(parser);
+
+        //拆包
+        handle(parser, "01");
+        handle(parser, "02");
+        assertTrue(frames.isEmpty());
+        handle(parser, "03");
+        assertEquals(List.of("010203"), frames);
+
+        //粘包
+        frames.clear();
+        handle(parser, "0405060708");
+        assertEquals(List.of("040506"), frames);
+
+        //重置后丢弃未完成的报文
+        frames.clear();
+        parser.reset();
+        handle(parser, "0a0b0c");
+        assertEquals(List.of("0a0b0c"), frames);
+    }
+
+    @Test
+    void testDefaultAllocator() {
+        LengthFieldPayloadParser parser = new LengthFieldPayloadParser(1, 1, 0, 16);
+        List<ByteBuf> frames = new ArrayList<>();
+        parser.handlePayload().subscribe(frames::add);
+
+        //累积数据时默认使用非池化的堆内存
+        handle(parser, "0102aabb01");
+        handle(parser, "01cc");
+        assertEquals(2, frames.size());
+        for (ByteBuf frame : frames) {
+            assertFalse(frame.isDirect());
+            assertFalse(frame.alloc().isDirectBufferPooled());
+            frame.release();
+        }
+    }
+}
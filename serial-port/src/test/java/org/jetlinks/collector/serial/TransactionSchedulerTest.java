@@ -0,0 +1,121 @@
+package org.jetlinks.collector.serial;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TransactionScheduler 单元测试
+ *
+ * @author zhouhao
+ */
+class TransactionSchedulerTest {
+
+    static class Request implements TransactionScheduler.Transaction {
+        final String slave;
+        boolean cancelled;
+
+        Request(String slave) {
+            this.slave = slave;
+        }
+
+        @Override
+        public String getSlave() {
+            return slave;
+        }
+
+        @Override
+        public RequestPriority getPriority() {
+            return RequestPriority.NORMAL;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private TransactionScheduler<Request> scheduler(Duration backoff) {
+        SerialPortConfig config = new SerialPortConfig();
+        config.setSlaveFailureThreshold(1);
+        config.setSlaveBackoff(backoff);
+        return new TransactionScheduler<>("test", config, (slave, interval) -> {
+        });
+    }
+
+    @Test
+    void testHalfOpen() throws Exception {
+        TransactionScheduler<Request> scheduler = scheduler(Duration.ofMillis(10));
+
+        assertNull(scheduler.offer(new Request("1"), 10));
+        assertSame("1", scheduler.poll().slave);
+        scheduler.onTimeout("1");
+        assertInstanceOf(SlaveUnavailableException.class, scheduler.offer(new Request("1"), 10));
+
+        Thread.sleep(20);
+        //退避结束后只允许一个探测请求
+        Request probe = new Request("1");
+        assertNull(scheduler.offer(probe, 10));
+        assertInstanceOf(SlaveUnavailableException.class, scheduler.offer(new Request("1"), 10));
+        //其他从机不受影响
+        assertNull(scheduler.offer(new Request("2"), 10));
+
+        //探测失败,重新暂停
+        assertSame(probe, scheduler.poll());
+        scheduler.onTimeout("1");
+        assertInstanceOf(SlaveUnavailableException.class, scheduler.offer(new Request("1"), 10));
+
+        Thread.sleep(30);
+        probe = new Request("1");
+        assertNull(scheduler.offer(probe, 10));
+        //探测请求已取消时允许新的探测请求
+        probe.cancelled = true;
+        Request next = new Request("1");
+        assertNull(scheduler.offer(next, 10));
+
+        //探测成功,恢复
+        scheduler.onResponse("1", 1_000_000);
+        assertNull(scheduler.offer(new Request("1"), 10));
+        assertNull(scheduler.offer(new Request("1"), 10));
+    }
+
+    @Test
+    void testErrorResponse() {
+        SerialPortConfig config = new SerialPortConfig();
+        config.setSlaveFailureThreshold(2);
+        TransactionScheduler<Request> scheduler = new TransactionScheduler<>("test", config, (slave, interval) -> {
+        });
+        assertNull(scheduler.offer(new Request("1"), 10));
+
+        //响应后报告校验错误,不视为恢复
+        scheduler.onResponse("1", 1_000_000);
+        scheduler.onError("1");
+        scheduler.onResponse("1", 1_000_000);
+        scheduler.onError("1");
+        assertInstanceOf(SlaveUnavailableException.class, scheduler.offer(new Request("1"), 10));
+
+        SlaveStatistics statistics = scheduler.getStatistics().get(0);
+        assertEquals(2, statistics.getErrors());
+        assertEquals(0, statistics.getTimeouts());
+        assertTrue(statistics.isUnavailable());
+    }
+
+    @Test
+    void testIntervalListenerOutsideLock() {
+        SerialPortConfig config = new SerialPortConfig();
+        config.setAdaptiveInterval(true);
+        config.setCommunicationInterval(Duration.ofMillis(10));
+        @SuppressWarnings("unchecked")
+        TransactionScheduler<Request>[] holder = new TransactionScheduler[1];
+        Duration[] changed = new Duration[1];
+        holder[0] = new TransactionScheduler<>("test", config, (slave, interval) -> {
+            assertFalse(Thread.holdsLock(holder[0]));
+            changed[0] = interval;
+        });
+        assertNull(holder[0].offer(new Request("1"), 10));
+        holder[0].onTimeout("1");
+        assertEquals(Duration.ofMillis(20), changed[0]);
+    }
+}